@@ -0,0 +1,465 @@
+package com.example.smartaccountingapp.util;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Debug;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.R;
+import com.example.smartaccountingapp.adapter.AccountAdapter;
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 列表刷新基准：新增、修改、删除一条记录后，按 _id 差异刷新通知和重新绑定的行数，以及与整体刷新 (notifyDataSetChanged) 的对比；
+ * 每次绑定分配的对象数；以及滚动到已加载末尾时按页追加。结果输出到 logcat (TAG = DBBenchmark)。
+ */
+@RunWith(AndroidJUnit4.class)
+public class AccountAdapterBindBenchmarkTest {
+    private static final String TAG = "DBBenchmark";
+    private static final String USER = "bench_user";
+    private static final int ROWS = 1000;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int PAGE_SIZE = 50;
+    // 第 i 行 (日期从新到旧) 的日期为 LAST_DAY - 2i，相邻两行之间留有一天可以插入新记录
+    private static final long LAST_DAY = DateUtil.toEpochDay(2024, 12, 31);
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private DBHelper dbHelper;
+    private RecyclerView recyclerView;
+    private CountingAdapter adapter;
+
+    // 统计 onBindViewHolder 调用次数
+    private static class CountingAdapter extends AccountAdapter {
+        int binds;
+
+        CountingAdapter(Context context) {
+            super(context, new ArrayList<>());
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+            binds++;
+            super.onBindViewHolder(holder, position);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Context context = instrumentation.getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            String date = DateUtil.formatEpochDay(LAST_DAY - 2L * i);
+            accounts.add(new Account(0, USER, "支出", "餐饮", 100 + i, date, "note " + i));
+        }
+        dbHelper.addAccounts(accounts);
+
+        instrumentation.runOnMainSync(() -> {
+            recyclerView = new RecyclerView(context);
+            recyclerView.setLayoutManager(new LinearLayoutManager(context));
+            recyclerView.setItemAnimator(null); // 不计入动画创建的临时 ViewHolder
+            adapter = new CountingAdapter(context);
+            recyclerView.setAdapter(adapter);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        instrumentation.runOnMainSync(() -> adapter.swapPages(null));
+        dbHelper.close();
+    }
+
+    // 统计 Adapter 通知的行数：首个通知到达时 dispatched 计数减一 (同一次差异的其余通知在同一消息内分发)
+    private static class CountingObserver extends RecyclerView.AdapterDataObserver {
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        int inserted;
+        int removed;
+        int changed;
+        int moved;
+        int full;
+
+        @Override
+        public void onChanged() {
+            full++;
+            dispatched.countDown();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            changed += itemCount;
+            dispatched.countDown();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            inserted += itemCount;
+            dispatched.countDown();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removed += itemCount;
+            dispatched.countDown();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            moved += itemCount;
+            dispatched.countDown();
+        }
+    }
+
+    @Test
+    public void singleEdit_rebindsOnlyThatRow() throws InterruptedException {
+        int visible = showFirstPage();
+
+        // 修改第 3 行 (可见) 的备注，不影响排序
+        Account[] target = new Account[1];
+        instrumentation.runOnMainSync(() -> target[0] = adapter.getItem(2));
+        target[0].setNote("changed");
+        dbHelper.updateAccount(target[0]);
+
+        int[] diffBinds = new int[1];
+        CountingObserver counts = refresh(new long[]{target[0].getId()}, diffBinds);
+        instrumentation.runOnMainSync(() -> assertEquals("changed", adapter.getItem(2).getNote()));
+        assertEquals(1, counts.changed);
+        assertEquals(0, counts.inserted + counts.removed + counts.moved + counts.full);
+        assertEquals(1, diffBinds[0]);
+
+        // 整体刷新：所有可见行重新绑定
+        AccountPages full = query();
+        int[] fullBinds = new int[1];
+        instrumentation.runOnMainSync(() -> {
+            adapter.binds = 0;
+            adapter.swapPages(full);
+            layout();
+            fullBinds[0] = adapter.binds;
+        });
+
+        Log.i(TAG, String.format("update 1 of %d rows (%d visible): diff rebinds %d, notifyDataSetChanged rebinds %d",
+                ROWS, visible, diffBinds[0], fullBinds[0]));
+        assertTrue(fullBinds[0] >= visible);
+    }
+
+    @Test
+    public void singleInsert_bindsOnlyNewRow() throws InterruptedException {
+        showFirstPage();
+
+        // 排在第 3 行 (可见)；重新加载的范围仍是一页，原来的最后一行 (不可见) 移出已加载范围
+        long id = dbHelper.addAccount(new Account(0, USER, "支出", "餐饮", 1, DateUtil.formatEpochDay(LAST_DAY - 3), "new"));
+
+        int[] binds = new int[1];
+        CountingObserver counts = refresh(new long[0], binds);
+        instrumentation.runOnMainSync(() -> assertEquals(id, adapter.getItemId(2)));
+        assertEquals(1, counts.inserted);
+        assertEquals(1, counts.removed);
+        assertEquals(0, counts.changed + counts.moved + counts.full);
+        assertEquals(1, binds[0]);
+    }
+
+    @Test
+    public void singleDelete_bindsOnlyRevealedRow() throws InterruptedException {
+        showFirstPage();
+
+        long[] ids = new long[2];
+        instrumentation.runOnMainSync(() -> {
+            ids[0] = adapter.getItemId(2);
+            ids[1] = adapter.getItemId(3);
+        });
+        dbHelper.deleteAccount((int) ids[0], USER);
+
+        // 删除的行移除，下一页的第一行补到已加载范围末尾 (不可见)；只有滚入屏幕底部的一行需要绑定
+        int[] binds = new int[1];
+        CountingObserver counts = refresh(new long[0], binds);
+        instrumentation.runOnMainSync(() -> assertEquals(ids[1], adapter.getItemId(2)));
+        assertEquals(1, counts.removed);
+        assertEquals(1, counts.inserted);
+        assertEquals(0, counts.changed + counts.moved + counts.full);
+        assertEquals(1, binds[0]);
+    }
+
+    // 显示第一页并布局，返回可见行数
+    private int showFirstPage() {
+        instrumentation.runOnMainSync(() -> {
+            adapter.submitPages(query(), new long[0]); // 首次显示：直接替换
+            layout();
+        });
+        int visible = adapter.binds;
+        assertTrue(visible > 1);
+        assertTrue(visible < PAGE_SIZE);
+        return visible;
+    }
+
+    // 与 MainActivity 相同地重新加载已显示的范围并按差异刷新，等待分发后重新布局；binds[0] 为刷新引起的绑定次数
+    private CountingObserver refresh(long[] changedIds, int[] binds) throws InterruptedException {
+        CountingObserver counts = new CountingObserver();
+        AccountPages reloaded = dbHelper.loadAccountPages(AccountQuery.allOf(USER), adapter.getLoadedCount(), PAGE_SIZE, null);
+        instrumentation.runOnMainSync(() -> {
+            adapter.registerAdapterDataObserver(counts);
+            adapter.binds = 0;
+            adapter.submitPages(reloaded, changedIds);
+        });
+        assertTrue(counts.dispatched.await(5, TimeUnit.SECONDS));
+        instrumentation.runOnMainSync(() -> {
+            adapter.unregisterAdapterDataObserver(counts);
+            layout();
+            binds[0] = adapter.binds;
+        });
+        return counts;
+    }
+
+    /**
+     * 分页模式每次绑定分配的对象数。TextView.setText / ImageView.setImageResource 内部会分配
+     * (重建 Layout、读取 Drawable)，与绑定方式无关；因此与只做相同视图调用 (值预先算好) 的基准对比，
+     * 差值即绑定代码自身的分配：从 Cursor 读字段、格式化金额、定位行。setText(char[], int, int) 由 TextView
+     * 复用自己的 CharWrapper，不会每次绑定新建。同时与旧的绑定方式 (getString 读日期和备注、拼接金额字符串、
+     * 每次新建两个点击监听器) 对比。
+     */
+    @Test
+    public void cursorBind_allocationsPerRow() {
+        final int rows = 50;
+        AccountCursor legacyCursor = dbHelper.loadAccountsPage(AccountQuery.allOf(USER), null, rows, null);
+        // 基准使用的显示值 (本数据集全部是 "餐饮" 支出)
+        String[] categories = new String[rows];
+        char[][] notes = new char[rows][];
+        char[][] dates = new char[rows][];
+        char[][] amounts = new char[rows][MoneyUtil.FORMAT_BUFFER_SIZE];
+        int[] amountLengths = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            legacyCursor.moveToPosition(i);
+            categories[i] = legacyCursor.getCategory();
+            notes[i] = legacyCursor.getNote().toCharArray();
+            dates[i] = legacyCursor.getDate().toCharArray();
+            amountLengths[i] = MoneyUtil.formatTo(amounts[i], '-', legacyCursor.getAmountCents());
+        }
+
+        long[] counts = new long[3];
+        instrumentation.runOnMainSync(() -> {
+            adapter.submitPages(query(), new long[0]);
+            layout();
+            AccountAdapter.ViewHolder holder = adapter.onCreateViewHolder(recyclerView, 0);
+            View viewsOnly = adapter.onCreateViewHolder(recyclerView, 0).itemView;
+            View legacyView = adapter.onCreateViewHolder(recyclerView, 0).itemView;
+            Runnable bind = () -> {
+                for (int i = 0; i < rows; i++) {
+                    adapter.onBindViewHolder(holder, i);
+                }
+            };
+            Runnable views = () -> {
+                for (int i = 0; i < rows; i++) {
+                    setViews(viewsOnly, categories[i], notes[i], dates[i], amounts[i], amountLengths[i]);
+                }
+            };
+            Runnable legacy = () -> {
+                for (int i = 0; i < rows; i++) {
+                    legacyCursor.moveToPosition(i);
+                    legacyBind(legacyView, legacyCursor);
+                }
+            };
+
+            // 预热：行都在第一页内，缓冲区扩容到最长的备注，各 TextView 的内部对象已创建
+            bind.run();
+            views.run();
+            legacy.run();
+            counts[0] = countAllocations(bind);
+            counts[1] = countAllocations(views);
+            counts[2] = countAllocations(legacy);
+        });
+        legacyCursor.close();
+
+        double adapterPerBind = counts[0] / (double) rows;
+        double viewsPerBind = counts[1] / (double) rows;
+        double legacyPerBind = counts[2] / (double) rows;
+        Log.i(TAG, String.format("allocations per bind: adapter %.1f, view calls only %.1f, "
+                        + "getString + concat + new listeners %.1f",
+                adapterPerBind, viewsPerBind, legacyPerBind));
+        assertTrue("绑定代码自身每行最多分配 1 个对象，实际 " + (adapterPerBind - viewsPerBind),
+                adapterPerBind - viewsPerBind <= 1);
+        // 旧方式每行至少分配 2 个 String、金额的 StringBuilder/String 和 2 个监听器
+        assertTrue(legacyPerBind - adapterPerBind >= 5);
+    }
+
+    /**
+     * List 模式 (搜索结果) 每次绑定分配的对象数：显示字段在载入时已按行算好 (AccountRow)，
+     * 绑定只把它们交给视图，与只做相同视图调用的基准相比最多多 1 个对象。
+     */
+    @Test
+    public void listBind_allocationsPerRow() {
+        final int rows = 50;
+        List<Account> accounts = dbHelper.getFilteredAccounts(AccountQuery.allOf(USER)).subList(0, rows);
+        String[] amounts = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            amounts[i] = "-" + MoneyUtil.format(accounts.get(i).getAmountCents());
+        }
+
+        long[] counts = new long[2];
+        instrumentation.runOnMainSync(() -> {
+            AccountAdapter listAdapter = new AccountAdapter(instrumentation.getTargetContext(), accounts);
+            assertEquals(rows, listAdapter.getItemCount());
+            AccountAdapter.ViewHolder holder = listAdapter.onCreateViewHolder(recyclerView, 0);
+            View viewsOnly = listAdapter.onCreateViewHolder(recyclerView, 0).itemView;
+            Runnable bind = () -> {
+                for (int i = 0; i < rows; i++) {
+                    listAdapter.onBindViewHolder(holder, i);
+                }
+            };
+            Runnable views = () -> {
+                for (int i = 0; i < rows; i++) {
+                    Account account = accounts.get(i);
+                    setViews(viewsOnly, account.getCategory(), account.getNote(), account.getDate(), amounts[i]);
+                }
+            };
+
+            bind.run();
+            views.run();
+            counts[0] = countAllocations(bind);
+            counts[1] = countAllocations(views);
+        });
+
+        double adapterPerBind = counts[0] / (double) rows;
+        double viewsPerBind = counts[1] / (double) rows;
+        Log.i(TAG, String.format("list mode allocations per bind: adapter %.1f, view calls only %.1f",
+                adapterPerBind, viewsPerBind));
+        assertTrue("绑定代码自身每行最多分配 1 个对象，实际 " + (adapterPerBind - viewsPerBind),
+                adapterPerBind - viewsPerBind <= 1);
+    }
+
+    // 基准：与分页模式绑定相同的视图调用，值已预先算好
+    private static void setViews(View itemView, String category, char[] note, char[] date, char[] amount, int amountLength) {
+        ((TextView) itemView.findViewById(R.id.tv_category)).setText(category);
+        ((TextView) itemView.findViewById(R.id.tv_note)).setText(note, 0, note.length);
+        ((TextView) itemView.findViewById(R.id.tv_date)).setText(date, 0, date.length);
+        TextView tvAmount = itemView.findViewById(R.id.tv_amount);
+        tvAmount.setText(amount, 0, amountLength);
+        tvAmount.setTextColor(Color.RED);
+        ((ImageView) itemView.findViewById(R.id.iv_icon)).setImageResource(R.drawable.ic_food);
+    }
+
+    // 基准：与 List 模式绑定相同的视图调用
+    private static void setViews(View itemView, String category, String note, String date, String amount) {
+        ((TextView) itemView.findViewById(R.id.tv_category)).setText(category);
+        ((TextView) itemView.findViewById(R.id.tv_note)).setText(note);
+        ((TextView) itemView.findViewById(R.id.tv_date)).setText(date);
+        TextView tvAmount = itemView.findViewById(R.id.tv_amount);
+        tvAmount.setText(amount);
+        tvAmount.setTextColor(Color.RED);
+        ((ImageView) itemView.findViewById(R.id.iv_icon)).setImageResource(R.drawable.ic_food);
+    }
+
+    private static void legacyBind(View itemView, AccountCursor cursor) {
+        ((TextView) itemView.findViewById(R.id.tv_category)).setText(cursor.getCategory());
+        ((TextView) itemView.findViewById(R.id.tv_note)).setText(cursor.getNote());
+        ((TextView) itemView.findViewById(R.id.tv_date)).setText(cursor.getDate());
+        TextView tvAmount = itemView.findViewById(R.id.tv_amount);
+        if (cursor.getTypeId() == DBHelper.TYPE_EXPENSE) {
+            tvAmount.setTextColor(Color.RED);
+            tvAmount.setText("-" + MoneyUtil.format(cursor.getAmountCents()));
+        } else {
+            tvAmount.setTextColor(Color.GREEN);
+            tvAmount.setText("+" + MoneyUtil.format(cursor.getAmountCents()));
+        }
+        int id = cursor.getId();
+        itemView.findViewById(R.id.iv_delete).setOnClickListener(v -> Log.d(TAG, "delete " + id));
+        itemView.setOnClickListener(v -> Log.d(TAG, "edit " + id));
+    }
+
+    @SuppressWarnings("deprecation") // Debug 的分配计数已不推荐使用，但仍可用于测量
+    private static long countAllocations(Runnable work) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            work.run();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return Debug.getThreadAllocCount();
+    }
+
+    /**
+     * 滚动到距已加载末尾 PREFETCH_DISTANCE 行以内时请求下一页；追加后只插入新的行。
+     * 列表刷新后，基于旧末尾的页会被丢弃。
+     */
+    @Test
+    public void scrollNearEnd_appendsNextPage() {
+        List<Account> requests = new ArrayList<>();
+        instrumentation.runOnMainSync(() -> {
+            adapter.setOnLoadMoreListener(requests::add);
+            adapter.submitPages(query(), new long[0]);
+            layout();
+        });
+        instrumentation.waitForIdleSync();
+        assertTrue(requests.isEmpty()); // 第一屏离末尾还远
+        assertEquals(PAGE_SIZE, adapter.getLoadedCount());
+
+        instrumentation.runOnMainSync(() -> {
+            recyclerView.scrollToPosition(PAGE_SIZE - 1);
+            layout();
+        });
+        instrumentation.waitForIdleSync();
+        assertEquals(1, requests.size());
+        Account after = requests.get(0);
+        assertEquals(adapter.getItemId(PAGE_SIZE - 1), after.getId());
+
+        AccountCursor next = dbHelper.loadAccountsPage(AccountQuery.allOf(USER), after, PAGE_SIZE, null);
+        int[] inserted = new int[2];
+        RecyclerView.AdapterDataObserver observer = new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                inserted[0] = positionStart;
+                inserted[1] = itemCount;
+            }
+        };
+        instrumentation.runOnMainSync(() -> {
+            adapter.registerAdapterDataObserver(observer);
+            adapter.appendPage(after, next);
+            adapter.unregisterAdapterDataObserver(observer);
+        });
+        assertArrayEquals(new int[]{PAGE_SIZE, PAGE_SIZE}, inserted);
+        assertEquals(2 * PAGE_SIZE, adapter.getLoadedCount());
+        assertEquals(next.getItemIds()[0], adapter.getItemId(PAGE_SIZE));
+
+        // 刷新之后到达的旧请求结果：after 不再是末尾，丢弃并关闭
+        AccountCursor stale = dbHelper.loadAccountsPage(AccountQuery.allOf(USER), after, PAGE_SIZE, null);
+        instrumentation.runOnMainSync(() -> {
+            adapter.swapPages(query());
+            adapter.appendPage(after, stale);
+        });
+        assertTrue(stale.isClosed());
+        assertEquals(PAGE_SIZE, adapter.getLoadedCount());
+    }
+
+    // 列表的第一页 (与 MainActivity 相同的页大小)
+    private AccountPages query() {
+        return dbHelper.loadAccountPages(AccountQuery.allOf(USER), 0, PAGE_SIZE, null);
+    }
+
+    // 在主线程上按屏幕尺寸测量并布局，触发可见行的绑定
+    private void layout() {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
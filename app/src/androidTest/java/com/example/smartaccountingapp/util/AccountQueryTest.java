@@ -0,0 +1,164 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * AccountQuery：各条件组合的结果，以及相同形状的查询复用同一条 SQL。
+ */
+@RunWith(AndroidJUnit4.class)
+public class AccountQueryTest {
+
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "餐饮", 1500, "2024-03-01", "午饭"),
+                new Account(0, "u", "支出", "交通", 300, "2024-03-02", "地铁"),
+                new Account(0, "u", "支出", "购物", 9900, "2024-03-05", "打折 50%"),
+                new Account(0, "u", "支出", "购物", 2000, "2024-04-01", "5000 元预算"),
+                new Account(0, "u", "收入", "其他", 500000, "2024-03-10", "工资"),
+                new Account(0, "other", "支出", "餐饮", 1500, "2024-03-01", "别人的记录")));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void multipleCategories_matchAny() {
+        List<Account> result = dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").type("支出").categories("交通", "餐饮").build());
+        assertEquals(Arrays.asList("交通", "餐饮"), categoriesOf(result)); // 日期从新到旧
+    }
+
+    @Test
+    public void amountAndDateRange_includeBothEnds() {
+        List<Account> result = dbHelper.getFilteredAccounts(new AccountQuery.Builder("u")
+                .dateRange("2024-03-01", "2024-03-05")
+                .amountRange(300L, 1500L)
+                .sortBy(DBHelper.SortOrder.AMOUNT_ASC)
+                .build());
+        assertEquals(2, result.size());
+        assertEquals(300, result.get(0).getAmountCents());
+        assertEquals(1500, result.get(1).getAmountCents());
+
+        // 只限下限
+        assertEquals(2, dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").amountRange(9900L, null).build()).size());
+    }
+
+    @Test
+    public void noteContains_treatsWildcardsLiterally() {
+        List<Account> percent = dbHelper.getFilteredAccounts(new AccountQuery.Builder("u").noteContains("50%").build());
+        assertEquals(1, percent.size());
+        assertEquals("打折 50%", percent.get(0).getNote());
+
+        // "_" 不匹配任意单个字符
+        assertTrue(dbHelper.getFilteredAccounts(new AccountQuery.Builder("u").noteContains("午_").build()).isEmpty());
+        assertEquals(1, dbHelper.getFilteredAccounts(new AccountQuery.Builder("u").noteContains("午").build()).size());
+    }
+
+    @Test
+    public void unknownNames_matchNothing() {
+        assertTrue(dbHelper.getFilteredAccounts(new AccountQuery.Builder("u").type("不存在").build()).isEmpty());
+        // 已知类别与未知类别一起筛选时只返回已知类别的记录
+        assertEquals(1, dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").categories("餐饮", "不存在").build()).size());
+    }
+
+    @Test
+    public void emptyValues_clearConditions() {
+        AccountQuery query = new AccountQuery.Builder("u").type("").categories("", null)
+                .dateRange("2024-01-01", "").noteContains("").build();
+        assertEquals(AccountQuery.allOf("u"), query);
+        assertEquals(5, dbHelper.getFilteredAccounts(query).size());
+    }
+
+    @Test
+    public void cursorAndPages_matchList() {
+        AccountQuery query = new AccountQuery.Builder("u").type("支出").sortBy(DBHelper.SortOrder.AMOUNT_DESC).build();
+        List<Account> all = dbHelper.getFilteredAccounts(query);
+
+        try (AccountCursor first = dbHelper.loadAccountsPage(query, null, 2, null)) {
+            assertEquals(2, first.getCount());
+            assertArrayEquals(new long[]{all.get(0).getId(), all.get(1).getId()}, first.getItemIds());
+            first.moveToLast();
+            try (AccountCursor second = dbHelper.loadAccountsPage(query, first.getAccount(), 2, null)) {
+                assertEquals(all.size() - 2, second.getCount());
+                assertTrue(second.moveToFirst());
+                assertEquals(all.get(2).getId(), second.getId());
+                assertEquals(all.get(2).getId(), second.getItemIds()[0]);
+            }
+        }
+
+        // 重新加载已显示的范围：满页时继续加载，直到至少 minRows 条或没有更多记录
+        try (AccountPages pages = dbHelper.loadAccountPages(query, 3, 2, null)) {
+            assertEquals(2, pages.getPages().size());
+            assertEquals(all.size(), pages.getCount());
+            assertTrue(pages.hasMore()); // 最后一页是满页，还不知道之后是否有记录
+        }
+        try (AccountPages pages = dbHelper.loadAccountPages(query, 0, 3, null)) {
+            assertEquals(1, pages.getPages().size()); // 至少一页
+            assertEquals(3, pages.getCount());
+            assertTrue(pages.hasMore());
+        }
+        try (AccountPages pages = dbHelper.loadAccountPages(query, 100, 3, null)) {
+            assertEquals(all.size(), pages.getCount());
+            assertFalse(pages.hasMore());
+            long[] ids = pages.getPages().get(1).getItemIds();
+            assertEquals(all.get(3).getId(), ids[0]);
+        }
+    }
+
+    @Test
+    public void sameShape_reusesSqlString() {
+        AccountQuery a = new AccountQuery.Builder("u").type("支出").categories("餐饮", "交通")
+                .dateRange("2024-01-01", "2024-01-31").build();
+        AccountQuery b = new AccountQuery.Builder("other").type("收入").categories("工资", "其他")
+                .dateRange("2023-05-01", "2023-06-30").build();
+        assertNotEquals(a, b);
+        assertSame(a.sql(AccountQuery.Select.LIST), b.sql(AccountQuery.Select.LIST));
+
+        // 类别个数、排序或查询的列不同时是另一条 SQL
+        AccountQuery c = b.buildUpon().categories("工资").build();
+        assertNotEquals(a.sql(AccountQuery.Select.LIST), c.sql(AccountQuery.Select.LIST));
+        AccountQuery d = a.buildUpon().sortBy(DBHelper.SortOrder.AMOUNT_ASC).build();
+        assertNotEquals(a.sql(AccountQuery.Select.LIST), d.sql(AccountQuery.Select.LIST));
+        assertNotEquals(a.sql(AccountQuery.Select.LIST), a.sql(AccountQuery.Select.PAGE_FIRST));
+    }
+
+    @Test
+    public void categoriesOrder_doesNotChangeQuery() {
+        AccountQuery a = new AccountQuery.Builder("u").categories("餐饮", "交通").build();
+        AccountQuery b = new AccountQuery.Builder("u").categories("交通", "餐饮", "交通").build();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    private static List<String> categoriesOf(List<Account> accounts) {
+        String[] names = new String[accounts.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = accounts.get(i).getCategory();
+        }
+        return Arrays.asList(names);
+    }
+}
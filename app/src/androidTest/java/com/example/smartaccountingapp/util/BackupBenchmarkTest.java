@@ -0,0 +1,352 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 备份导出/导入基准：结果输出到 logcat (TAG = DBBenchmark)。
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackupBenchmarkTest {
+    private static final String TAG = "DBBenchmark";
+    private static final String BENCH_DB = "AccountDB_backup_benchmark";
+    private static final String USER = "bench_user";
+    private static final String FILE = "accounts_backup_benchmark.json";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BENCH_DB);
+        dbHelper = new DBHelper(context, BENCH_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(BENCH_DB);
+        context.deleteFile(FILE);
+    }
+
+    /**
+     * 导出的 Java 堆峰值：旧方式 (List&lt;Account&gt; + JSON String + getBytes 三份副本同时存在) 与流式导出对比。
+     * 流式导出在 10 万条和 100 万条时的峰值应基本相同 (只有一页 Cursor 和写缓冲)。
+     */
+    @Test
+    public void export_peakHeap_streamingVsLegacy() throws Exception {
+        insertAccounts(0, 100_000);
+
+        long baseline = usedHeap();
+        long start = SystemClock.elapsedRealtime();
+        List<Account> accounts = dbHelper.getFilteredAccounts(AccountQuery.allOf(USER));
+        String json = FileUtil.convertAccountsToJson(accounts);
+        byte[] bytes = json.getBytes();
+        long legacyPeak = usedHeap() - baseline;
+        assertTrue(FileUtil.saveToFile(context, FILE, json));
+        long legacyMs = SystemClock.elapsedRealtime() - start;
+        assertTrue(bytes.length > 0);
+        accounts = null;
+        json = null;
+        bytes = null;
+
+        long[] stream100k = exportStreaming();
+        insertAccounts(100_000, 900_000);
+        long[] stream1m = exportStreaming();
+
+        Log.i(TAG, String.format("export 100k rows: legacy peak %d KB in %d ms; streaming peak %d KB in %d ms; "
+                        + "streaming 1M rows peak %d KB in %d ms",
+                legacyPeak / 1024, legacyMs, stream100k[0] / 1024, stream100k[1], stream1m[0] / 1024, stream1m[1]));
+        assertTrue("流式导出的堆峰值应远小于旧方式", stream100k[0] < legacyPeak / 10);
+        // 记录数增加 10 倍，峰值不随之增长 (允许 1 MB 的测量误差)
+        assertTrue("流式导出的堆峰值不应随记录数增长", stream1m[0] < stream100k[0] + 1024 * 1024);
+    }
+
+    /**
+     * 导入 10 万条记录的 Java 堆峰值：旧方式 (readFromFile 整个文件读成 String、解析出完整 List 后再插入)
+     * 与流式导入 (逐条解析、每批插入) 对比；流式导入每读 1 万条 GC 后采样一次已用堆。
+     */
+    @Test
+    public void import_peakHeap_streamingVsLegacy() throws Exception {
+        insertAccounts(0, 100_000);
+        FileUtil.exportAccounts(context, dbHelper, USER, FILE, null, null);
+
+        long baseline = usedHeap();
+        long start = SystemClock.elapsedRealtime();
+        String json = FileUtil.readFromFile(context, FILE);
+        List<Account> accounts = FileUtil.convertJsonToAccounts(json);
+        long legacyPeak = usedHeap() - baseline;
+        dbHelper.replaceAllAccounts(USER, accounts);
+        long legacyMs = SystemClock.elapsedRealtime() - start;
+        assertEquals(100_000, accounts.size());
+        json = null;
+        accounts = null;
+
+        long streamingBaseline = usedHeap();
+        long[] peak = new long[1];
+        int[] reports = new int[1];
+        start = SystemClock.elapsedRealtime();
+        int imported = FileUtil.importAccounts(context, dbHelper, USER, FILE, (done, total) -> {
+            if (reports[0]++ % 10 == 0) {
+                peak[0] = Math.max(peak[0], usedHeap() - streamingBaseline);
+            }
+        }, null);
+        long streamingMs = SystemClock.elapsedRealtime() - start;
+        assertEquals(100_000, imported);
+
+        Log.i(TAG, String.format("import 100k rows: legacy peak %d KB in %d ms; streaming peak %d KB in %d ms",
+                legacyPeak / 1024, legacyMs, peak[0] / 1024, streamingMs));
+        assertTrue("流式导入的堆峰值应远小于旧方式", peak[0] < legacyPeak / 10);
+    }
+
+    /**
+     * 读取 200 MB 备份文件的吞吐量与分配量：旧的读取方式 (InputStreamReader 默认字符集 + readLine，每行一个 String)
+     * 与 MappedFileReader (内存映射 + UTF-8 解码到复用的 char 数组) 对比。
+     * 两种方式都不保留读取结果：旧方式再拼接成一个 String 需要约 400 MB 堆，多数设备上会直接 OOM。
+     */
+    @Test
+    public void read200MB_mappedVsReadLine() throws Exception {
+        final long targetBytes = 200L * 1024 * 1024;
+        File file = context.getFileStreamPath(FILE);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            out.write('[');
+            // 每条记录一行，旧方式的 readLine 才不会把整个文件读成一行
+            for (int i = 0; i % 10_000 != 0 || file.length() < targetBytes; i++) {
+                if (i > 0) out.write(",\n");
+                out.write("{\"id\":" + i + ",\"userId\":\"bench_user\",\"type\":\"支出\",\"category\":\"餐饮\","
+                        + "\"amount\":12.30,\"date\":\"2024-01-01\",\"note\":\"午饭 note " + i + "\"}");
+                if (i % 10_000 == 0) out.flush();
+            }
+            out.write(']');
+        }
+        long bytes = file.length();
+
+        long[] legacy = measureRead(() -> {
+            long chars = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    chars += line.length();
+                }
+            }
+            return chars;
+        });
+        long[] mapped = measureRead(() -> {
+            long chars = 0;
+            char[] buffer = new char[64 * 1024];
+            try (MappedFileReader reader = new MappedFileReader(file)) {
+                int n;
+                while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+                    chars += n;
+                }
+            }
+            return chars;
+        });
+
+        Log.i(TAG, String.format("read %d MB: readLine %d ms (%.0f MB/s), allocated %d MB; "
+                        + "MappedFileReader %d ms (%.0f MB/s), allocated %d KB",
+                bytes >> 20, legacy[1], mbPerSecond(bytes, legacy[1]), legacy[2] >> 20,
+                mapped[1], mbPerSecond(bytes, mapped[1]), mapped[2] >> 10));
+        // readLine 去掉了换行符，其余字符数应相同
+        assertTrue(mapped[0] > legacy[0]);
+        assertTrue("MappedFileReader 不应随文件大小分配内存", mapped[2] < 1024 * 1024);
+        assertTrue(legacy[2] > bytes);
+    }
+
+    /**
+     * 20 万条记录的 JSON 与二进制备份对比：文件大小、导出耗时、纯解码耗时 (不写数据库) 与解码分配量，以及完整导入耗时。
+     */
+    @Test
+    public void backupFormats_jsonVsBinary() throws Exception {
+        insertAccounts(0, 200_000);
+        File file = context.getFileStreamPath(FILE);
+        long[][] results = new long[2][];
+        FileUtil.BackupFormat[] formats = {FileUtil.BackupFormat.JSON, FileUtil.BackupFormat.BINARY};
+        for (int i = 0; i < formats.length; i++) {
+            FileUtil.BackupFormat format = formats[i];
+            long start = SystemClock.elapsedRealtime();
+            assertEquals(200_000, FileUtil.exportAccounts(context, dbHelper, USER, FILE, format, null, null));
+            long exportMs = SystemClock.elapsedRealtime() - start;
+            long size = file.length();
+            assertEquals(format, FileUtil.detectFormat(file));
+
+            long[] decode = measureRead(() -> {
+                long records = 0;
+                if (format == FileUtil.BackupFormat.BINARY) {
+                    try (BinaryBackupReader reader = new BinaryBackupReader(new FileInputStream(file))) {
+                        while (reader.next() != null) records++;
+                    }
+                } else {
+                    try (AccountJsonReader reader = new AccountJsonReader(new MappedFileReader(file))) {
+                        while (reader.next() != null) records++;
+                    }
+                }
+                return records;
+            });
+            assertEquals(200_000, decode[0]);
+
+            start = SystemClock.elapsedRealtime();
+            assertEquals(200_000, FileUtil.importAccounts(context, dbHelper, USER, FILE, null, null));
+            long importMs = SystemClock.elapsedRealtime() - start;
+            results[i] = new long[]{size, exportMs, decode[1], decode[2], importMs};
+        }
+
+        Log.i(TAG, String.format("200k rows: JSON %d KB, export %d ms, decode %d ms (allocated %d MB), import %d ms; "
+                        + "binary %d KB, export %d ms, decode %d ms (allocated %d MB), import %d ms",
+                results[0][0] >> 10, results[0][1], results[0][2], results[0][3] >> 20, results[0][4],
+                results[1][0] >> 10, results[1][1], results[1][2], results[1][3] >> 20, results[1][4]));
+        assertTrue("二进制备份应明显小于 JSON", results[1][0] * 3 < results[0][0]);
+        assertTrue("二进制解码应快于 JSON 解析", results[1][2] < results[0][2]);
+    }
+
+    /**
+     * 压缩级别的取舍：20 万条记录在各压缩级别下的导出耗时、文件大小和导入耗时 (JSON 与二进制)。
+     * 压缩在单独的线程中进行，与读取 Cursor 并行：同时单独记录压缩同样数据的耗时，
+     * 流水线导出的耗时应接近 max(读取编码, 压缩)，而不是两者之和。
+     */
+    @Test
+    public void compressionLevels_timeVsSize() throws Exception {
+        insertAccounts(0, 200_000);
+        File file = context.getFileStreamPath(FILE);
+        int[] levels = {FileUtil.COMPRESSION_NONE, FileUtil.COMPRESSION_FASTEST,
+                FileUtil.COMPRESSION_DEFAULT, FileUtil.COMPRESSION_SMALLEST};
+        StringBuilder report = new StringBuilder("200k rows, level: size / export / import");
+        for (FileUtil.BackupFormat format : FileUtil.BackupFormat.values()) {
+            long plainSize = 0;
+            long previousSize = Long.MAX_VALUE;
+            for (int level : levels) {
+                long start = SystemClock.elapsedRealtime();
+                FileUtil.exportAccounts(context, dbHelper, USER, FILE, format, level, null, null);
+                long exportMs = SystemClock.elapsedRealtime() - start;
+                long size = file.length();
+                start = SystemClock.elapsedRealtime();
+                assertEquals(200_000, FileUtil.importAccounts(context, dbHelper, USER, FILE, null, null));
+                long importMs = SystemClock.elapsedRealtime() - start;
+                report.append(String.format("%n%s level %d: %d KB / %d ms / %d ms", format, level, size >> 10, exportMs, importMs));
+
+                if (level == FileUtil.COMPRESSION_NONE) plainSize = size;
+                else assertTrue(format + " level " + level + " 应小于未压缩的文件", size < plainSize);
+                // 级别越高文件不应明显变大 (允许 1% 的波动)
+                assertTrue(size <= previousSize + previousSize / 100);
+                previousSize = size;
+            }
+
+            // 对比：不使用流水线，压缩与读取 Cursor 在同一线程中串行执行
+            byte[] plain = readAll(file.getPath(), format, FileUtil.COMPRESSION_NONE);
+            long start = SystemClock.elapsedRealtime();
+            try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file), 64 * 1024)) {
+                out.write(plain);
+            }
+            long compressOnlyMs = SystemClock.elapsedRealtime() - start;
+            report.append(String.format("%n%s: gzip level 6 alone on the exported bytes %d ms", format, compressOnlyMs));
+        }
+        Log.i(TAG, report.toString());
+    }
+
+    // 以指定格式和压缩级别导出后读出整个文件
+    private byte[] readAll(String path, FileUtil.BackupFormat format, int level) throws Exception {
+        FileUtil.exportAccounts(context, dbHelper, USER, FILE, format, level, null, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(path)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface ReadTask {
+        long run() throws Exception;
+    }
+
+    // 返回 {task 的返回值 (读取的字符数或记录数), 耗时 (毫秒), 本线程分配的字节数}
+    @SuppressWarnings("deprecation") // Debug 的分配计数已不推荐使用，但仍可用于测量
+    private static long[] measureRead(ReadTask task) throws Exception {
+        task.run(); // 预热 (同时让文件进入页缓存，两种方式条件相同)
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        long start = SystemClock.elapsedRealtime();
+        long chars;
+        try {
+            chars = task.run();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        long elapsed = Math.max(1, SystemClock.elapsedRealtime() - start);
+        return new long[]{chars, elapsed, Debug.getThreadAllocSize()};
+    }
+
+    private static double mbPerSecond(long bytes, long millis) {
+        return bytes / 1024.0 / 1024.0 * 1000.0 / millis;
+    }
+
+    // 流式导出，返回 {堆峰值 (字节), 耗时 (毫秒)}；每 20 页 GC 后采样一次已用堆
+    private long[] exportStreaming() throws Exception {
+        long baseline = usedHeap();
+        long[] peak = new long[1];
+        int[] pages = new int[1];
+        long start = SystemClock.elapsedRealtime();
+        long exported = FileUtil.exportAccounts(context, dbHelper, USER, FILE, (done, total) -> {
+            if (pages[0]++ % 20 == 0) {
+                peak[0] = Math.max(peak[0], usedHeap() - baseline);
+            }
+        }, null);
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        assertEquals(dbHelper.getAccountCount(USER), exported);
+        return new long[]{peak[0], elapsed};
+    }
+
+    private void insertAccounts(int from, int count) {
+        final int chunk = 50_000; // 分段构造，避免测试数据本身占满堆
+        for (int offset = 0; offset < count; offset += chunk) {
+            List<Account> accounts = new ArrayList<>(chunk);
+            for (int i = from + offset; i < from + Math.min(count, offset + chunk); i++) {
+                String date = String.format("20%02d-%02d-%02d", 15 + (i % 10), (i % 12) + 1, (i % 28) + 1);
+                accounts.add(new Account(0, USER, i % 5 == 0 ? "收入" : "支出", "餐饮", (i % 1000) * 10L, date, "note " + i));
+            }
+            dbHelper.addAccounts(accounts);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
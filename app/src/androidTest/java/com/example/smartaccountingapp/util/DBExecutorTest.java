@@ -0,0 +1,163 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 后台执行器：结果在主线程回调，取消或分离后不回调 (包括被拒绝的任务)，取消信号能中断 DBHelper 的查询。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBExecutorTest {
+
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void resultIsDeliveredOnMainThread() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean onMain = new AtomicBoolean();
+        AtomicReference<Long> count = new AtomicReference<>();
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1000, "2024-06-01", ""));
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                DBExecutor.getInstance().submit(signal -> dbHelper.getAccountCount("u"), result -> {
+                    onMain.set(Looper.myLooper() == Looper.getMainLooper());
+                    count.set(result);
+                    done.countDown();
+                }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(onMain.get());
+        assertEquals(Long.valueOf(1), count.get());
+    }
+
+    @Test
+    public void cancelledTaskNeverCallsBack() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean called = new AtomicBoolean();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            DBExecutor.Task task = DBExecutor.getInstance().submit(signal -> {
+                started.countDown();
+                release.await();
+                return "stale";
+            }, result -> called.set(true));
+            // 任务已开始执行后再取消：结果被丢弃
+            try {
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            task.cancel();
+            release.countDown();
+        });
+
+        Thread.sleep(200);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void rejectedTaskCancelledAtOnceNeverCallsBack() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean called = new AtomicBoolean();
+        DBExecutor.Callback<Object> ignore = result -> { };
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            // 占满工作线程和队列，之后的任务被拒绝
+            for (int i = 0; i < DBExecutor.POOL_SIZE + DBExecutor.QUEUE_CAPACITY; i++) {
+                DBExecutor.getInstance().submit(signal -> {
+                    release.await();
+                    return null;
+                }, ignore);
+            }
+            DBExecutor.Task task = DBExecutor.getInstance().submit(signal -> "rejected", new DBExecutor.Callback<String>() {
+                @Override
+                public void onResult(String result) {
+                    called.set(true);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    called.set(true); // 未取消时这里收到 RejectedExecutionException
+                }
+            });
+            task.cancel(); // 例如 onDestroy 中立即取消
+        });
+        release.countDown();
+
+        Thread.sleep(200);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void detachedTaskRunsWithoutCallback() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicBoolean called = new AtomicBoolean();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            DBExecutor.Task task = DBExecutor.getInstance().submit(signal -> {
+                long id = dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1000, "2024-06-01", ""));
+                ran.countDown();
+                return id;
+            }, result -> called.set(true));
+            task.detach(); // 例如保存中离开页面：写入仍需完成
+        });
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(called.get());
+        assertEquals(1, dbHelper.getAccountCount("u"));
+    }
+
+    @Test(expected = OperationCanceledException.class)
+    public void cancellationSignalAbortsQuery() {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            accounts.add(new Account(0, "u", "支出", "餐饮", 100 + i, "2024-06-01", "note " + i));
+        }
+        dbHelper.addAccounts(accounts);
+
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+        AccountCursor cursor = dbHelper.queryAccounts(AccountQuery.allOf("u"), signal);
+        try {
+            cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数据库性能基准：结果输出到 logcat (TAG = DBBenchmark)。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperBenchmarkTest {
+    private static final String TAG = "DBBenchmark";
+    private static final String BENCH_DB = "AccountDB_benchmark";
+    private static final String USER = "bench_user";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BENCH_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(BENCH_DB);
+    }
+
+    /**
+     * 10k 次读写混合 (每 3 次操作中 1 次写入、2 次读取)：
+     * 旧行为 —— 每次写入后 db.close()，下次访问重新打开，且未开启 WAL；
+     * 新行为 —— 共享连接常驻 + WAL。
+     */
+    @Test
+    public void mixedReadWrite_sharedConnectionVsOpenClosePerCall() {
+        final int ops = 10_000;
+
+        DBHelper legacy = new DBHelper(context, BENCH_DB);
+        legacy.setWriteAheadLoggingEnabled(false);
+        long legacyMs = runMixed(legacy, ops, true);
+        legacy.close();
+        context.deleteDatabase(BENCH_DB);
+
+        DBHelper shared = new DBHelper(context, BENCH_DB);
+        long sharedMs = runMixed(shared, ops, false);
+        shared.close();
+
+        Log.i(TAG, String.format("mixed %d ops: open/close-per-call %d ms (%.0f ops/s), shared+WAL %d ms (%.0f ops/s)",
+                ops, legacyMs, ops * 1000.0 / legacyMs, sharedMs, ops * 1000.0 / sharedMs));
+        assertTrue("共享连接应快于逐次开关连接", sharedMs < legacyMs);
+    }
+
+    /**
+     * 10 万条记录批量导入：单事务 + 预编译语句，对比逐条 addAccount 的单条耗时。
+     */
+    @Test
+    public void bulkImport_100kRows() {
+        final int rows = 100_000;
+        List<Account> accounts = buildAccounts(rows);
+        DBHelper helper = new DBHelper(context, BENCH_DB);
+
+        // 逐条插入只取小样本估算，避免测试过长
+        final int sample = 2_000;
+        long perRowStart = SystemClock.elapsedRealtime();
+        for (int i = 0; i < sample; i++) {
+            helper.addAccount(accounts.get(i));
+        }
+        long perRowMs = SystemClock.elapsedRealtime() - perRowStart;
+
+        long bulkStart = SystemClock.elapsedRealtime();
+        int inserted = helper.replaceAllAccounts(USER, accounts);
+        long bulkMs = SystemClock.elapsedRealtime() - bulkStart;
+
+        assertEquals(rows, inserted);
+        assertEquals(rows, DatabaseUtils.queryNumEntries(helper.getReadableDatabase(), DBHelper.TABLE_ACCOUNT,
+                DBHelper.COLUMN_USER_ID + " = ?", new String[]{USER}));
+
+        helper.close();
+        context.deleteDatabase(BENCH_DB);
+        helper = new DBHelper(context, BENCH_DB);
+        long batchedStart = SystemClock.elapsedRealtime();
+        assertEquals(rows, helper.addAccounts(accounts, DBHelper.DEFAULT_BATCH_SIZE));
+        long batchedMs = SystemClock.elapsedRealtime() - batchedStart;
+        helper.close();
+
+        Log.i(TAG, String.format("import %d rows: replaceAll (1 txn) %d ms, addAccounts (batch %d) %d ms; "
+                        + "per-row addAccount ~%.3f ms/row (est. %d ms for all)",
+                rows, bulkMs, DBHelper.DEFAULT_BATCH_SIZE, batchedMs,
+                perRowMs / (double) sample, perRowMs * rows / sample));
+    }
+
+    /**
+     * 10 万条记录的逐行映射开销：
+     * 旧行为 —— SELECT * 并在每行对每列调用 getColumnIndexOrThrow；
+     * 新行为 —— 只查询列表需要的列，列序号每个 Cursor 解析一次 (AccountCursorMapper)。
+     * 两者都先执行查询 (getCount) 再计时，主要比较映射本身。
+     */
+    @Test
+    public void cursorMapping_100kRows() {
+        final int rows = 100_000;
+        DBHelper helper = new DBHelper(context, BENCH_DB);
+        helper.replaceAllAccounts(USER, buildAccounts(rows));
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String[] args = {USER};
+
+        Cursor legacyCursor = db.rawQuery("SELECT * FROM " + DBHelper.TABLE_ACCOUNT
+                + " WHERE " + DBHelper.COLUMN_USER_ID + " = ?", args);
+        legacyCursor.getCount();
+        List<Account> legacy = new ArrayList<>(rows);
+        long legacyStart = SystemClock.elapsedRealtimeNanos();
+        while (legacyCursor.moveToNext()) {
+            Account account = new Account();
+            account.setId(legacyCursor.getInt(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_ID)));
+            account.setUserId(legacyCursor.getString(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_USER_ID)));
+            account.setTypeId(legacyCursor.getInt(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_TYPE_ID)));
+            account.setType(helper.getTypeName(account.getTypeId()));
+            account.setCategoryId(legacyCursor.getInt(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_CATEGORY_ID)));
+            account.setCategory(helper.getCategoryName(account.getCategoryId()));
+            account.setAmountCents(legacyCursor.getLong(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_AMOUNT)));
+            account.setDate(legacyCursor.getString(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_DATE)));
+            account.setNote(legacyCursor.getString(legacyCursor.getColumnIndexOrThrow(DBHelper.COLUMN_NOTE)));
+            legacy.add(account);
+        }
+        long legacyNanos = SystemClock.elapsedRealtimeNanos() - legacyStart;
+        legacyCursor.close();
+
+        Cursor mappedCursor = db.rawQuery("SELECT " + AccountCursorMapper.LIST_PROJECTION + " FROM " + DBHelper.TABLE_ACCOUNT
+                + " WHERE " + DBHelper.COLUMN_USER_ID + " = ?", args);
+        mappedCursor.getCount();
+        List<Account> mapped = new ArrayList<>(rows);
+        long mappedStart = SystemClock.elapsedRealtimeNanos();
+        helper.readAccounts(mappedCursor, mapped, USER);
+        long mappedNanos = SystemClock.elapsedRealtimeNanos() - mappedStart;
+        helper.close();
+
+        assertEquals(rows, legacy.size());
+        assertEquals(rows, mapped.size());
+        assertEquals(legacy.get(rows - 1).getNote(), mapped.get(rows - 1).getNote());
+        assertEquals(USER, mapped.get(0).getUserId());
+        Log.i(TAG, String.format("map %d rows: SELECT * + getColumnIndexOrThrow per row %.0f ns/row, "
+                        + "projection + cached ordinals %.0f ns/row",
+                rows, legacyNanos / (double) rows, mappedNanos / (double) rows));
+    }
+
+    /**
+     * 10 万条记录的列表：List<Account> 全部物化 vs 列表实际使用的键集分页 (第一页 50 行，绑定一屏 20 行)。
+     * 比较 GC 后的 Java 堆占用，以及显示第一屏前的查询耗时 (分页只读第一页，单个 Cursor 的 getCount() 要统计全部行)。
+     */
+    @Test
+    public void listHeap_100kRows_pagesVsList() {
+        final int rows = 100_000;
+        final int pageSize = 50;
+        final int visibleRows = 20;
+        DBHelper helper = new DBHelper(context, BENCH_DB);
+        helper.replaceAllAccounts(USER, buildAccounts(rows));
+        AccountQuery query = AccountQuery.allOf(USER);
+
+        long baseline = usedHeap();
+        List<Account> list = helper.getFilteredAccounts(query);
+        long listBytes = usedHeap() - baseline;
+        assertEquals(rows, list.size());
+        Account first = list.get(0);
+        Account second = list.get(pageSize);
+        list = null;
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        AccountCursor whole = helper.queryAccounts(query);
+        assertEquals(rows, whole.getCount());
+        long wholeNanos = SystemClock.elapsedRealtimeNanos() - start;
+        whole.close();
+
+        baseline = usedHeap();
+        start = SystemClock.elapsedRealtimeNanos();
+        AccountPages pages = helper.loadAccountPages(query, 0, pageSize, null);
+        long pageNanos = SystemClock.elapsedRealtimeNanos() - start;
+        assertEquals(pageSize, pages.getCount());
+        assertTrue(pages.hasMore());
+        AccountCursor page = pages.getPages().get(0);
+        for (int i = 0; i < visibleRows; i++) {
+            page.moveToPosition(i);
+            page.getCategory();
+            page.getNote();
+            page.getDate();
+        }
+        long pageBytes = usedHeap() - baseline;
+
+        page.moveToPosition(0);
+        Account fromPage = page.getAccount();
+        assertEquals(first.getId(), fromPage.getId());
+        assertEquals(first.getNote(), fromPage.getNote());
+        assertEquals(first.getCategory(), fromPage.getCategory());
+        assertEquals(USER, fromPage.getUserId());
+
+        // 下一页从上一页的最后一行之后开始
+        page.moveToLast();
+        try (AccountCursor next = helper.loadAccountsPage(query, page.getAccount(), pageSize, null)) {
+            assertEquals(second.getId(), next.getItemIds()[0]);
+        }
+        pages.close();
+        helper.close();
+
+        Log.i(TAG, String.format("list for %d rows: List<Account> %d KB; first page (%d rows, %d bound) %d KB, %.1f ms; "
+                        + "single cursor getCount() %.1f ms",
+                rows, listBytes / 1024, pageSize, visibleRows, pageBytes / 1024,
+                pageNanos / 1e6, wholeNanos / 1e6));
+        assertTrue("分页的堆占用应远小于物化全部记录", pageBytes < listBytes / 10);
+        assertTrue("第一页不应比统计全部行更慢", pageNanos < wholeNanos);
+    }
+
+    /**
+     * 打开编辑页的 Intent 往返开销 (每次)：整条记录作为 Serializable extra、作为 Parcelable extra、
+     * 只传 _id 再按主键读取 (getAccountById，1 万条记录)。
+     * 往返 = 写入 Intent -> 写入 Parcel (跨进程传给系统时的形式) -> 读出新 Intent -> 取出 extra。
+     */
+    @Test
+    public void editHandoff_serializableVsParcelableVsId() {
+        final int iterations = 2000;
+        DBHelper helper = new DBHelper(context, BENCH_DB);
+        helper.replaceAllAccounts(USER, buildAccounts(10_000));
+        Account added = new Account(0, USER, "支出", "餐饮", 1250, "2024-06-01", "午饭 和同事一起");
+        int id = (int) helper.addAccount(added);
+        Account account = helper.getAccountById(id, USER);
+        assertNotNull(account);
+        assertEquals(added.getNote(), account.getNote());
+        assertNull(helper.getAccountById(id, "other_user"));
+
+        long[] nanos = new long[3];
+        for (int round = 0; round < 2; round++) { // 第一轮预热
+            long start = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < iterations; i++) {
+                Intent intent = new Intent().putExtra("account", (Serializable) account);
+                Account copy = (Account) roundTrip(intent).getSerializableExtra("account");
+                assertEquals(id, copy.getId());
+            }
+            nanos[0] = SystemClock.elapsedRealtimeNanos() - start;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < iterations; i++) {
+                Intent intent = new Intent().putExtra("account", (android.os.Parcelable) account);
+                Account copy = roundTrip(intent).getParcelableExtra("account");
+                assertEquals(id, copy.getId());
+            }
+            nanos[1] = SystemClock.elapsedRealtimeNanos() - start;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < iterations; i++) {
+                Intent intent = new Intent().putExtra("account_id", id);
+                Account copy = helper.getAccountById(roundTrip(intent).getIntExtra("account_id", -1), USER);
+                assertEquals(id, copy.getId());
+            }
+            nanos[2] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        helper.close();
+
+        Log.i(TAG, String.format("edit handoff round trip: Serializable %.1f us, Parcelable %.1f us, "
+                        + "id + primary key lookup %.1f us",
+                nanos[0] / 1000.0 / iterations, nanos[1] / 1000.0 / iterations, nanos[2] / 1000.0 / iterations));
+        assertTrue("Parcelable 应快于 Serializable", nanos[1] < nanos[0]);
+    }
+
+    // 模拟 startActivity 跨进程传递 Intent：写入 Parcel 再读出
+    private Intent roundTrip(Intent intent) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            intent.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            Intent copy = Intent.CREATOR.createFromParcel(parcel);
+            copy.setExtrasClassLoader(Account.class.getClassLoader());
+            return copy;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private List<Account> buildAccounts(int count) {
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String date = String.format("20%02d-%02d-%02d", 15 + (i % 10), (i % 12) + 1, (i % 28) + 1);
+            accounts.add(new Account(0, USER, i % 5 == 0 ? "收入" : "支出", "餐饮", (i % 1000) * 10L, date, "note " + i));
+        }
+        return accounts;
+    }
+
+    private long runMixed(DBHelper helper, int ops, boolean closeAfterWrite) {
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < ops; i++) {
+            String date = String.format("2024-%02d-%02d", (i % 12) + 1, (i % 28) + 1);
+            if (i % 3 == 0) {
+                helper.addAccount(new Account(0, USER, i % 2 == 0 ? "支出" : "收入", "餐饮", (i % 100) * 100L, date, "bench " + i));
+                if (closeAfterWrite) {
+                    helper.close(); // 模拟旧代码中每个写方法末尾的 db.close()
+                }
+            } else {
+                try (Cursor cursor = helper.getAccountSummary(USER, date, date)) {
+                    assertTrue(cursor.moveToFirst());
+                }
+            }
+        }
+        return SystemClock.elapsedRealtime() - start;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.model.AccountChange;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 写入后发布的变更通知：类型、用户、记录 id 与受影响日期。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperChangeBusTest {
+
+    private DBHelper dbHelper;
+    private final List<AccountChange> changes = Collections.synchronizedList(new ArrayList<>());
+    private final AccountChangeBus.Listener listener = changes::add;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+        dbHelper.getChangeBus().register(listener);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.getChangeBus().unregister(listener);
+        dbHelper.close();
+    }
+
+    @Test
+    public void singleRowWritesPublishAffectedDays() {
+        long june1 = DateUtil.parseEpochDay("2024-06-01");
+        long july1 = DateUtil.parseEpochDay("2024-07-01");
+
+        Account account = new Account(0, "u", "支出", "餐饮", 1000, "2024-06-01", "");
+        account.setId((int) dbHelper.addAccount(account));
+        account.setDate("2024-07-01");
+        dbHelper.updateAccount(account);
+        dbHelper.deleteAccount(account.getId(), "u");
+        dbHelper.deleteAccount(account.getId(), "u"); // 已不存在：不发布
+
+        List<AccountChange> received = drain();
+        assertEquals(3, received.size());
+
+        AccountChange insert = received.get(0);
+        assertEquals(AccountChange.Kind.INSERT, insert.getKind());
+        assertEquals("u", insert.getUserId());
+        assertEquals(account.getId(), insert.getAccountId());
+        assertEquals(june1, insert.getNewDay());
+
+        AccountChange update = received.get(1);
+        assertEquals(AccountChange.Kind.UPDATE, update.getKind());
+        assertEquals(june1, update.getOldDay());
+        assertEquals(july1, update.getNewDay());
+        // 移出 6 月和移入 7 月都影响对应范围
+        assertTrue(update.affects("u", june1, june1));
+        assertTrue(update.affects("u", july1, july1));
+        assertFalse(update.affects("u", june1 + 1, july1 - 1));
+        assertFalse(update.affects("other", june1, july1));
+
+        AccountChange delete = received.get(2);
+        assertEquals(AccountChange.Kind.DELETE, delete.getKind());
+        assertEquals(july1, delete.getOldDay());
+    }
+
+    @Test
+    public void bulkWritesPublishResetPerUser() {
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account(0, "a", "支出", "餐饮", 100, "2024-06-01", ""));
+        accounts.add(new Account(0, "b", "收入", "其他", 200, "2024-06-02", ""));
+        dbHelper.addAccounts(accounts);
+        dbHelper.replaceAllAccounts("a", accounts);
+        dbHelper.deleteAllAccounts("b");
+
+        List<AccountChange> received = drain();
+        assertEquals(4, received.size());
+        for (AccountChange change : received) {
+            assertEquals(AccountChange.Kind.RESET, change.getKind());
+            assertTrue(change.affects(change.getUserId(), 0, 0));
+        }
+        assertEquals("a", received.get(2).getUserId());
+        assertEquals("b", received.get(3).getUserId());
+    }
+
+    // 通知在主线程回调：等主线程空闲后取出已收到的变更
+    private List<AccountChange> drain() {
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        synchronized (changes) {
+            List<AccountChange> copy = new ArrayList<>(changes);
+            changes.clear();
+            return copy;
+        }
+    }
+}
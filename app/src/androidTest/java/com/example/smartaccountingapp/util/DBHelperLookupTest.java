@@ -0,0 +1,90 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 类型/类别字典表：预置 id 固定，新名称自动登记，读出的记录带有名称和 id。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperLookupTest {
+
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+        dbHelper.getWritableDatabase(); // 触发 onOpen 加载字典
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void seededIdsAreStable() {
+        assertEquals("收入", dbHelper.getTypeName(DBHelper.TYPE_INCOME));
+        assertEquals("支出", dbHelper.getTypeName(DBHelper.TYPE_EXPENSE));
+        assertEquals("餐饮", dbHelper.getCategoryName(DBHelper.CATEGORY_FOOD));
+        assertEquals("其他", dbHelper.getCategoryName(DBHelper.CATEGORY_OTHER));
+        assertNull(dbHelper.getCategoryName(0));
+    }
+
+    @Test
+    public void customCategoryIsRegisteredOnce() {
+        dbHelper.addAccount(new Account(0, "u", "支出", "宠物", 1000, "2024-06-01", ""));
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "宠物", 2000, "2024-06-02", ""),
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-03", "")));
+
+        assertEquals(1, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), DBHelper.TABLE_CATEGORIES,
+                DBHelper.COLUMN_NAME + " = ?", new String[]{"宠物"}));
+
+        List<Account> pets = dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").type("支出").categories("宠物").build());
+        assertEquals(2, pets.size());
+        for (Account account : pets) {
+            assertEquals("宠物", account.getCategory());
+            assertEquals("支出", account.getType());
+            assertEquals(DBHelper.TYPE_EXPENSE, account.getTypeId());
+            assertEquals("宠物", dbHelper.getCategoryName(account.getCategoryId()));
+        }
+    }
+
+    @Test
+    public void unknownFilterMatchesNothing() {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1000, "2024-06-01", ""));
+        assertTrue(dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").categories("不存在的类别").build()).isEmpty());
+        assertTrue(dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").categories("餐饮", "不存在的类别").type("不存在的类型").build()).isEmpty());
+        assertEquals(1, dbHelper.getFilteredAccounts(AccountQuery.allOf("u")).size());
+    }
+
+    @Test
+    public void nullTypeAndCategoryAreStoredAsZero() {
+        dbHelper.addAccount(new Account(0, "u", null, null, 1000, "2024-06-01", ""));
+        Account account = dbHelper.getFilteredAccounts(AccountQuery.allOf("u")).get(0);
+        assertEquals(0, account.getTypeId());
+        assertEquals(0, account.getCategoryId());
+        assertNull(account.getType());
+        assertNull(account.getCategory());
+    }
+}
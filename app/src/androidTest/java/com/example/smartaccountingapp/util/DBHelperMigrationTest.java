@@ -0,0 +1,147 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数据库升级测试：手工构造旧版本数据库，再用 DBHelper 打开触发 onUpgrade。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperMigrationTest {
+    private static final String TAG = "DBMigrationTest";
+    private static final String MIGRATION_DB = "AccountDB_migration";
+    private static final int ROWS = 200_000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(MIGRATION_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(MIGRATION_DB);
+    }
+
+    /**
+     * V3 (REAL 元) -> 当前版本 (INTEGER 分)：逐行换算精确，整数求和与预期完全一致；
+     * 同时回填纪元日 day 列，类型/类别转换为字典 id。
+     */
+    @Test
+    public void upgradeFromV3_convertsAmountsToExactCents() {
+        long expectedCents = 0;
+        double legacyRealSum;
+
+        File dbFile = context.getDatabasePath(MIGRATION_DB);
+        dbFile.getParentFile().mkdirs();
+        SQLiteDatabase legacy = SQLiteDatabase.openOrCreateDatabase(dbFile, null);
+        try {
+            legacy.execSQL("CREATE TABLE accounts(_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " user_id TEXT NOT NULL DEFAULT 'default_user', type TEXT, category TEXT,"
+                    + " amount REAL, date TEXT, note TEXT)");
+            legacy.execSQL("CREATE INDEX idx_accounts_user_date ON accounts(user_id, date, _id)");
+            legacy.execSQL("CREATE INDEX idx_accounts_user_type_category_date ON accounts(user_id, type, category, date)");
+            legacy.execSQL("CREATE INDEX idx_accounts_user_amount ON accounts(user_id, amount)");
+
+            SQLiteStatement insert = legacy.compileStatement(
+                    "INSERT INTO accounts (user_id, type, category, amount, date, note) VALUES ('u', ?, '餐饮', ?, ?, 'seed')");
+            legacy.beginTransaction();
+            try {
+                for (int i = 0; i < ROWS; i++) {
+                    long cents = i % 100_000; // 0.00 ~ 999.99，覆盖 0.29 等无法用二进制精确表示的值
+                    expectedCents += cents;
+                    insert.bindString(1, i % 3 == 0 ? "收入" : "支出");
+                    insert.bindDouble(2, cents / 100.0);
+                    insert.bindString(3, String.format("20%02d-%02d-%02d", 14 + (i % 10), (i % 12) + 1, (i % 28) + 1));
+                    insert.executeInsert();
+                }
+                legacy.setTransactionSuccessful();
+            } finally {
+                legacy.endTransaction();
+            }
+            insert.close();
+
+            try (Cursor c = legacy.rawQuery("SELECT SUM(amount) FROM accounts", null)) {
+                c.moveToFirst();
+                legacyRealSum = c.getDouble(0);
+            }
+            legacy.setVersion(3);
+        } finally {
+            legacy.close();
+        }
+
+        DBHelper helper = new DBHelper(context, MIGRATION_DB);
+        long start = SystemClock.elapsedRealtime();
+        SQLiteDatabase db = helper.getWritableDatabase(); // 触发 onUpgrade
+        long migrationMs = SystemClock.elapsedRealtime() - start;
+
+        try (Cursor c = db.rawQuery("SELECT COUNT(*), SUM(" + DBHelper.COLUMN_AMOUNT + "), typeof(SUM(" + DBHelper.COLUMN_AMOUNT + "))"
+                + " FROM " + DBHelper.TABLE_ACCOUNT, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(ROWS, c.getLong(0));
+            assertEquals(expectedCents, c.getLong(1));
+            assertEquals("integer", c.getString(2));
+        }
+        // 抽查单行换算：0.29 元 -> 29 分
+        try (Cursor c = db.rawQuery("SELECT " + DBHelper.COLUMN_AMOUNT + " FROM " + DBHelper.TABLE_ACCOUNT
+                + " WHERE " + DBHelper.COLUMN_ID + " = 30", null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(29, c.getLong(0));
+        }
+        // V7：类型/类别换成字典 id
+        try (Cursor c = db.rawQuery("SELECT SUM(" + DBHelper.COLUMN_TYPE_ID + " = " + DBHelper.TYPE_INCOME + "),"
+                + " SUM(" + DBHelper.COLUMN_TYPE_ID + " = " + DBHelper.TYPE_EXPENSE + "),"
+                + " SUM(" + DBHelper.COLUMN_CATEGORY_ID + " = " + DBHelper.CATEGORY_FOOD + ")"
+                + " FROM " + DBHelper.TABLE_ACCOUNT, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals((ROWS + 2) / 3, c.getLong(0));
+            assertEquals(ROWS - (ROWS + 2) / 3, c.getLong(1));
+            assertEquals(ROWS, c.getLong(2));
+        }
+        // V5：day 列由 SQL 回填，与 DateUtil 的换算逐行一致
+        try (Cursor c = db.rawQuery("SELECT " + DBHelper.COLUMN_DATE + ", " + DBHelper.COLUMN_DAY
+                + " FROM " + DBHelper.TABLE_ACCOUNT + " WHERE " + DBHelper.COLUMN_ID + " % 997 = 0", null)) {
+            assertTrue(c.moveToFirst());
+            do {
+                assertEquals(c.getString(0), DateUtil.parseEpochDay(c.getString(0)), c.getLong(1));
+            } while (c.moveToNext());
+        }
+        // 索引在新表上重建，旧的按 date 索引已删除
+        try (Cursor c = db.rawQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name IN (?, ?, ?)",
+                new String[]{DBHelper.INDEX_USER_DAY, DBHelper.INDEX_USER_TYPE_CATEGORY_DAY, DBHelper.INDEX_USER_AMOUNT})) {
+            assertTrue(c.moveToFirst());
+            assertEquals(3, c.getInt(0));
+        }
+        try (Cursor c = db.rawQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name LIKE '%_date'", null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(0, c.getInt(0));
+        }
+        // V9：变更日志在迁移之后创建，已有记录不写入日志
+        try (Cursor c = db.rawQuery("SELECT COUNT(*) FROM " + DBHelper.TABLE_ACCOUNT_CHANGES, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(0, c.getInt(0));
+        }
+        helper.close();
+
+        Log.i(TAG, String.format("migrated %d rows in %d ms; REAL sum %.6f vs exact %s",
+                ROWS, migrationMs, legacyRealSum, MoneyUtil.format(expectedCents)));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 检查主要查询的 EXPLAIN QUERY PLAN：必须走索引 (SEARCH)，不能全表扫描；
+ * 列表查询的排序必须由索引顺序满足，不能出现 TEMP B-TREE。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperQueryPlanTest {
+
+    private DBHelper dbHelper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+        db = dbHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void filteredList_dateRange_usesUserDayIndexWithoutSort() {
+        AccountQuery query = new AccountQuery.Builder("u").dateRange("2024-01-01", "2024-12-31").build();
+        List<String> plan = explain(query, AccountQuery.Select.LIST);
+        assertSearchesAccounts(plan, DBHelper.INDEX_USER_DAY);
+        assertNoTempBTree(plan);
+    }
+
+    @Test
+    public void filteredList_typeCategoryDate_usesTypeCategoryIndexWithoutSort() {
+        AccountQuery query = new AccountQuery.Builder("u").type("支出").categories("餐饮")
+                .dateRange("2024-01-01", "2024-12-31").build();
+        List<String> plan = explain(query, AccountQuery.Select.LIST);
+        assertSearchesAccounts(plan, DBHelper.INDEX_USER_TYPE_CATEGORY_DAY);
+        assertNoTempBTree(plan);
+    }
+
+    @Test
+    public void filteredList_multipleCategories_neverScansTable() {
+        // 多个类别 (IN) 时由查询优化器在 (类型, 类别) 与日期索引之间选择，两者都不是全表扫描
+        AccountQuery query = new AccountQuery.Builder("u").type("支出").categories("餐饮", "交通", "购物")
+                .dateRange("2024-01-01", "2024-12-31").build();
+        assertSearchesAccounts(explain(query, AccountQuery.Select.LIST), null);
+    }
+
+    @Test
+    public void filteredList_amountSort_usesAmountIndexWithoutSort() {
+        DBHelper.SortOrder[] orders = {DBHelper.SortOrder.AMOUNT_DESC, DBHelper.SortOrder.AMOUNT_ASC};
+        for (DBHelper.SortOrder order : orders) {
+            List<String> plan = explain(new AccountQuery.Builder("u").sortBy(order).build(), AccountQuery.Select.LIST);
+            assertSearchesAccounts(plan, DBHelper.INDEX_USER_AMOUNT);
+            assertNoTempBTree(plan);
+        }
+    }
+
+    @Test
+    public void filteredList_amountSortWithDateRange_neverScansTable() {
+        AccountQuery query = new AccountQuery.Builder("u").dateRange("2024-01-01", "2024-12-31")
+                .sortBy(DBHelper.SortOrder.AMOUNT_DESC).build();
+        assertSearchesAccounts(explain(query, AccountQuery.Select.LIST), null);
+    }
+
+    @Test
+    public void firstPage_readsIndexWithoutSort() {
+        // 列表的第一页：日期排序带日期范围、金额排序不带日期范围时，按索引顺序读到 LIMIT 即停止，不排序
+        Object[][] cases = {
+                {DBHelper.SortOrder.DATE_DESC, "2024-01-01", "2024-12-31", DBHelper.INDEX_USER_DAY},
+                {DBHelper.SortOrder.DATE_ASC, "2024-01-01", "2024-12-31", DBHelper.INDEX_USER_DAY},
+                {DBHelper.SortOrder.AMOUNT_DESC, null, null, DBHelper.INDEX_USER_AMOUNT},
+                {DBHelper.SortOrder.AMOUNT_ASC, null, null, DBHelper.INDEX_USER_AMOUNT},
+        };
+        for (Object[] c : cases) {
+            AccountQuery query = new AccountQuery.Builder("u").dateRange((String) c[1], (String) c[2])
+                    .sortBy((DBHelper.SortOrder) c[0]).build();
+            List<String> plan = explain(query.sql(AccountQuery.Select.PAGE_FIRST),
+                    Arrays.asList(dbHelper.queryArgs(query, null, 50)));
+            assertSearchesAccounts(plan, (String) c[3]);
+            assertNoTempBTree(plan);
+        }
+    }
+
+    @Test
+    public void pageQuery_seeksIntoIndexWithoutSort() {
+        Account after = new Account(42, "u", "支出", "餐饮", 1250, "2024-06-01", "");
+        Object[][] cases = {
+                {DBHelper.SortOrder.DATE_DESC, DBHelper.INDEX_USER_DAY},
+                {DBHelper.SortOrder.DATE_ASC, DBHelper.INDEX_USER_DAY},
+                {DBHelper.SortOrder.AMOUNT_DESC, DBHelper.INDEX_USER_AMOUNT},
+                {DBHelper.SortOrder.AMOUNT_ASC, DBHelper.INDEX_USER_AMOUNT},
+        };
+        for (Object[] c : cases) {
+            AccountQuery query = new AccountQuery.Builder("u").sortBy((DBHelper.SortOrder) c[0]).build();
+            List<String> plan = explain(query.sql(AccountQuery.Select.PAGE_AFTER), Arrays.asList(dbHelper.queryArgs(query, after, 50)));
+            assertSearchesAccounts(plan, (String) c[1]);
+            assertNoTempBTree(plan);
+        }
+    }
+
+    @Test
+    public void summary_readsRollupByPrimaryKeyWithoutSort() {
+        List<String> plan = explain(DBHelper.buildSummaryQuery(), rangeArgs());
+        assertSearches(plan, DBHelper.TABLE_DAILY_ROLLUP, "PRIMARY KEY");
+        assertNoTempBTree(plan);
+    }
+
+    @Test
+    public void pieChart_readsRollupByPrimaryKey() {
+        // ORDER BY total_amount 作用于聚合结果，排序聚合后的少量分组是必要的
+        assertSearches(explain(DBHelper.buildPieChartQuery(), rangeArgs()), DBHelper.TABLE_DAILY_ROLLUP, "PRIMARY KEY");
+    }
+
+    @Test
+    public void trend_groupsByDayInPrimaryKeyOrder() {
+        // 按整数 day 分组与汇总表主键顺序一致，不需要临时 B-tree
+        List<String> plan = explain(DBHelper.buildTrendQuery(), rangeArgs());
+        assertSearches(plan, DBHelper.TABLE_DAILY_ROLLUP, "PRIMARY KEY");
+        assertNoTempBTree(plan);
+    }
+
+    // --- 辅助方法 ---
+
+    private List<String> rangeArgs() {
+        List<String> args = new ArrayList<>();
+        args.add("u");
+        args.add(String.valueOf(DateUtil.parseEpochDay("2024-01-01")));
+        args.add(String.valueOf(DateUtil.parseEpochDay("2024-12-31")));
+        return args;
+    }
+
+    private List<String> explain(AccountQuery query, AccountQuery.Select select) {
+        return explain(query.sql(select), Arrays.asList(dbHelper.queryArgs(query, null, 0)));
+    }
+
+    private List<String> explain(String sql, List<String> args) {
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args.toArray(new String[0]))) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+        return details;
+    }
+
+    private void assertSearchesAccounts(List<String> plan, String expectedIndex) {
+        assertSearches(plan, DBHelper.TABLE_ACCOUNT, expectedIndex);
+    }
+
+    /**
+     * 访问 table 的步骤必须是 SEARCH (带索引约束)；expectedIndex 不为 null 时同时校验索引名。
+     * 兼容新旧两种输出格式："SEARCH TABLE accounts ..." 与 "SEARCH accounts ..."。
+     */
+    private void assertSearches(List<String> plan, String table, String expectedIndex) {
+        boolean found = false;
+        for (String detail : plan) {
+            if (!detail.matches("^(SCAN|SEARCH)( TABLE)? " + table + "\\b.*")) continue;
+            found = true;
+            assertTrue("出现全表扫描: " + plan, detail.startsWith("SEARCH"));
+            if (expectedIndex != null) {
+                assertTrue("未使用索引 " + expectedIndex + ": " + plan, detail.contains(expectedIndex));
+            }
+        }
+        assertTrue("查询计划中没有 " + table + " 表: " + plan, found);
+    }
+
+    private void assertNoTempBTree(List<String> plan) {
+        for (String detail : plan) {
+            assertFalse("出现临时 B-tree 排序: " + plan, detail.contains("TEMP B-TREE"));
+        }
+    }
+}
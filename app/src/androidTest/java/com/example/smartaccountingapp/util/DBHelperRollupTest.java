@@ -0,0 +1,138 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按日汇总表：任意增删改之后都必须与原始记录的聚合结果完全一致。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperRollupTest {
+    private static final String[] TYPES = {"收入", "支出"};
+    private static final String[] CATEGORIES = {"餐饮", "购物", "交通", null};
+
+    private DBHelper dbHelper;
+    private final Random random = new Random(7);
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void triggersKeepRollupExact() {
+        List<Account> inserted = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Account account = randomAccount(i % 2 == 0 ? "a" : "b");
+            account.setId((int) dbHelper.addAccount(account));
+            inserted.add(account);
+        }
+        List<Account> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(randomAccount("a"));
+        }
+        dbHelper.addAccounts(batch, 100);
+        assertEquals(0, dbHelper.checkRollupConsistency());
+
+        // 修改金额、日期、类型和类别 (可能移动到另一个汇总行)，以及只改备注
+        for (int i = 0; i < 200; i++) {
+            Account account = inserted.get(random.nextInt(inserted.size()));
+            Account changed = randomAccount(account.getUserId());
+            changed.setId(account.getId());
+            dbHelper.updateAccount(changed);
+        }
+        assertEquals(0, dbHelper.checkRollupConsistency());
+
+        for (int i = 0; i < inserted.size(); i += 3) {
+            Account account = inserted.get(i);
+            dbHelper.deleteAccount(account.getId(), account.getUserId());
+        }
+        assertEquals(0, dbHelper.checkRollupConsistency());
+
+        dbHelper.replaceAllAccounts("b", batch);
+        dbHelper.deleteAllAccounts("a");
+        assertEquals(0, dbHelper.checkRollupConsistency());
+        // 条数归零的汇总行已删除
+        assertEquals(0, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), DBHelper.TABLE_DAILY_ROLLUP,
+                DBHelper.COLUMN_USER_ID + " = ?", new String[]{"a"}));
+    }
+
+    @Test
+    public void summaryFromRollupMatchesRawRows() {
+        List<Account> batch = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            batch.add(randomAccount("u"));
+        }
+        dbHelper.addAccounts(batch);
+
+        long expectedIncome = 0;
+        long expectedExpense = 0;
+        long startDay = DateUtil.parseEpochDay("2024-03-01");
+        long endDay = DateUtil.parseEpochDay("2024-05-31");
+        for (Account account : batch) {
+            long day = DateUtil.parseEpochDay(account.getDate());
+            if (day < startDay || day > endDay) continue;
+            if ("收入".equals(account.getType())) {
+                expectedIncome += account.getAmountCents();
+            } else {
+                expectedExpense += account.getAmountCents();
+            }
+        }
+
+        try (Cursor cursor = dbHelper.getAccountSummary("u", "2024-03-01", "2024-05-31")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(expectedIncome, cursor.getLong(cursor.getColumnIndexOrThrow("total_income")));
+            assertEquals(expectedExpense, cursor.getLong(cursor.getColumnIndexOrThrow("total_expense")));
+        }
+    }
+
+    @Test
+    public void verifyRollup_detectsAndRepairsDrift() {
+        List<Account> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            batch.add(randomAccount("u"));
+        }
+        dbHelper.addAccounts(batch);
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.execSQL("UPDATE " + DBHelper.TABLE_DAILY_ROLLUP + " SET " + DBHelper.COLUMN_TOTAL_CENTS + " = "
+                + DBHelper.COLUMN_TOTAL_CENTS + " + 1 WHERE " + DBHelper.COLUMN_TYPE_ID + " = " + DBHelper.TYPE_INCOME);
+        db.execSQL("INSERT INTO " + DBHelper.TABLE_DAILY_ROLLUP + " VALUES ('ghost', 1, "
+                + DBHelper.TYPE_EXPENSE + ", " + DBHelper.CATEGORY_FOOD + ", 100, 1)");
+
+        assertTrue(dbHelper.checkRollupConsistency() > 0);
+        assertTrue(dbHelper.verifyRollup() > 0);
+        assertEquals(0, dbHelper.checkRollupConsistency());
+    }
+
+    // 2024 年内随机日期、金额和分类
+    private Account randomAccount(String userId) {
+        long day = DateUtil.parseEpochDay("2024-01-01") + random.nextInt(366);
+        return new Account(0, userId, TYPES[random.nextInt(TYPES.length)], CATEGORIES[random.nextInt(CATEGORIES.length)],
+                random.nextInt(100_000), DateUtil.formatEpochDay(day), "note" + random.nextInt(10));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 全文检索：触发器保持索引与 accounts 同步，按子串匹配 (中文不需要空格分词)，结果按相关度排序且只返回当前用户的记录。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DBHelperSearchTest {
+    private static final String TAG = "DBSearchTest";
+
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void triggersKeepIndexInSync() {
+        Account lunch = add("u", "餐饮", "午饭吃牛肉面");
+        add("u", "交通", "地铁卡充值");
+
+        assertIds(dbHelper.searchAccounts("u", "牛肉", 10), lunch.getId());
+        assertIds(dbHelper.searchAccounts("u", "地铁", 10), lunch.getId() + 1);
+
+        // 修改备注和类别后，旧内容不再命中
+        lunch.setNote("晚饭");
+        lunch.setCategory("购物");
+        dbHelper.updateAccount(lunch);
+        assertTrue(dbHelper.searchAccounts("u", "牛肉", 10).isEmpty());
+        assertIds(dbHelper.searchAccounts("u", "晚饭", 10), lunch.getId());
+        assertIds(dbHelper.searchAccounts("u", "购物", 10), lunch.getId());
+
+        dbHelper.deleteAccount(lunch.getId(), "u");
+        assertTrue(dbHelper.searchAccounts("u", "晚饭", 10).isEmpty());
+    }
+
+    @Test
+    public void matchesInsideChineseText() {
+        Account commute = add("u", "交通", "坐地铁上班");
+        Account card = add("u", "交通", "地铁卡充值");
+        Account lunch = add("u", "餐饮", "午饭吃牛肉面");
+
+        // 得分相同时新记录在前
+        assertIds(dbHelper.searchAccounts("u", "地铁", 10), card.getId(), commute.getId());
+        assertIds(dbHelper.searchAccounts("u", "牛肉", 10), lunch.getId());
+        assertIds(dbHelper.searchAccounts("u", "肉面", 10), lunch.getId());
+        assertIds(dbHelper.searchAccounts("u", "铁上班", 10), commute.getId());
+        assertIds(dbHelper.searchAccounts("u", "班", 10), commute.getId()); // 单字，包括末尾的字
+        assertIds(dbHelper.searchAccounts("u", "地铁 充值", 10), card.getId());
+        assertIds(dbHelper.searchAccounts("u", "饮", 10), lunch.getId()); // 类别名称同样按子串匹配
+        // 字相同但不相邻不算命中
+        assertTrue(dbHelper.searchAccounts("u", "地上", 10).isEmpty());
+        assertTrue(dbHelper.searchAccounts("u", "牛面", 10).isEmpty());
+    }
+
+    @Test
+    public void prefixAndKeywordsAreCombined() {
+        Account bob = add("u", "餐饮", "Lunch with Bob");
+        add("u", "餐饮", "Lunch alone");
+        add("other", "餐饮", "Lunch with Bob"); // 其他用户的记录不可见
+
+        assertEquals(2, dbHelper.searchAccounts("u", "lun", 10).size());
+        assertIds(dbHelper.searchAccounts("u", "LUNCH bo", 10), bob.getId());
+        assertIds(dbHelper.searchAccounts("u", "ith", 10), bob.getId()); // 英文同样按子串匹配
+        // 运算符和引号按普通文本处理，不会导致语法错误
+        assertTrue(dbHelper.searchAccounts("u", "\"OR NEAR -*", 10).isEmpty());
+        assertTrue(dbHelper.searchAccounts("u", "   ", 10).isEmpty());
+    }
+
+    @Test
+    public void resultsAreRankedAndLimited() {
+        // 备注列权重 1.0，类别列 0.5；每列得分 = 本行命中数 / 全部命中数
+        Account categoryOnly1 = add("u", "学习", "教材");
+        Account categoryOnly2 = add("u", "学习", "文具");
+        Account noteOnce = add("u", "其他", "学习 用品");
+        Account noteTwice = add("u", "其他", "学习 学习 资料");
+
+        // 得分相同时新记录在前
+        List<Account> results = dbHelper.searchAccounts("u", "学习", 10);
+        assertIds(results, noteTwice.getId(), noteOnce.getId(), categoryOnly2.getId(), categoryOnly1.getId());
+        assertIds(dbHelper.searchAccounts("u", "学习", 2), noteTwice.getId(), noteOnce.getId());
+    }
+
+    /**
+     * 10 万条记录：FTS 检索与 LIKE '%..%' 全表扫描的耗时对比 (见 logcat)。
+     */
+    @Test
+    public void search_100kRows() {
+        List<Account> accounts = new ArrayList<>();
+        String[] words = {"午饭", "晚饭", "地铁", "打车", "超市", "咖啡", "电影", "书店", "水果", "话费"};
+        for (int i = 0; i < 100_000; i++) {
+            String note = words[i % words.length] + words[(i / 10) % words.length] + "#" + i;
+            accounts.add(new Account(0, "u", "支出", "餐饮", 100 + i % 1000, "2024-01-01", note));
+        }
+        accounts.add(new Account(0, "u", "支出", "餐饮", 100, "2024-01-01", "稀有关键词"));
+        dbHelper.addAccounts(accounts);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        List<Account> results = dbHelper.searchAccounts("u", "关键", 50); // 词中间的子串
+        long ftsMicros = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+        assertEquals(1, results.size());
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        start = SystemClock.elapsedRealtimeNanos();
+        long likeCount = android.database.DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + DBHelper.TABLE_ACCOUNT
+                + " WHERE " + DBHelper.COLUMN_USER_ID + " = ? AND " + DBHelper.COLUMN_NOTE + " LIKE ?", new String[]{"u", "%关键%"});
+        long likeMicros = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+        assertEquals(1, likeCount);
+
+        start = SystemClock.elapsedRealtimeNanos();
+        List<Account> common = dbHelper.searchAccounts("u", "午饭", 50);
+        long commonMicros = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+        assertEquals(50, common.size());
+
+        Log.i(TAG, String.format("100k rows: FTS rare term %d us, LIKE scan %d us, FTS common term (top 50 of ~19k) %d us",
+                ftsMicros, likeMicros, commonMicros));
+    }
+
+    private Account add(String userId, String category, String note) {
+        Account account = new Account(0, userId, "支出", category, 1000, "2024-06-01", note);
+        account.setId((int) dbHelper.addAccount(account));
+        return account;
+    }
+
+    private static void assertIds(List<Account> results, int... expectedIds) {
+        assertEquals(expectedIds.length, results.size());
+        for (int i = 0; i < expectedIds.length; i++) {
+            assertEquals(expectedIds[i], results.get(i).getId());
+        }
+    }
+}
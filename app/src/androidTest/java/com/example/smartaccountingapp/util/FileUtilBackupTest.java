@@ -0,0 +1,338 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 备份文件的流式导出：格式与 Gson 一致、分页完整、进度回调、取消时保留原备份；
+ * 流式导入：兼容旧备份、自动识别二进制和压缩备份、失败时整体回滚、提交前其他连接看不到导入中的数据。
+ */
+@RunWith(AndroidJUnit4.class)
+public class FileUtilBackupTest {
+    private static final String FILE = "accounts_backup_test.json";
+    private static final String FILE_DB = "AccountDB_backup_test";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteFile(FILE);
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteFile(FILE);
+        context.deleteDatabase(FILE_DB);
+    }
+
+    @Test
+    public void export_matchesGsonFormat() throws Exception {
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "餐饮", 1250, "2024-06-02", "午饭 \"加蛋\"\n"),
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-01", null),
+                new Account(0, "u", null, null, 5, "2024-06-03", "")));
+
+        assertEquals(3, FileUtil.exportAccounts(context, dbHelper, "u", FILE, null, null));
+
+        List<Account> expected = dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("u").sortBy(DBHelper.SortOrder.DATE_ASC).build());
+        assertEquals(new Gson().toJson(expected), FileUtil.readFromFile(context, FILE));
+    }
+
+    @Test
+    public void export_spansPagesAndReportsProgress() throws Exception {
+        final int rows = 2500;
+        List<Account> accounts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            // 同一天的记录跨越分页边界，依靠 _id 区分先后
+            accounts.add(new Account(0, "u", "支出", "餐饮", i, "2024-06-" + (10 + i / 1000), "n" + i));
+        }
+        dbHelper.addAccounts(accounts);
+        dbHelper.addAccount(new Account(0, "other", "支出", "餐饮", 1, "2024-06-01", "别人的记录"));
+
+        List<long[]> progress = new ArrayList<>();
+        long exported = FileUtil.exportAccounts(context, dbHelper, "u", FILE,
+                (done, total) -> progress.add(new long[]{done, total}), null);
+
+        assertEquals(rows, exported);
+        List<Account> read = FileUtil.convertJsonToAccounts(FileUtil.readFromFile(context, FILE));
+        assertEquals(rows, read.size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i, read.get(i).getAmountCents());
+        }
+        long last = 0;
+        for (long[] p : progress) {
+            assertTrue(p[0] >= last);
+            assertEquals(rows, p[1]);
+            last = p[0];
+        }
+        assertEquals(rows, last);
+    }
+
+    @Test
+    public void cancelledExport_keepsPreviousBackup() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 100, "2024-06-01", "旧"));
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, null, null);
+        String previous = FileUtil.readFromFile(context, FILE);
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            accounts.add(new Account(0, "u", "支出", "餐饮", i, "2024-07-01", "新"));
+        }
+        dbHelper.addAccounts(accounts);
+
+        CancellationSignal signal = new CancellationSignal();
+        try {
+            // 写完第一页后取消
+            FileUtil.exportAccounts(context, dbHelper, "u", FILE, (done, total) -> signal.cancel(), signal);
+            fail("取消后应抛出 OperationCanceledException");
+        } catch (OperationCanceledException expected) {
+        }
+
+        assertEquals(previous, FileUtil.readFromFile(context, FILE));
+        assertFalse(new File(context.getFilesDir(), FILE + ".tmp").exists());
+    }
+
+    @Test
+    public void import_roundTripsExport() throws Exception {
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "宠物", 1250, "2024-06-02", "猫粮"),
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-01", null)));
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, null, null);
+        dbHelper.addAccount(new Account(0, "v", "支出", "餐饮", 1, "2024-01-01", "将被覆盖"));
+
+        List<long[]> progress = new ArrayList<>();
+        assertEquals(2, FileUtil.importAccounts(context, dbHelper, "v", FILE,
+                (done, total) -> progress.add(new long[]{done, total}), null));
+
+        List<Account> imported = dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("v").sortBy(DBHelper.SortOrder.DATE_ASC).build());
+        assertEquals(2, imported.size());
+        assertEquals("工资", imported.get(0).getCategory());
+        assertNull(imported.get(0).getNote());
+        assertEquals("宠物", imported.get(1).getCategory());
+        assertEquals(1250, imported.get(1).getAmountCents());
+        assertEquals("v", imported.get(1).getUserId());
+        // 最后一次进度为读完整个文件
+        long[] last = progress.get(progress.size() - 1);
+        assertEquals(last[1], last[0]);
+    }
+
+    @Test
+    public void import_detectsBinaryBackup() throws Exception {
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "宠物", 1250, "2024-06-02", "猫粮 😀"),
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-01", null)));
+        assertEquals(2, FileUtil.exportAccounts(context, dbHelper, "u", FILE, FileUtil.BackupFormat.BINARY, null, null));
+        assertEquals(FileUtil.BackupFormat.BINARY, FileUtil.detectFormat(context.getFileStreamPath(FILE)));
+
+        List<long[]> progress = new ArrayList<>();
+        assertEquals(2, FileUtil.importAccounts(context, dbHelper, "v", FILE,
+                (done, total) -> progress.add(new long[]{done, total}), null));
+
+        List<Account> imported = dbHelper.getFilteredAccounts(
+                new AccountQuery.Builder("v").sortBy(DBHelper.SortOrder.DATE_ASC).build());
+        assertEquals(2, imported.size());
+        assertEquals("工资", imported.get(0).getCategory());
+        assertNull(imported.get(0).getNote());
+        assertEquals("猫粮 😀", imported.get(1).getNote());
+        assertEquals(1250, imported.get(1).getAmountCents());
+        assertEquals("2024-06-02", imported.get(1).getDate());
+        long[] last = progress.get(progress.size() - 1);
+        assertEquals(last[1], last[0]);
+    }
+
+    @Test
+    public void import_detectsCompressedBackup() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            accounts.add(new Account(0, "u", "支出", "餐饮", i, "2024-06-02", "午饭 " + i));
+        }
+        dbHelper.addAccounts(accounts);
+        File file = context.getFileStreamPath(FILE);
+
+        for (FileUtil.BackupFormat format : FileUtil.BackupFormat.values()) {
+            FileUtil.exportAccounts(context, dbHelper, "u", FILE, format, FileUtil.COMPRESSION_NONE, null, null);
+            long plainSize = file.length();
+            assertEquals(3000, FileUtil.exportAccounts(context, dbHelper, "u", FILE, format,
+                    FileUtil.COMPRESSION_DEFAULT, null, null));
+            assertTrue(FileUtil.isCompressed(file));
+            assertEquals(format, FileUtil.detectFormat(file));
+            assertTrue(format + " 压缩后应更小", file.length() < plainSize);
+
+            List<long[]> progress = new ArrayList<>();
+            assertEquals(3000, FileUtil.importAccounts(context, dbHelper, "v" + format, FILE,
+                    (done, total) -> progress.add(new long[]{done, total}), null));
+            List<Account> imported = dbHelper.getFilteredAccounts(AccountQuery.allOf("v" + format));
+            assertEquals(3000, imported.size());
+            assertEquals("餐饮", imported.get(0).getCategory());
+            // 进度按压缩文件的字节数计算，读完时等于文件大小
+            long[] last = progress.get(progress.size() - 1);
+            assertEquals(file.length(), last[1]);
+            assertEquals(last[1], last[0]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void export_rejectsInvalidCompressionLevel() throws Exception {
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, 10, null, null);
+    }
+
+    @Test
+    public void import_readsLegacyGsonBackup() throws Exception {
+        // 旧版本备份：Gson 写出、金额为浮点元
+        String legacy = "[{\"id\":7,\"userId\":\"old\",\"type\":\"支出\",\"category\":\"餐饮\",\"amount\":0.29,"
+                + "\"date\":\"2023-01-01\",\"note\":\"早饭\"}]";
+        assertTrue(FileUtil.saveToFile(context, FILE, legacy));
+
+        assertEquals(1, FileUtil.importAccounts(context, dbHelper, "u", FILE, null, null));
+        Account account = dbHelper.getFilteredAccounts(AccountQuery.allOf("u")).get(0);
+        assertEquals(29, account.getAmountCents());
+        assertEquals("早饭", account.getNote());
+    }
+
+    @Test
+    public void failedImport_keepsExistingDataAndLookups() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 100, "2024-06-01", "原数据"));
+
+        // 前 1200 条 (两批以上) 有效，之后文件被截断
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1200; i++) {
+            json.append("{\"type\":\"支出\",\"category\":\"新类别\",\"amount\":1,\"date\":\"2024-06-02\"},");
+        }
+        json.append("{\"type\":");
+        assertTrue(FileUtil.saveToFile(context, FILE, json.toString()));
+
+        try {
+            FileUtil.importAccounts(context, dbHelper, "u", FILE, null, null);
+            fail("格式错误应抛出 IOException");
+        } catch (IOException expected) {
+        }
+
+        List<Account> remaining = dbHelper.getFilteredAccounts(AccountQuery.allOf("u"));
+        assertEquals(1, remaining.size());
+        assertEquals("原数据", remaining.get(0).getNote());
+
+        // 回滚后字典缓存中不应留下不存在的 id：再次使用该名称时重新登记
+        dbHelper.addAccount(new Account(0, "u", "支出", "新类别", 200, "2024-06-03", ""));
+        assertEquals(1, dbHelper.getFilteredAccounts(new AccountQuery.Builder("u").categories("新类别").build()).size());
+    }
+
+    @Test
+    public void failedImport_doesNotLeakNewNamesToOtherThreads() throws Exception {
+        dbHelper.close();
+        context.deleteDatabase(FILE_DB);
+        dbHelper = new DBHelper(context, FILE_DB);
+
+        Thread[] writer = new Thread[1];
+        AccountSource source = new AccountSource() {
+            private int read;
+
+            @Override
+            public Account next() throws IOException {
+                if (read == DBHelper.DEFAULT_BATCH_SIZE + 1) {
+                    // 第一批 (含新类别) 已写入但未提交：另一个线程此时使用同一名称，等待写锁
+                    writer[0] = new Thread(() -> dbHelper.addAccount(
+                            new Account(0, "u", "支出", "导入中类别", 1, "2024-06-01", "并发写入")));
+                    writer[0].start();
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    throw new IOException("读取失败");
+                }
+                read++;
+                return new Account(0, null, "支出", "导入中类别", read, "2024-06-02", null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            dbHelper.replaceAllAccounts("u", source, DBHelper.DEFAULT_BATCH_SIZE, null);
+            fail("读取失败应抛出 IOException");
+        } catch (IOException expected) {
+        }
+        writer[0].join();
+
+        // 并发写入的记录引用的是回滚之后重新登记的类别，而不是已回滚的 id
+        List<Account> accounts = dbHelper.getFilteredAccounts(AccountQuery.allOf("u"));
+        assertEquals(1, accounts.size());
+        assertEquals("导入中类别", accounts.get(0).getCategory());
+    }
+
+    @Test
+    public void emptyBackup_doesNotClearData() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 100, "2024-06-01", ""));
+        assertTrue(FileUtil.saveToFile(context, FILE, "[]"));
+
+        assertEquals(0, FileUtil.importAccounts(context, dbHelper, "u", FILE, null, null));
+        assertEquals(1, dbHelper.getAccountCount("u"));
+    }
+
+    @Test
+    public void streamingImport_isInvisibleUntilCommit() throws Exception {
+        // 文件数据库 (WAL)：读连接与导入的写连接并行
+        dbHelper.close();
+        context.deleteDatabase(FILE_DB);
+        dbHelper = new DBHelper(context, FILE_DB);
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 100, "2024-06-01", ""));
+
+        final int rows = DBHelper.DEFAULT_BATCH_SIZE * 3;
+        long[] seenDuringImport = new long[1];
+        AccountSource source = new AccountSource() {
+            private int read;
+
+            @Override
+            public Account next() throws IOException {
+                if (read == rows) return null;
+                if (read == DBHelper.DEFAULT_BATCH_SIZE * 2) {
+                    // 已插入两批：另一个线程读到的仍是导入前的数据
+                    Thread reader = new Thread(() -> seenDuringImport[0] = dbHelper.getAccountCount("u"));
+                    reader.start();
+                    try {
+                        reader.join();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+                read++;
+                return new Account(0, null, "收入", "其他", read, "2024-07-01", null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertEquals(rows, dbHelper.replaceAllAccounts("u", source, DBHelper.DEFAULT_BATCH_SIZE, null));
+        assertEquals(1, seenDuringImport[0]);
+        assertEquals(rows, dbHelper.getAccountCount("u"));
+    }
+}
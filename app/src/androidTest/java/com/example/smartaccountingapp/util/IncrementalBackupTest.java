@@ -0,0 +1,209 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 变更日志与增量备份：触发器记录增删改、增量只写出变更、恢复时按顺序重放完整备份和各个增量。
+ */
+@RunWith(AndroidJUnit4.class)
+public class IncrementalBackupTest {
+    private static final String FILE = "accounts_backup_incremental_test.json";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteBackupFiles();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        deleteBackupFiles();
+    }
+
+    @Test
+    public void changeLog_keepsLatestChangePerAccount() {
+        long start = dbHelper.getChangeWatermark("u");
+        long a = dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 100, "2024-01-01", "a"));
+        long b = dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 200, "2024-01-02", "b"));
+        dbHelper.addAccount(new Account(0, "other", "支出", "餐饮", 300, "2024-01-03", "其他用户"));
+        long afterInsert = dbHelper.getChangeWatermark("u");
+        assertTrue(afterInsert > start);
+
+        Account updated = new Account((int) a, "u", "收入", "工资", 150, "2024-01-01", "a2");
+        assertEquals(1, dbHelper.updateAccount(updated));
+        dbHelper.deleteAccount((int) b, "u");
+        assertTrue(dbHelper.getChangeWatermark("u") > afterInsert);
+
+        // 插入之后：a 被修改、b 被删除
+        List<Account> changed = readChanged("u", afterInsert);
+        assertEquals(1, changed.size());
+        assertEquals("a2", changed.get(0).getNote());
+        assertArrayEquals(new long[]{b}, dbHelper.getDeletedAccountIds("u", afterInsert));
+        // 从头开始：每条记录只出现一次
+        assertEquals(1, readChanged("u", start).size());
+        assertEquals(1, readChanged("other", 0).size());
+
+        // 清理后日志为空，水位线不回退到已清理的 seq 之下
+        long watermark = dbHelper.getChangeWatermark("u");
+        assertEquals(2, dbHelper.pruneChangeLog("u", watermark));
+        assertEquals(0, readChanged("u", 0).size());
+        assertEquals(0, dbHelper.getDeletedAccountIds("u", 0).length);
+        dbHelper.addAccount(new Account(0, "u", "支出", "交通", 5, "2024-01-05", "c"));
+        assertTrue(dbHelper.getChangeWatermark("u") > watermark);
+    }
+
+    @Test
+    public void restore_replaysBaseAndIncrementsInOrder() throws Exception {
+        List<Account> seed = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            seed.add(new Account(0, "u", "支出", "餐饮", i, "2024-01-01", "seed " + i));
+        }
+        dbHelper.addAccounts(seed);
+        assertEquals(2500, FileUtil.exportBaseBackup(context, dbHelper, "u", FILE,
+                FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null));
+        assertTrue(FileUtil.canExportIncrement(context, FILE));
+
+        // 第一个增量：新增、修改、删除
+        List<Account> current = dbHelper.getFilteredAccounts(AccountQuery.allOf("u"));
+        dbHelper.addAccount(new Account(0, "u", "收入", "工资", 500000, "2024-02-01", "新增"));
+        Account edited = current.get(0);
+        edited.setNote("修改后");
+        edited.setAmountCents(999);
+        dbHelper.updateAccount(edited);
+        dbHelper.deleteAccount(current.get(1).getId(), "u");
+        assertEquals(3, FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE,
+                FileUtil.BackupFormat.BINARY, FileUtil.COMPRESSION_FASTEST, null, null));
+        // 第二个增量：再次修改同一条记录，删除第一个增量中新增的记录
+        edited.setNote("再次修改");
+        dbHelper.updateAccount(edited);
+        Account added = findByNote(dbHelper.getFilteredAccounts(AccountQuery.allOf("u")), "新增");
+        dbHelper.deleteAccount(added.getId(), "u");
+        assertEquals(2, FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE,
+                FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null));
+        // 没有变更时不写文件
+        assertEquals(0, FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE,
+                FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null));
+        assertFalse(context.getFileStreamPath(FILE + ".inc3").exists());
+
+        List<String> expected = contents(dbHelper.getFilteredAccounts(AccountQuery.allOf("u")));
+        // 恢复到另一个空的数据库
+        DBHelper target = new DBHelper(context, null);
+        try {
+            assertEquals(expected.size(), FileUtil.restoreAccounts(context, target, "u", FILE, null, null));
+            assertEquals(expected, contents(target.getFilteredAccounts(AccountQuery.allOf("u"))));
+        } finally {
+            target.close();
+        }
+        // 恢复过的备份不再追加增量
+        assertFalse(FileUtil.canExportIncrement(context, FILE));
+    }
+
+    @Test
+    public void increment_writesOnlyChangedRows() throws Exception {
+        List<Account> seed = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            seed.add(new Account(0, "u", "支出", "餐饮", i, "2024-01-01", "seed " + i));
+        }
+        dbHelper.addAccounts(seed);
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        long baseSize = context.getFileStreamPath(FILE).length();
+
+        dbHelper.addAccount(new Account(0, "u", "支出", "交通", 300, "2024-03-01", "地铁"));
+        List<long[]> progress = new ArrayList<>();
+        assertEquals(1, FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON,
+                FileUtil.COMPRESSION_NONE, (done, total) -> progress.add(new long[]{done, total}), null));
+        File increment = context.getFileStreamPath(FILE + ".inc1");
+        assertTrue(increment.length() * 1000 < baseSize);
+        assertEquals(1, progress.get(progress.size() - 1)[0]);
+    }
+
+    @Test
+    public void newBase_discardsOldIncrements() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1, "2024-01-01", "a"));
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 2, "2024-01-02", "b"));
+        FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        assertTrue(context.getFileStreamPath(FILE + ".inc1").exists());
+
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        assertFalse(context.getFileStreamPath(FILE + ".inc1").exists());
+        assertTrue(FileUtil.readManifest(context, FILE).increments.isEmpty());
+    }
+
+    @Test
+    public void replacedBase_ignoresStaleManifest() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1, "2024-01-01", "a"));
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 2, "2024-01-02", "b"));
+        FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+
+        // 完整备份被普通导出替换 (清单未更新)：旧增量不能再叠加到新文件上
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, null, null);
+        assertNull(FileUtil.readManifest(context, FILE));
+        assertFalse(FileUtil.canExportIncrement(context, FILE));
+        DBHelper target = new DBHelper(context, null);
+        try {
+            assertEquals(2, FileUtil.restoreAccounts(context, target, "u", FILE, null, null));
+        } finally {
+            target.close();
+        }
+    }
+
+    private List<Account> readChanged(String userId, long afterSeq) {
+        List<Account> accounts = new ArrayList<>();
+        try (AccountCursor cursor = dbHelper.queryChangedAccountsPage(userId, afterSeq, 0, 100, null)) {
+            while (cursor.moveToNext()) {
+                accounts.add(cursor.getAccount());
+            }
+        }
+        return accounts;
+    }
+
+    private static Account findByNote(List<Account> accounts, String note) {
+        for (Account account : accounts) {
+            if (note.equals(account.getNote())) return account;
+        }
+        throw new AssertionError("找不到备注为 " + note + " 的记录");
+    }
+
+    // 恢复后 id 重新分配，按内容比较
+    private static List<String> contents(List<Account> accounts) {
+        List<String> contents = new ArrayList<>();
+        for (Account a : accounts) {
+            contents.add(Arrays.asList(a.getType(), a.getCategory(), a.getAmountCents(), a.getDate(), a.getNote()).toString());
+        }
+        Collections.sort(contents);
+        return contents;
+    }
+
+    private void deleteBackupFiles() {
+        context.deleteFile(FILE);
+        context.deleteFile(FILE + ".manifest");
+        for (int n = 1; n <= 3; n++) {
+            context.deleteFile(FILE + ".inc" + n);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.smartaccountingapp.util;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.model.MergeResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 合并导入：保留现有记录，重复记录跳过，只插入新记录；
+ * 备份来自本数据库时，本机修改过的记录作为冲突保留本机版本，其他来源的备份只按内容匹配。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MergeImportTest {
+    private static final String FILE = "accounts_backup_merge_test.json";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteBackupFiles();
+        dbHelper = new DBHelper(context, null); // 内存数据库
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        deleteBackupFiles();
+    }
+
+    @Test
+    public void merge_keepsLocalDataAndInsertsOnlyNewRecords() throws Exception {
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "餐饮", 1250, "2024-06-01", "午饭"),
+                new Account(0, "u", "支出", "餐饮", 1250, "2024-06-01", "午饭"), // 同一天两条相同的记录
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-01", null)));
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+
+        // 备份之后：新增一条、修改工资记录、删除一条午饭
+        List<Account> current = dbHelper.getFilteredAccounts(AccountQuery.allOf("u"));
+        dbHelper.addAccount(new Account(0, "u", "支出", "交通", 300, "2024-06-02", "地铁"));
+        Account salary = findByType(current, "收入");
+        salary.setAmountCents(510000);
+        dbHelper.updateAccount(salary);
+        dbHelper.deleteAccount(findByType(current, "支出").getId(), "u");
+
+        MergeResult result = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        // 删除的午饭重新导入；另一条午饭重复；工资冲突，保留本机的 5100 元
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(1, result.getConflicting());
+        assertEquals(3, result.getTotal());
+        assertEquals(Arrays.asList(
+                "[支出, 交通, 300, 2024-06-02, 地铁]",
+                "[支出, 餐饮, 1250, 2024-06-01, 午饭]",
+                "[支出, 餐饮, 1250, 2024-06-01, 午饭]",
+                "[收入, 工资, 510000, 2024-06-01, null]"),
+                contents(dbHelper.getFilteredAccounts(AccountQuery.allOf("u"))));
+
+        // 再次合并不产生任何新记录
+        MergeResult again = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        assertEquals(0, again.getInserted());
+        assertEquals(2, again.getSkipped());
+        assertEquals(1, again.getConflicting());
+        assertEquals(4, dbHelper.getAccountCount("u"));
+    }
+
+    @Test
+    public void merge_fromOtherDatabase_ignoresUnrelatedIds() throws Exception {
+        // 其他设备的备份：id 1、2 与本机记录的 id 相同，但不是同一条记录
+        DBHelper other = new DBHelper(context, null);
+        try {
+            other.addAccounts(Arrays.asList(
+                    new Account(0, "u", "支出", "交通", 300, "2024-06-02", "地铁"),
+                    new Account(0, "u", "收入", "红包", 888, "2024-06-03", null),
+                    new Account(0, "u", "支出", "餐饮", 1250, "2024-06-01", "午饭")));
+            FileUtil.exportAccounts(context, other, "u", FILE, null, null);
+        } finally {
+            other.close();
+        }
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "餐饮", 1250, "2024-06-01", "午饭"),
+                new Account(0, "u", "支出", "购物", 9900, "2024-06-04", "鞋")));
+
+        MergeResult result = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(0, result.getConflicting());
+        assertEquals(Arrays.asList(
+                "[支出, 交通, 300, 2024-06-02, 地铁]",
+                "[支出, 购物, 9900, 2024-06-04, 鞋]",
+                "[支出, 餐饮, 1250, 2024-06-01, 午饭]",
+                "[收入, 红包, 888, 2024-06-03, null]"),
+                contents(dbHelper.getFilteredAccounts(AccountQuery.allOf("u"))));
+    }
+
+    @Test
+    public void merge_afterReplaceImport_matchesByContentOnly() throws Exception {
+        dbHelper.addAccounts(Arrays.asList(
+                new Account(0, "u", "支出", "餐饮", 1250, "2024-06-01", "午饭"),
+                new Account(0, "u", "收入", "工资", 500000, "2024-06-01", null)));
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        // 覆盖导入后记录的 id 重新分配，备份中的 id 不再对应本机记录
+        assertEquals(2, FileUtil.restoreAccounts(context, dbHelper, "u", FILE, null, null));
+        Account salary = findByType(dbHelper.getFilteredAccounts(AccountQuery.allOf("u")), "收入");
+        salary.setAmountCents(510000);
+        dbHelper.updateAccount(salary);
+
+        MergeResult result = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        assertEquals(1, result.getInserted()); // 备份中的工资记录与本机内容不同，按新记录插入
+        assertEquals(1, result.getSkipped());
+        assertEquals(0, result.getConflicting());
+        assertEquals(3, dbHelper.getAccountCount("u"));
+    }
+
+    @Test
+    public void merge_restoresDeletedRecordsInBatches() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            accounts.add(new Account(0, "u", "支出", "分类" + (i % 7), i, "2024-01-01", "备注" + i));
+        }
+        dbHelper.addAccounts(accounts);
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, FileUtil.BackupFormat.BINARY,
+                FileUtil.COMPRESSION_FASTEST, null, null);
+        List<String> backedUp = contents(dbHelper.getFilteredAccounts(AccountQuery.allOf("u")));
+
+        // 误删 1000 条 (跨越多个批次)，之后又记了一笔新类别的记录
+        List<Account> current = dbHelper.getFilteredAccounts(AccountQuery.allOf("u"));
+        for (Account account : current.subList(0, 1000)) {
+            dbHelper.deleteAccount(account.getId(), "u");
+        }
+        dbHelper.addAccount(new Account(0, "u", "收入", "红包", 888, "2024-02-01", null));
+
+        MergeResult result = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        assertEquals(1000, result.getInserted());
+        assertEquals(200, result.getSkipped());
+        assertEquals(0, result.getConflicting());
+        List<String> merged = contents(dbHelper.getFilteredAccounts(AccountQuery.allOf("u")));
+        assertEquals(1201, merged.size());
+        assertTrue(merged.containsAll(backedUp));
+        assertTrue(merged.contains("[收入, 红包, 888, 2024-02-01, null]"));
+    }
+
+    @Test
+    public void merge_appliesIncrementsAndKeepsManifestOpen() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1, "2024-01-01", "a"));
+        FileUtil.exportBaseBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 2, "2024-01-02", "b"));
+        FileUtil.exportIncrementalBackup(context, dbHelper, "u", FILE, FileUtil.BackupFormat.JSON, FileUtil.COMPRESSION_NONE, null, null);
+
+        DBHelper target = new DBHelper(context, null);
+        try {
+            MergeResult result = FileUtil.mergeAccounts(context, target, "u", FILE, null, null);
+            assertEquals(2, result.getInserted());
+        } finally {
+            target.close();
+        }
+        assertTrue(FileUtil.canExportIncrement(context, FILE));
+    }
+
+    @Test
+    public void merge_withoutNewRecords_leavesDataUntouched() throws Exception {
+        dbHelper.addAccount(new Account(0, "u", "支出", "餐饮", 1, "2024-01-01", "a"));
+        FileUtil.exportAccounts(context, dbHelper, "u", FILE, null, null);
+        long watermark = dbHelper.getChangeWatermark("u");
+
+        MergeResult result = FileUtil.mergeAccounts(context, dbHelper, "u", FILE, null, null);
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(watermark, dbHelper.getChangeWatermark("u"));
+    }
+
+    private static Account findByType(List<Account> accounts, String type) {
+        for (Account account : accounts) {
+            if (type.equals(account.getType())) return account;
+        }
+        throw new AssertionError("找不到类型为 " + type + " 的记录");
+    }
+
+    // 合并插入的记录 id 重新分配，按内容比较
+    private static List<String> contents(List<Account> accounts) {
+        List<String> contents = new ArrayList<>();
+        for (Account a : accounts) {
+            contents.add(Arrays.asList(a.getType(), a.getCategory(), a.getAmountCents(), a.getDate(), a.getNote()).toString());
+        }
+        Collections.sort(contents);
+        return contents;
+    }
+
+    private void deleteBackupFiles() {
+        context.deleteFile(FILE);
+        context.deleteFile(FILE + ".manifest");
+        context.deleteFile(FILE + ".inc1");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.smartaccountingapp.util;
+
+import android.app.Instrumentation;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 刷新合并：同一帧或合并窗口内的多次请求只刷新一次，代号递增，取消后不再刷新。
+ */
+@RunWith(AndroidJUnit4.class)
+public class RefreshSchedulerTest {
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final List<Integer> runs = new CopyOnWriteArrayList<>();
+    private RefreshScheduler scheduler;
+
+    @Test
+    public void requestsBeforeNextFrameRunOnce() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        instrumentation.runOnMainSync(() -> {
+            scheduler = new RefreshScheduler(0, generation -> {
+                runs.add(generation);
+                ran.countDown();
+            });
+            // 例如：启动加载 + 导入回调 + 变更通知
+            scheduler.requestRefresh();
+            scheduler.requestRefresh();
+            scheduler.requestRefresh();
+        });
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        settle(100);
+        assertEquals(1, runs.size());
+
+        // 刷新完成后的新请求会再次刷新
+        instrumentation.runOnMainSync(() -> scheduler.requestRefresh());
+        settle(100);
+        assertEquals(2, runs.size());
+    }
+
+    @Test
+    public void requestsWithinWindowRunOnce() throws InterruptedException {
+        instrumentation.runOnMainSync(() -> {
+            scheduler = new RefreshScheduler(200, runs::add);
+            scheduler.requestRefresh();
+        });
+        Thread.sleep(50);
+        instrumentation.runOnMainSync(() -> scheduler.requestRefresh());
+        assertTrue(runs.isEmpty());
+        settle(400);
+        assertEquals(1, runs.size());
+    }
+
+    @Test
+    public void olderGenerationIsNotCurrent() {
+        instrumentation.runOnMainSync(() -> {
+            scheduler = new RefreshScheduler(0, runs::add);
+            scheduler.refreshNow();
+            scheduler.refreshNow();
+            int older = runs.get(0);
+            int newer = runs.get(1);
+            assertTrue(newer > older);
+            assertFalse(scheduler.isCurrent(older));
+            assertTrue(scheduler.isCurrent(newer));
+
+            // 取消：排队中的刷新不再执行，已发起的刷新也过期
+            scheduler.requestRefresh();
+            scheduler.cancel();
+            assertFalse(scheduler.isCurrent(newer));
+        });
+        settle(100);
+        assertEquals(2, runs.size());
+    }
+
+    // 等待排队的帧回调执行完
+    private void settle(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        instrumentation.waitForIdleSync();
+    }
+}
@@ -13,14 +13,17 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.smartaccountingapp.R;
 import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.util.DBExecutor;
 import com.example.smartaccountingapp.util.DBHelper;
+import com.example.smartaccountingapp.util.DateUtil;
+import com.example.smartaccountingapp.util.MoneyUtil;
 import com.example.smartaccountingapp.util.PrefsManager;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
-
 public class AddAccountActivity extends AppCompatActivity {
+    // 编辑模式：要编辑的记录 _id (int)；没有此参数时为新增
+    public static final String EXTRA_ACCOUNT_ID = "account_id";
+    private static final String STATE_ACCOUNT = "account";
+
     private DBHelper dbHelper;
     private Spinner spinnerType;
     private Spinner spinnerCategory;
@@ -34,6 +37,10 @@ public class AddAccountActivity extends AppCompatActivity {
 
     private String currentUserId; // 【新增】当前用户ID
 
+    // 正在读取的记录和正在执行的保存；销毁时读取取消，保存只分离回调 (写入仍会完成)
+    private DBExecutor.Task loadTask;
+    private DBExecutor.Task saveTask;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -47,23 +54,67 @@ public class AddAccountActivity extends AppCompatActivity {
             return;
         }
 
-        dbHelper = new DBHelper(this);
+        dbHelper = DBHelper.getInstance(this);
 
         initViews();
         setupSpinners();
 
         // 检查是否为编辑模式
         Intent intent = getIntent();
-        if (intent.getBooleanExtra("is_edit", false) && intent.getSerializableExtra("account") != null) {
+        int accountId = intent.getIntExtra(EXTRA_ACCOUNT_ID, -1);
+        if (accountId > 0) {
             isEditMode = true;
-            accountToEdit = (Account) intent.getSerializableExtra("account");
-            loadAccountData(accountToEdit);
+            Account saved = savedInstanceState != null ? savedInstanceState.getParcelable(STATE_ACCOUNT) : null;
+            if (saved != null) {
+                // 重建 (例如旋转屏幕)：输入框内容由系统恢复，只需要恢复正在编辑的记录
+                accountToEdit = saved;
+                showEditTitle();
+            } else {
+                loadAccount(accountId);
+            }
         }
 
         btnSave.setOnClickListener(v -> saveAccount());
         etDate.setOnClickListener(v -> showDatePickerDialog());
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (loadTask != null) {
+            loadTask.cancel();
+            loadTask = null;
+        }
+        if (saveTask != null) {
+            saveTask.detach();
+            saveTask = null;
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (accountToEdit != null) {
+            outState.putParcelable(STATE_ACCOUNT, accountToEdit);
+        }
+    }
+
+    // 按 _id 在后台读取要编辑的记录；读取完成前不能保存
+    private void loadAccount(int accountId) {
+        btnSave.setEnabled(false);
+        loadTask = DBExecutor.getInstance().submit(signal -> dbHelper.getAccountById(accountId, currentUserId), account -> {
+            loadTask = null;
+            if (account == null) {
+                Toast.makeText(this, "记录不存在或已被删除", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            accountToEdit = account;
+            loadAccountData(account);
+            btnSave.setEnabled(true);
+        });
+    }
+
     private void initViews() {
         spinnerType = findViewById(R.id.spinner_type);
         spinnerCategory = findViewById(R.id.spinner_category);
@@ -74,7 +125,7 @@ public class AddAccountActivity extends AppCompatActivity {
 
         // 设置默认日期为今天
         if (!isEditMode) {
-            etDate.setText(new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(Calendar.getInstance().getTime()));
+            etDate.setText(DateUtil.formatEpochDay(DateUtil.todayEpochDay()));
         }
     }
 
@@ -92,11 +143,16 @@ public class AddAccountActivity extends AppCompatActivity {
         spinnerCategory.setAdapter(categoryAdapter);
     }
 
-    private void loadAccountData(Account account) {
-        // 加载数据到 UI 控件
+    private void showEditTitle() {
         if (getSupportActionBar() != null) {
             getSupportActionBar().setTitle("编辑记录");
         }
+        btnSave.setText("保存修改");
+    }
+
+    private void loadAccountData(Account account) {
+        // 加载数据到 UI 控件
+        showEditTitle();
 
         // 设置类型
         ArrayAdapter<String> typeAdapter = (ArrayAdapter<String>) spinnerType.getAdapter();
@@ -112,28 +168,25 @@ public class AddAccountActivity extends AppCompatActivity {
             spinnerCategory.setSelection(spinnerPosition);
         }
 
-        etAmount.setText(String.format(Locale.getDefault(), "%.2f", account.getAmount()));
+        etAmount.setText(MoneyUtil.format(account.getAmountCents()));
         etDate.setText(account.getDate());
         etNote.setText(account.getNote());
-        btnSave.setText("保存修改");
     }
 
     private void showDatePickerDialog() {
-        Calendar calendar = Calendar.getInstance();
-        if (isEditMode && accountToEdit != null) {
+        long initialDay = DateUtil.todayEpochDay();
+        if (isEditMode) {
             try {
-                calendar.setTime(new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).parse(accountToEdit.getDate()));
-            } catch (Exception e) {
+                initialDay = DateUtil.parseEpochDay(accountToEdit.getDate());
+            } catch (IllegalArgumentException e) {
                 // Ignore parsing error, use current date
             }
         }
 
+        // DatePickerDialog 的月份从 0 开始
         new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
-            Calendar selectedDate = Calendar.getInstance();
-            selectedDate.set(year, month, dayOfMonth);
-            String dateString = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(selectedDate.getTime());
-            etDate.setText(dateString);
-        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+            etDate.setText(DateUtil.format(year, month + 1, dayOfMonth));
+        }, DateUtil.yearOf(initialDay), DateUtil.monthOf(initialDay) - 1, DateUtil.dayOfMonthOf(initialDay)).show();
     }
 
     private void saveAccount() {
@@ -148,44 +201,52 @@ public class AddAccountActivity extends AppCompatActivity {
             return;
         }
 
-        double amount;
+        long amountCents;
         try {
-            amount = Double.parseDouble(amountStr);
+            amountCents = MoneyUtil.parseCents(amountStr);
         } catch (NumberFormatException e) {
             Toast.makeText(this, "金额格式不正确", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        long result;
+        // 写入在后台执行；保存期间禁用按钮，避免重复提交
+        btnSave.setEnabled(false);
         if (isEditMode) {
             accountToEdit.setType(type);
             accountToEdit.setCategory(category);
-            accountToEdit.setAmount(amount);
+            accountToEdit.setAmountCents(amountCents);
             accountToEdit.setDate(date);
             accountToEdit.setNote(note);
             // accountToEdit 中已经包含了正确的 userId
 
             // 【核心修改 2】调用 DBHelper 的 update 方法
-            result = dbHelper.updateAccount(accountToEdit);
-            if (result > 0) {
-                Toast.makeText(this, "记录更新成功", Toast.LENGTH_SHORT).show();
-                setResult(RESULT_OK); // 返回 RESULT_OK
-                finish();
-            } else {
-                Toast.makeText(this, "记录更新失败 (可能记录不存在)", Toast.LENGTH_SHORT).show();
-            }
+            final Account account = accountToEdit;
+            saveTask = DBExecutor.getInstance().submit(signal -> dbHelper.updateAccount(account), result -> {
+                saveTask = null;
+                if (result > 0) {
+                    Toast.makeText(this, "记录更新成功", Toast.LENGTH_SHORT).show();
+                    setResult(RESULT_OK); // 返回 RESULT_OK
+                    finish();
+                } else {
+                    Toast.makeText(this, "记录更新失败 (可能记录不存在)", Toast.LENGTH_SHORT).show();
+                    btnSave.setEnabled(true);
+                }
+            });
 
         } else {
-            Account newAccount = new Account(0, currentUserId, type, category, amount, date, note); // 【核心修改 3】新增记录时传入 currentUserId
-
-            result = dbHelper.addAccount(newAccount);
-            if (result > 0) {
-                Toast.makeText(this, "新增记录成功", Toast.LENGTH_SHORT).show();
-                setResult(RESULT_OK); // 返回 RESULT_OK
-                finish();
-            } else {
-                Toast.makeText(this, "新增记录失败", Toast.LENGTH_SHORT).show();
-            }
+            Account newAccount = new Account(0, currentUserId, type, category, amountCents, date, note); // 【核心修改 3】新增记录时传入 currentUserId
+
+            saveTask = DBExecutor.getInstance().submit(signal -> dbHelper.addAccount(newAccount), result -> {
+                saveTask = null;
+                if (result > 0) {
+                    Toast.makeText(this, "新增记录成功", Toast.LENGTH_SHORT).show();
+                    setResult(RESULT_OK); // 返回 RESULT_OK
+                    finish();
+                } else {
+                    Toast.makeText(this, "新增记录失败", Toast.LENGTH_SHORT).show();
+                    btnSave.setEnabled(true);
+                }
+            });
         }
     }
 }
\ No newline at end of file
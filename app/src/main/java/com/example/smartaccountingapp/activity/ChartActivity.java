@@ -4,6 +4,7 @@ import android.app.DatePickerDialog;
 import android.database.Cursor;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
@@ -14,7 +15,13 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.smartaccountingapp.R;
+import com.example.smartaccountingapp.model.AccountChange;
+import com.example.smartaccountingapp.model.TrendPoint;
+import com.example.smartaccountingapp.util.AccountChangeBus;
+import com.example.smartaccountingapp.util.DBExecutor;
 import com.example.smartaccountingapp.util.DBHelper;
+import com.example.smartaccountingapp.util.DateUtil;
+import com.example.smartaccountingapp.util.MoneyUtil;
 import com.example.smartaccountingapp.util.PrefsManager;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
@@ -30,14 +37,9 @@ import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.formatter.PercentFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
 public class ChartActivity extends AppCompatActivity {
     private DBHelper dbHelper;
@@ -53,7 +55,21 @@ public class ChartActivity extends AppCompatActivity {
 
     private String startDate;
     private String endDate;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+
+    private DBExecutor.Task chartTask; // 正在执行的图表查询
+
+    // 最近一次加载的图表数据 (进程内共享，只在主线程访问)。再次打开同一日期范围时直接使用，
+    // 有记录变更落在该范围内时失效。changeCount 用于丢弃加载期间已有变更的结果。
+    private static ChartData cachedData;
+    private static int changeCount;
+    private static final AccountChangeBus.Listener CACHE_INVALIDATOR = change -> {
+        changeCount++;
+        if (cachedData != null && change.affects(cachedData.userId, cachedData.startDay, cachedData.endDay)) {
+            cachedData = null;
+        }
+    };
+
+    private final AccountChangeBus.Listener changeListener = this::onAccountChanged;
 
 
     @Override
@@ -73,7 +89,7 @@ public class ChartActivity extends AppCompatActivity {
         }
 
         // 初始化
-        dbHelper = new DBHelper(this);
+        dbHelper = DBHelper.getInstance(this);
         pieChart = findViewById(R.id.pie_chart);
         lineChart = findViewById(R.id.line_chart);
         tvDateRange = findViewById(R.id.tv_date_range);
@@ -88,14 +104,47 @@ public class ChartActivity extends AppCompatActivity {
         // 初始化 Spinner
         initTimePresetSpinner();
 
+        // 缓存失效监听先于界面监听注册 (重复注册无影响)
+        dbHelper.getChangeBus().register(CACHE_INVALIDATOR);
+        dbHelper.getChangeBus().register(changeListener);
+
         // 首次加载图表数据
         loadAllCharts();
 
         ivSelectDate.setOnClickListener(v -> showDatePickerDialog());
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (dbHelper != null) {
+            dbHelper.getChangeBus().unregister(changeListener);
+        }
+        if (chartTask != null) {
+            chartTask.cancel();
+        }
+    }
+
+    // 当前日期范围内的记录有变更时重新加载 (缓存已由 CACHE_INVALIDATOR 失效)
+    private void onAccountChanged(AccountChange change) {
+        if (startDate == null || endDate == null) return;
+        long startDay;
+        long endDay;
+        try {
+            startDay = DateUtil.parseEpochDay(startDate);
+            endDay = DateUtil.parseEpochDay(endDate);
+        } catch (IllegalArgumentException e) {
+            // 日期格式不正确时图表不会加载 (loadAllCharts 已提示)，变更无需刷新
+            return;
+        }
+        if (change.affects(currentUserId, startDay, endDay)) {
+            loadAllCharts();
+        }
+    }
+
     /**
-     * 统一加载所有图表数据的方法
+     * 统一加载所有图表数据的方法：三个查询在后台执行，完成后在主线程一起绘制。
+     * 日期范围在查询完成前再次变化时，取消旧的查询。
      */
     private void loadAllCharts() {
         if (startDate == null || endDate == null) return;
@@ -103,9 +152,97 @@ public class ChartActivity extends AppCompatActivity {
         // 【核心修正 1：统一更新日期范围 TextView】
         tvDateRange.setText(String.format(Locale.getDefault(), "%s 至 %s", startDate, endDate));
 
-        loadSummaryData();
-        loadPieChartData();
-        loadLineChartData();
+        final String start = startDate;
+        final String end = endDate;
+        final long startDay;
+        final long endDay;
+        try {
+            startDay = DateUtil.parseEpochDay(start);
+            endDay = DateUtil.parseEpochDay(end);
+        } catch (IllegalArgumentException e) {
+            Toast.makeText(this, "日期格式不正确", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (chartTask != null) {
+            chartTask.cancel();
+            chartTask = null;
+        }
+        if (cachedData != null && cachedData.matches(currentUserId, start, end)) {
+            showChartData(cachedData);
+            return;
+        }
+        final int changeCountAtStart = changeCount;
+        chartTask = DBExecutor.getInstance().submit(signal -> loadChartData(start, end, startDay, endDay, signal), data -> {
+            if (changeCount == changeCountAtStart) {
+                cachedData = data;
+            }
+            showChartData(data);
+        });
+    }
+
+    private void showChartData(ChartData data) {
+        showSummaryData(data);
+        showPieChartData(data.pieEntries);
+        showLineChartData(data.trendPoints);
+    }
+
+    // 后台线程：读取三个图表需要的数据
+    private ChartData loadChartData(String start, String end, long startDay, long endDay, CancellationSignal signal) {
+        ChartData data = new ChartData(currentUserId, start, end, startDay, endDay);
+
+        // 金额以分为单位整数求和，显示时再格式化，结果精确
+        Cursor cursor = dbHelper.getAccountSummary(currentUserId, start, end, signal);
+        try {
+            if (cursor.moveToFirst()) {
+                data.totalIncome = cursor.getLong(cursor.getColumnIndexOrThrow("total_income"));
+                data.totalExpense = cursor.getLong(cursor.getColumnIndexOrThrow("total_expense"));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        cursor = dbHelper.getPieChartData(currentUserId, start, end, signal);
+        try {
+            // 列序号在循环外解析一次
+            int categoryIdIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_CATEGORY_ID);
+            int amountIndex = cursor.getColumnIndexOrThrow("total_amount");
+            while (cursor.moveToNext()) {
+                String category = dbHelper.getCategoryName(cursor.getInt(categoryIdIndex));
+                float amount = MoneyUtil.toYuanFloat(cursor.getLong(amountIndex));
+                data.pieEntries.add(new PieEntry(amount, category));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        data.trendPoints = dbHelper.getTrendDataByRange(currentUserId, start, end, signal);
+        return data;
+    }
+
+    // 一次加载的图表数据 (创建后只读)
+    private static final class ChartData {
+        final String userId;
+        final String startDate;
+        final String endDate;
+        final long startDay;
+        final long endDay;
+        long totalIncome;
+        long totalExpense;
+        final List<PieEntry> pieEntries = new ArrayList<>();
+        List<TrendPoint> trendPoints;
+
+        // 日期由调用方在主线程解析 (格式不正确时不会加载)
+        ChartData(String userId, String startDate, String endDate, long startDay, long endDay) {
+            this.userId = userId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.startDay = startDay;
+            this.endDay = endDay;
+        }
+
+        boolean matches(String userId, String startDate, String endDate) {
+            return this.userId.equals(userId) && this.startDate.equals(startDate) && this.endDate.equals(endDate);
+        }
     }
 
 
@@ -154,29 +291,26 @@ public class ChartActivity extends AppCompatActivity {
      * 初始化日期范围为当月 (1号到当前日期)
      */
     private void initDateRangeToCurrentMonth() {
-        Calendar calendar = Calendar.getInstance();
+        long today = DateUtil.todayEpochDay();
 
         // 结束日期：当前日期
-        endDate = dateFormat.format(calendar.getTime());
+        endDate = DateUtil.formatEpochDay(today);
 
         // 开始日期：当月第一天
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        startDate = dateFormat.format(calendar.getTime());
+        startDate = DateUtil.formatEpochDay(DateUtil.firstDayOfMonth(today));
     }
 
     /**
      * 【新增】初始化日期范围为本年 (1月1号到当前日期)
      */
     private void initDateRangeToCurrentYear() {
-        Calendar calendar = Calendar.getInstance();
+        long today = DateUtil.todayEpochDay();
 
         // 结束日期：当前日期
-        endDate = dateFormat.format(calendar.getTime());
+        endDate = DateUtil.formatEpochDay(today);
 
         // 开始日期：当年第一天
-        calendar.set(Calendar.MONTH, Calendar.JANUARY);
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        startDate = dateFormat.format(calendar.getTime());
+        startDate = DateUtil.formatEpochDay(DateUtil.firstDayOfYear(today));
     }
 
 
@@ -184,13 +318,12 @@ public class ChartActivity extends AppCompatActivity {
      * 设置 N 天前的日期范围 (从 N 天前到今天)
      */
     private void setFilterToLastNDays(int days) {
-        Calendar calendar = Calendar.getInstance();
+        long today = DateUtil.todayEpochDay();
         // 结束日期：今天
-        endDate = dateFormat.format(calendar.getTime());
+        endDate = DateUtil.formatEpochDay(today);
 
         // 开始日期：包含今天，所以减去 days - 1
-        calendar.add(Calendar.DAY_OF_YEAR, -(days - 1));
-        startDate = dateFormat.format(calendar.getTime());
+        startDate = DateUtil.formatEpochDay(today - (days - 1));
     }
 
 
@@ -198,29 +331,28 @@ public class ChartActivity extends AppCompatActivity {
      * 显示自定义日期选择对话框
      */
     private void showDatePickerDialog() {
-        Calendar calendar = Calendar.getInstance();
+        long today = DateUtil.todayEpochDay();
 
-        // 第一次弹窗：选择结束日期
+        // 第一次弹窗：选择结束日期 (DatePickerDialog 的月份从 0 开始)
         new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
-            Calendar selectedEndDate = Calendar.getInstance();
-            selectedEndDate.set(year, month, dayOfMonth);
-            endDate = dateFormat.format(selectedEndDate.getTime());
-
-            // 第二次弹窗：选择开始日期
-            Calendar startCalendar = Calendar.getInstance();
-            // 尝试从当前的 startDate 初始化选择器
-            try {
-                startCalendar.setTime(dateFormat.parse(startDate));
-            } catch (ParseException e) {
-                // 忽略
+            long selectedEndDay = DateUtil.toEpochDay(year, month + 1, dayOfMonth);
+            endDate = DateUtil.formatEpochDay(selectedEndDay);
+
+            // 第二次弹窗：选择开始日期，尝试从当前的 startDate 初始化选择器
+            long initialStartDay = today;
+            if (startDate != null) {
+                try {
+                    initialStartDay = DateUtil.parseEpochDay(startDate);
+                } catch (IllegalArgumentException e) {
+                    // 解析失败，使用当前日期
+                }
             }
 
             new DatePickerDialog(this, (view2, startYear, startMonth, startDay) -> {
-                Calendar selectedStartDate = Calendar.getInstance();
-                selectedStartDate.set(startYear, startMonth, startDay);
-                startDate = dateFormat.format(selectedStartDate.getTime());
+                long selectedStartDay = DateUtil.toEpochDay(startYear, startMonth + 1, startDay);
+                startDate = DateUtil.formatEpochDay(selectedStartDay);
 
-                if (selectedStartDate.after(selectedEndDate)) {
+                if (selectedStartDay > selectedEndDay) {
                     Toast.makeText(ChartActivity.this, "开始日期不能晚于结束日期", Toast.LENGTH_SHORT).show();
                     // 如果日期不合法，不进行操作或恢复默认
                     startDate = null;
@@ -232,32 +364,20 @@ public class ChartActivity extends AppCompatActivity {
                 timePresetSpinner.setSelection(timePresetSpinner.getCount() - 1);
                 loadAllCharts();
 
-            }, startCalendar.get(Calendar.YEAR), startCalendar.get(Calendar.MONTH), startCalendar.get(Calendar.DAY_OF_MONTH)).show();
+            }, DateUtil.yearOf(initialStartDay), DateUtil.monthOf(initialStartDay) - 1, DateUtil.dayOfMonthOf(initialStartDay)).show();
 
-        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+        }, DateUtil.yearOf(today), DateUtil.monthOf(today) - 1, DateUtil.dayOfMonthOf(today)).show();
     }
 
-    // 【修改】 loadSummaryData 方法，计算当前用户收支总和
-    private void loadSummaryData() {
-        if (startDate == null || endDate == null) return;
-
-        double totalIncome = 0;
-        double totalExpense = 0;
-
-        Cursor cursor = dbHelper.getAccountSummary(currentUserId, startDate, endDate);
-        if (cursor.moveToFirst()) {
-            totalIncome = cursor.getDouble(cursor.getColumnIndexOrThrow("total_income"));
-            totalExpense = cursor.getDouble(cursor.getColumnIndexOrThrow("total_expense"));
-        }
-        cursor.close();
-
-        tvTotalIncome.setText(String.format(Locale.getDefault(), "总收入: %.2f", totalIncome));
-        tvTotalExpense.setText(String.format(Locale.getDefault(), "总支出: %.2f", totalExpense));
+    // 【修改】 showSummaryData 方法，显示当前用户收支总和
+    private void showSummaryData(ChartData data) {
+        tvTotalIncome.setText("总收入: " + MoneyUtil.format(data.totalIncome));
+        tvTotalExpense.setText("总支出: " + MoneyUtil.format(data.totalExpense));
     }
 
 
-    // 【修改】 loadPieChartData 方法，用于加载当前用户的支出饼图数据
-    private void loadPieChartData() {
+    // 【修改】 showPieChartData 方法，用于显示当前用户的支出饼图数据
+    private void showPieChartData(List<PieEntry> entries) {
         // 配置 PieChart 基础样式
         pieChart.setUsePercentValues(true);
         pieChart.getDescription().setEnabled(false);
@@ -271,19 +391,7 @@ public class ChartActivity extends AppCompatActivity {
         pieChart.setTransparentCircleRadius(61f);
         pieChart.setDrawEntryLabels(false);
 
-        // 1. 从数据库获取数据
-        List<PieEntry> entries = new ArrayList<>();
-        Cursor cursor = dbHelper.getPieChartData(currentUserId, startDate, endDate);
-
-        if (cursor.moveToFirst()) {
-            do {
-                String category = cursor.getString(cursor.getColumnIndexOrThrow(DBHelper.COLUMN_CATEGORY));
-                float amount = (float) cursor.getDouble(cursor.getColumnIndexOrThrow("total_amount"));
-                entries.add(new PieEntry(amount, category));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-
+        // 1. 数据已在后台读取 (loadChartData)
         if (entries.isEmpty()) {
             pieChart.clear();
             pieChart.setNoDataText("所选时间段暂无支出记录");
@@ -324,35 +432,26 @@ public class ChartActivity extends AppCompatActivity {
         l.setYOffset(5f);
     }
 
-    // 【修改】 loadLineChartData 方法，用于加载当前用户的收支趋势折线图数据
-    private void loadLineChartData() {
+    // 【修改】 showLineChartData 方法，用于显示当前用户的收支趋势折线图数据
+    private void showLineChartData(List<TrendPoint> points) {
         // 配置 LineChart 基础样式
         lineChart.getDescription().setEnabled(false);
         lineChart.setTouchEnabled(true);
         lineChart.setDrawGridBackground(false);
         lineChart.getAxisRight().setEnabled(false); // 禁用右侧 Y 轴
 
-        // 1. 从数据库获取数据
-        Cursor cursor = dbHelper.getTrendDataByRange(currentUserId, startDate, endDate);
-
+        // 1. 数据已在后台读取 (loadChartData)
         List<Entry> incomeEntries = new ArrayList<>();
         List<Entry> expenseEntries = new ArrayList<>();
         List<String> xValues = new ArrayList<>(); // X 轴标签
 
-        if (cursor.moveToFirst()) {
-            int i = 0;
-            do {
-                String timeKey = cursor.getString(cursor.getColumnIndexOrThrow("time_key"));
-                float income = (float) cursor.getDouble(cursor.getColumnIndexOrThrow("total_income"));
-                float expense = (float) cursor.getDouble(cursor.getColumnIndexOrThrow("total_expense"));
-
-                incomeEntries.add(new Entry(i, income));
-                expenseEntries.add(new Entry(i, expense));
-                xValues.add(timeKey.substring(timeKey.lastIndexOf('-') + 1) + "日/月"); // 简化标签
-                i++;
-            } while (cursor.moveToNext());
+        for (int i = 0; i < points.size(); i++) {
+            TrendPoint point = points.get(i);
+            String timeKey = point.getTimeKey();
+            incomeEntries.add(new Entry(i, MoneyUtil.toYuanFloat(point.getIncomeCents())));
+            expenseEntries.add(new Entry(i, MoneyUtil.toYuanFloat(point.getExpenseCents())));
+            xValues.add(timeKey.substring(timeKey.lastIndexOf('-') + 1) + "日/月"); // 简化标签
         }
-        cursor.close();
 
         if (incomeEntries.isEmpty() && expenseEntries.isEmpty()) {
             lineChart.clear();
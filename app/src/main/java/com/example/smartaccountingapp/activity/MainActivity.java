@@ -3,34 +3,47 @@ package com.example.smartaccountingapp.activity;
 import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.Formatter;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.EditText;
+import android.widget.ProgressBar;
 import android.widget.Spinner;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.smartaccountingapp.R;
 import com.example.smartaccountingapp.adapter.AccountAdapter;
 import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.model.AccountChange;
+import com.example.smartaccountingapp.model.MergeResult;
+import com.example.smartaccountingapp.util.AccountChangeBus;
+import com.example.smartaccountingapp.util.AccountCursor;
+import com.example.smartaccountingapp.util.AccountQuery;
+import com.example.smartaccountingapp.util.DBExecutor;
 import com.example.smartaccountingapp.util.DBHelper;
+import com.example.smartaccountingapp.util.DateUtil;
 import com.example.smartaccountingapp.util.FileUtil;
 import com.example.smartaccountingapp.util.PrefsManager;
+import com.example.smartaccountingapp.util.RefreshScheduler;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
     private RecyclerView recyclerView;
@@ -39,15 +52,38 @@ public class MainActivity extends AppCompatActivity {
 
     private String currentUserId; // 当前登录用户的ID
 
-    private static final int REQUEST_CODE_ADD = 1;
-    private static final int REQUEST_CODE_EDIT = 2;
-
     // 筛选相关成员变量
     private String currentTypeFilter = null;
     private String currentCategoryFilter = null;
     private String currentStartDate = null;
     private String currentEndDate = null;
-    private String currentOrderBy = DBHelper.COLUMN_DATE + " DESC, " + DBHelper.COLUMN_ID + " DESC"; // 默认排序
+    private DBHelper.SortOrder currentSortOrder = DBHelper.SortOrder.DATE_DESC; // 默认排序
+
+    // 正在执行的列表查询或搜索；发起新查询时取消旧的，过期结果不会显示
+    private DBExecutor.Task listTask;
+    // 筛选列表每页的条数，以及正在加载的下一页
+    private static final int PAGE_SIZE = 50;
+    private DBExecutor.Task pageTask;
+    // 列表当前显示的各页对应的查询，加载下一页时沿用
+    private AccountQuery pagedQuery;
+    // 同一帧内的刷新请求 (启动、筛选、导入、变更通知等) 合并为一次查询
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(0, this::refresh);
+
+    // 上次显示列表以来内容被修改的记录，下一次刷新时只重新绑定这些行；RESET 后视为全部变化
+    private final Set<Long> changedAccountIds = new HashSet<>();
+    private boolean allAccountsChanged;
+
+    // 搜索：输入停顿后再查询，结果条数上限
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private static final int SEARCH_LIMIT = 200;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::loadAccounts;
+    private String currentSearchQuery; // 非空时列表显示搜索结果而不是筛选结果
+
+    private final AccountChangeBus.Listener changeListener = this::onAccountChanged;
+
+    // 正在进行的导出/导入 (显示进度对话框)，Activity 销毁时取消
+    private TransferProgress transferProgress;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,22 +102,23 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        // 初始化 DBHelper
-        dbHelper = new DBHelper(this);
+        // 获取进程内共享的 DBHelper
+        dbHelper = DBHelper.getInstance(this);
 
         FloatingActionButton fabAdd = findViewById(R.id.fab_add);
         fabAdd.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, AddAccountActivity.class);
-            startActivityForResult(intent, REQUEST_CODE_ADD);
+            startActivity(intent); // 保存后由变更通知刷新列表
         });
 
         // 初始化 RecyclerView 和 Adapter
         recyclerView = findViewById(R.id.recycler_view);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
 
-        // 首次加载时，先获取数据
-        List<Account> initialAccounts = dbHelper.getFilteredAccounts(currentUserId, null, null, null, null, currentOrderBy);
-        adapter = new AccountAdapter(this, initialAccounts);
+        // 数据由 loadAccounts() 按页加载，这里先设置空列表；滚动到接近末尾时加载下一页
+        adapter = new AccountAdapter(this, new ArrayList<>());
+        adapter.setOnLoadMoreListener(this::loadNextPage);
         recyclerView.setAdapter(adapter);
 
         // 设置 Adapter 的点击监听器
@@ -91,23 +128,24 @@ public class MainActivity extends AppCompatActivity {
                 new AlertDialog.Builder(MainActivity.this)
                         .setTitle("删除确认")
                         .setMessage("确定删除此条记录吗？")
-                        .setPositiveButton("确定", (dialog, which) -> {
+                        .setPositiveButton("确定", (dialog, which) -> DBExecutor.getInstance().submit(signal -> {
                             // 传入 currentUserId
                             dbHelper.deleteAccount(accountId, currentUserId);
-                            loadAccounts();
+                            return null;
+                        }, result -> {
+                            // 列表由变更通知刷新
                             Toast.makeText(MainActivity.this, "记录已删除", Toast.LENGTH_SHORT).show();
-                        })
+                        }))
                         .setNegativeButton("取消", null)
                         .show();
             }
 
             @Override
-            public void onItemClick(Account account) {
-                // 跳转到编辑页面
+            public void onItemClick(int accountId) {
+                // 跳转到编辑页面：只传 _id，编辑页打开时读取最新数据
                 Intent intent = new Intent(MainActivity.this, AddAccountActivity.class);
-                intent.putExtra("is_edit", true);
-                intent.putExtra("account", account);
-                startActivityForResult(intent, REQUEST_CODE_EDIT);
+                intent.putExtra(AddAccountActivity.EXTRA_ACCOUNT_ID, accountId);
+                startActivity(intent);
             }
         });
 
@@ -120,28 +158,227 @@ public class MainActivity extends AppCompatActivity {
         }
 
         loadAccounts(); // 确保加载最新的数据
+
+        // 新增、编辑、删除后按变更通知刷新
+        dbHelper.getChangeBus().register(changeListener);
     }
 
-    @Override
-    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
-        super.onActivityResult(requestCode, resultCode, data);
-        if (resultCode == RESULT_OK) {
-            if (requestCode == REQUEST_CODE_ADD || requestCode == REQUEST_CODE_EDIT) {
-                // 刷新数据
-                loadAccounts();
+    /**
+     * 记录变更：只有当前用户、且落在当前日期筛选范围内的变更才重新查询；
+     * 搜索结果无法按日期判断，当前用户有变更时重新搜索。
+     */
+    private void onAccountChanged(AccountChange change) {
+        if (!currentUserId.equals(change.getUserId())) return;
+        if (isSearching()) {
+            loadAccounts();
+            return;
+        }
+        if (currentStartDate != null && currentEndDate != null) {
+            long startDay;
+            long endDay;
+            try {
+                startDay = DateUtil.parseEpochDay(currentStartDate);
+                endDay = DateUtil.parseEpochDay(currentEndDate);
+            } catch (IllegalArgumentException e) {
+                // 筛选日期格式不正确时列表不会查询 (queryAccounts 已提示)，变更无需刷新
+                return;
             }
+            if (!change.affects(currentUserId, startDay, endDay)) return;
+        }
+        if (change.getKind() == AccountChange.Kind.UPDATE) {
+            changedAccountIds.add(change.getAccountId());
+        } else if (change.getKind() == AccountChange.Kind.RESET) {
+            allAccountsChanged = true;
+        }
+        loadAccounts();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(searchRunnable);
+        if (dbHelper != null) {
+            dbHelper.getChangeBus().unregister(changeListener);
+        }
+        refreshScheduler.cancel();
+        cancelListTask();
+        if (transferProgress != null) {
+            transferProgress.cancel();
+        }
+        if (adapter != null) {
+            adapter.swapPages(null); // 关闭列表持有的 Cursor
         }
     }
 
+    /**
+     * 请求重新加载列表 (搜索中则重新搜索)。在下一帧之前的多次请求只执行一次查询。
+     */
     private void loadAccounts() {
-        // 传入 currentUserId 进行筛选
-        List<Account> accounts = dbHelper.getFilteredAccounts(currentUserId, currentTypeFilter, currentCategoryFilter, currentStartDate, currentEndDate, currentOrderBy);
-        adapter.updateData(accounts);
+        refreshScheduler.requestRefresh();
+    }
+
+    // 由 refreshScheduler 调用：按当前状态发起查询，结果只在 generation 仍是最新时显示
+    private void refresh(int generation) {
+        if (isSearching()) {
+            // 搜索中 (例如删除或编辑后刷新)，重新执行搜索
+            runSearch(generation);
+        } else {
+            queryAccounts(generation);
+        }
+    }
+
+    /**
+     * 重新查询筛选列表：在后台线程按页 (键集分页) 重新加载当前已显示的范围，至少一页，再交给 Adapter 按需绑定可见行。
+     * 耗时和内存与已加载的行数成正比，不随记录总数增长；之后的页在滚动时由 loadNextPage 加载。
+     * 每页同时读取本页的 _id，Adapter 据此与当前列表比较，只刷新新增、删除、移动和被修改的行。
+     */
+    private void queryAccounts(int generation) {
+        final AccountQuery query;
+        try {
+            // 传入 currentUserId 进行筛选
+            AccountQuery.Builder builder = new AccountQuery.Builder(currentUserId)
+                    .type(currentTypeFilter)
+                    .dateRange(currentStartDate, currentEndDate)
+                    .sortBy(currentSortOrder);
+            if (currentCategoryFilter != null) {
+                builder.categories(currentCategoryFilter);
+            }
+            query = builder.build();
+        } catch (IllegalArgumentException e) {
+            Toast.makeText(this, "日期格式不正确", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // 筛选/排序已变化，取消尚未完成的旧查询
+        cancelListTask();
+        final int minRows = Math.max(PAGE_SIZE, adapter.getLoadedCount());
+        listTask = DBExecutor.getInstance().submit(signal -> dbHelper.loadAccountPages(query, minRows, PAGE_SIZE, signal), pages -> {
+            if (!refreshScheduler.isCurrent(generation)) {
+                pages.close(); // 已有更新的查询
+                return;
+            }
+            pagedQuery = query;
+            adapter.submitPages(pages, takeChangedIds());
+        });
+    }
+
+    // Adapter 滚动到接近已加载末尾时调用：在后台加载 after 之后的一页并追加
+    private void loadNextPage(Account after) {
+        if (pageTask != null || pagedQuery == null) return; // 同一时间只加载一页
+        final AccountQuery query = pagedQuery;
+        pageTask = DBExecutor.getInstance().submit(signal -> dbHelper.loadAccountsPage(query, after, PAGE_SIZE, signal),
+                new DBExecutor.Callback<AccountCursor>() {
+                    @Override
+                    public void onResult(AccountCursor page) {
+                        pageTask = null;
+                        if (query != pagedQuery) {
+                            page.close(); // 列表已换成其他筛选条件
+                            return;
+                        }
+                        adapter.appendPage(after, page);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        pageTask = null;
+                        DBExecutor.Callback.super.onError(e);
+                    }
+                });
+    }
+
+    // 取出并清空已记录的修改 (升序)；null 表示所有行都需要重新绑定
+    private long[] takeChangedIds() {
+        long[] ids = null;
+        if (!allAccountsChanged) {
+            ids = new long[changedAccountIds.size()];
+            int i = 0;
+            for (long id : changedAccountIds) {
+                ids[i++] = id;
+            }
+            Arrays.sort(ids);
+        }
+        changedAccountIds.clear();
+        allAccountsChanged = false;
+        return ids;
+    }
+
+    private void cancelListTask() {
+        if (listTask != null) {
+            listTask.cancel();
+            listTask = null;
+        }
+        if (pageTask != null) {
+            pageTask.cancel();
+            pageTask = null;
+        }
+    }
+
+    private boolean isSearching() {
+        return currentSearchQuery != null && !currentSearchQuery.isEmpty();
+    }
+
+    // 搜索框内容变化：停顿 SEARCH_DEBOUNCE_MS 后再查询，清空时立即恢复筛选列表
+    private void onSearchQueryChanged(String query) {
+        currentSearchQuery = query == null ? null : query.trim();
+        searchHandler.removeCallbacks(searchRunnable);
+        if (isSearching()) {
+            searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+        } else {
+            loadAccounts();
+        }
+    }
+
+    // 在后台线程执行全文检索，结果按相关度排序，一次性显示 (不分页)
+    private void runSearch(int generation) {
+        searchHandler.removeCallbacks(searchRunnable);
+        final String query = currentSearchQuery;
+
+        // 输入已变化，取消尚未完成的旧查询
+        cancelListTask();
+        listTask = DBExecutor.getInstance().submit(
+                signal -> dbHelper.searchAccounts(currentUserId, query, SEARCH_LIMIT, signal),
+                results -> {
+                    if (refreshScheduler.isCurrent(generation)) {
+                        adapter.updateData(results);
+                    }
+                });
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main_menu, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint("搜索备注或类别");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                currentSearchQuery = query.trim();
+                refreshScheduler.refreshNow();
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                onSearchQueryChanged(newText);
+                return true;
+            }
+        });
+        // 收起搜索框时恢复筛选列表
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                onSearchQueryChanged(null);
+                return true;
+            }
+        });
         return true;
     }
 
@@ -189,82 +426,278 @@ public class MainActivity extends AppCompatActivity {
         return "accounts_backup_" + currentUserId + ".json";
     }
 
-    // 导出确认对话框
+    // 导出确认对话框：记录数、是否可以增量备份和导出过程都在后台查询
     private void showExportDialog() {
-        // 获取当前用户的所有记录
-        List<Account> accounts = dbHelper.getFilteredAccounts(currentUserId, null, null, null, null, null);
+        String fileName = getBackupFileName(); // 使用用户专属文件名
+        DBExecutor.getInstance().submit(signal -> new ExportPreview(dbHelper.getAccountCount(currentUserId),
+                FileUtil.canExportIncrement(MainActivity.this, fileName)), preview -> {
+            if (isDestroyed()) return;
+            long count = preview.count;
+            if (count == 0 && !preview.canExportIncrement) {
+                Toast.makeText(this, "当前用户没有记账记录可导出", Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-        if (accounts.isEmpty()) {
-            Toast.makeText(this, "当前用户没有记账记录可导出", Toast.LENGTH_SHORT).show();
-            return;
-        }
+            // 备份格式：记住上次的选择；导入时按文件内容自动识别，文件名不变
+            FileUtil.BackupFormat[] formats = FileUtil.BackupFormat.values();
+            String[] labels = {"JSON (通用文本)", "二进制 (体积更小)"};
+            FileUtil.BackupFormat[] selected = {PrefsManager.getBackupFormat(this)};
+
+            AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                    // 【修正 1】更新提示信息，显示用户专属文件名 (列表对话框不显示 message，放在标题中)
+                    .setTitle("导出 " + count + " 条记录到 " + fileName + " (覆盖旧备份)")
+                    .setSingleChoiceItems(labels, selected[0].ordinal(), (dialog, which) -> selected[0] = formats[which])
+                    .setPositiveButton("完整备份", (dialog, which) -> {
+                        PrefsManager.setBackupFormat(this, selected[0]);
+                        showCompressionDialog(fileName, selected[0]);
+                    })
+                    .setNegativeButton("取消", null);
+            // 已有完整备份时可以只导出之后的变更 (压缩级别沿用上次的选择)
+            if (preview.canExportIncrement) {
+                builder.setNeutralButton("增量备份", (dialog, which) -> {
+                    PrefsManager.setBackupFormat(this, selected[0]);
+                    exportIncrement(fileName, selected[0], PrefsManager.getBackupCompressionLevel(this));
+                });
+            }
+            builder.show();
+        });
+    }
 
-        String fileName = getBackupFileName(); // 使用用户专属文件名
+    // 导出第二步：选择压缩级别 (级别越高文件越小、导出越慢)
+    private void showCompressionDialog(String fileName, FileUtil.BackupFormat format) {
+        int[] levels = {FileUtil.COMPRESSION_NONE, FileUtil.COMPRESSION_FASTEST,
+                FileUtil.COMPRESSION_DEFAULT, FileUtil.COMPRESSION_SMALLEST};
+        String[] labels = {"不压缩", "快速压缩", "标准压缩", "最高压缩 (最慢)"};
+        int saved = PrefsManager.getBackupCompressionLevel(this);
+        int[] selected = {0};
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == saved) selected[0] = i;
+        }
 
         new AlertDialog.Builder(this)
-                .setTitle("数据导出")
-                // 【修正 1】更新提示信息，显示用户专属文件名
-                .setMessage("确定将当前 " + accounts.size() + " 条记录导出到 " + fileName + " 文件吗？(此操作会覆盖旧备份)")
-                .setPositiveButton("确定", (dialog, which) -> {
-                    String json = FileUtil.convertAccountsToJson(accounts);
-
-                    // 【修正 2】使用用户专属文件名进行保存
-                    if (FileUtil.saveToFile(MainActivity.this, fileName, json)) {
-                        Toast.makeText(MainActivity.this, "数据导出成功 (" + accounts.size() + "条)", Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(MainActivity.this, "数据导出失败", Toast.LENGTH_SHORT).show();
-                    }
+                .setTitle("压缩备份文件")
+                .setSingleChoiceItems(labels, selected[0], (dialog, which) -> selected[0] = which)
+                .setPositiveButton("导出", (dialog, which) -> {
+                    int level = levels[selected[0]];
+                    PrefsManager.setBackupCompressionLevel(this, level);
+                    exportAccounts(fileName, format, level);
                 })
                 .setNegativeButton("取消", null)
                 .show();
     }
 
+    private void exportAccounts(String fileName, FileUtil.BackupFormat format, int compressionLevel) {
+        TransferProgress progress = new TransferProgress("正在导出");
+        // 逐页读取并流式写入文件，不把全部记录读入内存；【修正 2】使用用户专属文件名进行保存
+        progress.task = DBExecutor.getInstance().submit(
+                signal -> FileUtil.exportBaseBackup(MainActivity.this, dbHelper, currentUserId, fileName, format, compressionLevel, progress, signal),
+                new DBExecutor.Callback<Long>() {
+                    @Override
+                    public void onResult(Long exported) {
+                        progress.dismiss();
+                        Toast.makeText(MainActivity.this, "数据导出成功 (" + exported + "条)", Toast.LENGTH_SHORT).show();
+                    }
 
-    // 导入确认对话框 (Dialog)
-    private void showImportDialog() {
-        String fileName = getBackupFileName(); // 使用用户专属文件名
+                    @Override
+                    public void onError(Exception e) {
+                        DBExecutor.Callback.super.onError(e);
+                        progress.dismiss();
+                        Toast.makeText(MainActivity.this, "数据导出失败", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
 
-        // 【修正 3】读取用户专属备份文件
-        String json = FileUtil.readFromFile(this, fileName);
-        if (json == null) {
-            // 更新提示信息，明确告诉用户找不到谁的备份文件
-            Toast.makeText(this, "找不到当前用户 (" + currentUserId + ") 的备份文件: " + fileName, Toast.LENGTH_LONG).show();
-            return;
+    // 增量备份：只写出上次备份之后的变更，耗时与变更条数成正比
+    private void exportIncrement(String fileName, FileUtil.BackupFormat format, int compressionLevel) {
+        TransferProgress progress = new TransferProgress("正在导出变更");
+        progress.task = DBExecutor.getInstance().submit(
+                signal -> FileUtil.exportIncrementalBackup(MainActivity.this, dbHelper, currentUserId, fileName, format, compressionLevel, progress, signal),
+                new DBExecutor.Callback<Long>() {
+                    @Override
+                    public void onResult(Long changes) {
+                        progress.dismiss();
+                        String message = changes == 0 ? "上次备份之后没有变更" : "增量备份成功 (" + changes + "条变更)";
+                        Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        DBExecutor.Callback.super.onError(e);
+                        progress.dismiss();
+                        Toast.makeText(MainActivity.this, "增量备份失败", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    // 当前记录数与是否可以增量备份，用于导出确认
+    private static final class ExportPreview {
+        final long count;
+        final boolean canExportIncrement;
+
+        ExportPreview(long count, boolean canExportIncrement) {
+            this.count = count;
+            this.canExportIncrement = canExportIncrement;
         }
+    }
 
-        List<Account> accounts = FileUtil.convertJsonToAccounts(json);
-        if (accounts.isEmpty()) {
-            Toast.makeText(this, "备份文件数据为空或格式错误", Toast.LENGTH_SHORT).show();
-            return;
+    /**
+     * 导出/导入进度对话框。进度由后台线程回调，切换到主线程更新；
+     * 点击“取消”时取消任务 (结果不再回调，已写入的临时文件由任务自行清理)。
+     */
+    private final class TransferProgress implements FileUtil.ProgressListener {
+        private final AlertDialog dialog;
+        private final ProgressBar progressBar;
+        DBExecutor.Task task;
+
+        TransferProgress(String title) {
+            progressBar = new ProgressBar(MainActivity.this, null, android.R.attr.progressBarStyleHorizontal);
+            progressBar.setIndeterminate(true); // 第一页写完之前总数未知
+            int padding = (int) (24 * getResources().getDisplayMetrics().density);
+            progressBar.setPadding(padding, padding, padding, 0);
+            dialog = new AlertDialog.Builder(MainActivity.this)
+                    .setTitle(title)
+                    .setView(progressBar)
+                    .setCancelable(false)
+                    .setNegativeButton("取消", (d, which) -> cancel())
+                    .show();
+            transferProgress = this;
         }
 
-        // 获取当前用户的所有记录的总数
-        int currentAccountCount = dbHelper.getFilteredAccounts(currentUserId, null, null, null, null, currentOrderBy).size();
+        @Override
+        public void onProgress(long done, long total) {
+            if (total <= 0) return;
+            int permille = (int) (done * 1000 / total); // 导出按条数、导入按字节数，统一换算为千分比
+            runOnUiThread(() -> {
+                progressBar.setIndeterminate(false);
+                progressBar.setMax(1000);
+                progressBar.setProgress(permille);
+            });
+        }
 
-        new AlertDialog.Builder(this)
-                .setTitle("数据导入")
-                .setMessage("导入将清空并覆盖现有 " + currentAccountCount + " 条数据，确定导入备份文件中的 " + accounts.size() + " 条数据吗？")
-                .setPositiveButton("确定", (dialog, which) -> {
-                    dbHelper.deleteAllAccounts(currentUserId); // 清空当前用户的记录
-                    for (Account account : accounts) {
-                        account.setId(0);
-                        account.setUserId(currentUserId); // 这一步是关键，确保导入的记录属于当前用户
-                        dbHelper.addAccount(account);
+        void cancel() {
+            if (task != null) task.cancel();
+            dismiss();
+        }
+
+        void dismiss() {
+            dialog.dismiss();
+            if (transferProgress == this) transferProgress = null;
+        }
+    }
+
+
+    // 导入确认对话框 (Dialog)：备份文件在确认后才流式解析，这里只在后台读取文件大小和当前记录数
+    private void showImportDialog() {
+        String fileName = getBackupFileName(); // 使用用户专属文件名
+
+        DBExecutor.getInstance().submit(signal -> {
+            // 【修正 3】读取用户专属备份文件
+            File file = getFileStreamPath(fileName);
+            if (!file.isFile()) return null;
+            // 获取当前用户的所有记录的总数
+            return new ImportPreview(file.length(), dbHelper.getAccountCount(currentUserId));
+        }, preview -> {
+            if (isDestroyed()) return;
+            if (preview == null) {
+                // 更新提示信息，明确告诉用户找不到谁的备份文件
+                Toast.makeText(this, "找不到当前用户 (" + currentUserId + ") 的备份文件: " + fileName, Toast.LENGTH_LONG).show();
+                return;
+            }
+
+            new AlertDialog.Builder(this)
+                    .setTitle("数据导入")
+                    .setMessage("备份文件 " + fileName + " (" + Formatter.formatShortFileSize(this, preview.fileSize) + ")\n"
+                            + "覆盖导入：清空现有 " + preview.currentCount + " 条数据后导入备份\n"
+                            + "合并导入：保留现有数据，只导入备份中没有的记录")
+                    .setPositiveButton("覆盖导入", (dialog, which) -> importAccounts(fileName))
+                    .setNeutralButton("合并导入", (dialog, which) -> mergeAccounts(fileName))
+                    .setNegativeButton("取消", null)
+                    .show();
+        });
+    }
+
+    private void importAccounts(String fileName) {
+        TransferProgress progress = new TransferProgress("正在导入");
+        // 边解析边写入，清空并导入在同一个事务中完成，导入的记录全部归属当前用户；有增量备份时一并恢复
+        progress.task = DBExecutor.getInstance().submit(
+                signal -> FileUtil.restoreAccounts(MainActivity.this, dbHelper, currentUserId, fileName, progress, signal),
+                new DBExecutor.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer imported) {
+                        progress.dismiss();
+                        if (imported == 0) {
+                            Toast.makeText(MainActivity.this, "备份文件数据为空或格式错误", Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        // 重置筛选器并加载新数据
+                        currentTypeFilter = null;
+                        currentCategoryFilter = null;
+                        setFilterToLast30Days();
+                        loadAccounts();
+                        Toast.makeText(MainActivity.this, "数据导入成功 (" + imported + "条)", Toast.LENGTH_SHORT).show();
                     }
-                    // 重置筛选器并加载新数据
-                    currentTypeFilter = null;
-                    currentCategoryFilter = null;
-                    setFilterToLast30Days();
-                    loadAccounts();
-                    Toast.makeText(MainActivity.this, "数据导入成功 (" + accounts.size() + "条)", Toast.LENGTH_SHORT).show();
-                })
-                .setNegativeButton("取消", null)
-                .show();
+
+                    @Override
+                    public void onError(Exception e) {
+                        DBExecutor.Callback.super.onError(e);
+                        progress.dismiss();
+                        // 整个导入在一个事务中，失败时原数据保持不变
+                        Toast.makeText(MainActivity.this, "备份文件数据为空或格式错误，原数据未修改", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void mergeAccounts(String fileName) {
+        TransferProgress progress = new TransferProgress("正在合并");
+        // 不删除现有记录：内容相同的跳过，本机修改过的保留本机版本，新记录在一个事务中批量插入
+        progress.task = DBExecutor.getInstance().submit(
+                signal -> FileUtil.mergeAccounts(MainActivity.this, dbHelper, currentUserId, fileName, progress, signal),
+                new DBExecutor.Callback<MergeResult>() {
+                    @Override
+                    public void onResult(MergeResult result) {
+                        progress.dismiss();
+                        if (result.getTotal() == 0) {
+                            Toast.makeText(MainActivity.this, "备份文件数据为空或格式错误", Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        if (result.getInserted() > 0) {
+                            loadAccounts();
+                        }
+                        Toast.makeText(MainActivity.this, "合并完成：新增 " + result.getInserted() + " 条，重复 "
+                                + result.getSkipped() + " 条，冲突 " + result.getConflicting() + " 条 (保留本机版本)",
+                                Toast.LENGTH_LONG).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        DBExecutor.Callback.super.onError(e);
+                        progress.dismiss();
+                        Toast.makeText(MainActivity.this, "备份文件数据为空或格式错误，原数据未修改", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    // 备份文件大小与当前记录数，用于导入确认
+    private static final class ImportPreview {
+        final long fileSize;
+        final long currentCount;
+
+        ImportPreview(long fileSize, long currentCount) {
+            this.fileSize = fileSize;
+            this.currentCount = currentCount;
+        }
     }
 
 
     // --- 筛选/排序逻辑 (与之前保持一致) ---
 
+    // 初始化时 Spinner 会回调一次当前 (默认) 选项：排序未变化时不重新查询
+    private void setSortOrder(DBHelper.SortOrder sortOrder) {
+        if (sortOrder == currentSortOrder) return;
+        currentSortOrder = sortOrder;
+        loadAccounts();
+    }
+
     private void initFilterSpinner() {
         Spinner sortSpinner = findViewById(R.id.spinner_sort_mode);
         ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(this,
@@ -276,22 +709,22 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 String selected = parent.getItemAtPosition(position).toString();
+                DBHelper.SortOrder sortOrder = currentSortOrder;
                 if (selected.contains("最新优先")) {
-                    currentOrderBy = DBHelper.COLUMN_DATE + " DESC, " + DBHelper.COLUMN_ID + " DESC";
+                    sortOrder = DBHelper.SortOrder.DATE_DESC;
                 } else if (selected.contains("最早优先")) {
-                    currentOrderBy = DBHelper.COLUMN_DATE + " ASC, " + DBHelper.COLUMN_ID + " ASC";
+                    sortOrder = DBHelper.SortOrder.DATE_ASC;
                 } else if (selected.contains("金额最高")) {
-                    currentOrderBy = DBHelper.COLUMN_AMOUNT + " DESC";
+                    sortOrder = DBHelper.SortOrder.AMOUNT_DESC;
                 } else if (selected.contains("金额最低")) {
-                    currentOrderBy = DBHelper.COLUMN_AMOUNT + " ASC";
+                    sortOrder = DBHelper.SortOrder.AMOUNT_ASC;
                 }
-                loadAccounts();
+                setSortOrder(sortOrder);
             }
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) {
-                currentOrderBy = DBHelper.COLUMN_DATE + " DESC, " + DBHelper.COLUMN_ID + " DESC";
-                loadAccounts();
+                setSortOrder(DBHelper.SortOrder.DATE_DESC);
             }
         });
     }
@@ -362,40 +795,32 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void showDatePickerDialog(EditText dateEditText) {
-        Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        long initialDay = DateUtil.todayEpochDay();
 
         // 尝试解析 EditText 中的当前日期
         String currentText = dateEditText.getText().toString();
         if (!currentText.isEmpty()) {
             try {
-                Date date = sdf.parse(currentText);
-                if (date != null) {
-                    calendar.setTime(date);
-                }
-            } catch (Exception e) {
+                initialDay = DateUtil.parseEpochDay(currentText);
+            } catch (IllegalArgumentException e) {
                 // 解析失败，使用当前日期
             }
         }
 
+        // DatePickerDialog 的月份从 0 开始
         new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
-            Calendar selectedDate = Calendar.getInstance();
-            selectedDate.set(year, month, dayOfMonth);
-            String dateString = sdf.format(selectedDate.getTime());
-            dateEditText.setText(dateString);
-        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+            dateEditText.setText(DateUtil.format(year, month + 1, dayOfMonth));
+        }, DateUtil.yearOf(initialDay), DateUtil.monthOf(initialDay) - 1, DateUtil.dayOfMonthOf(initialDay)).show();
     }
 
     // 设置默认筛选范围为最近 30 天
     private void setFilterToLast30Days() {
-        Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        long today = DateUtil.todayEpochDay();
 
         // 设置结束日期为今天
-        currentEndDate = sdf.format(calendar.getTime());
+        currentEndDate = DateUtil.formatEpochDay(today);
 
         // 设置开始日期为 30 天前
-        calendar.add(Calendar.DAY_OF_YEAR, -29);
-        currentStartDate = sdf.format(calendar.getTime());
+        currentStartDate = DateUtil.formatEpochDay(today - 29);
     }
-}
\ No newline at end of file
+}
@@ -1,105 +1,449 @@
 package com.example.smartaccountingapp.adapter;
 
 import android.content.Context;
+import android.database.CharArrayBuffer;
 import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.smartaccountingapp.R;
 import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.util.AccountCursor;
+import com.example.smartaccountingapp.util.AccountPages;
+import com.example.smartaccountingapp.util.DBHelper;
+import com.example.smartaccountingapp.util.MoneyUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * 记录列表适配器，支持两种数据来源：
+ * List 模式 (updateData) 用于条数有限的结果，例如搜索结果；
+ * 分页模式 (submitPages) 用于完整的筛选列表：数据是键集分页加载的若干页 (DBHelper.loadAccountsPage)，
+ * 直接从各页 Cursor 绑定可见行，不为每条记录创建对象；滚动到距已加载末尾 PREFETCH_DISTANCE 行以内时
+ * 通过 OnLoadMoreListener 请求下一页，加载完成后由 appendPage 追加。
+ * <p>
+ * 两种模式都以记录 _id 作为稳定 id，并在后台线程计算新旧数据的差异，只通知实际变化的行：
+ * 新增、修改或删除一条记录时只重新绑定这一行，其余可见行保持不变并保留条目动画。
+ * 分页模式只比较已加载的各页，差异计算的耗时与已加载的行数成正比。
+ * <p>
+ * 绑定过程不分配对象：List 模式的金额文本、颜色和图标在数据载入时按行算好；
+ * 分页模式把日期、备注和格式化后的金额写入 ViewHolder 自带的缓冲区，再用 setText(char[], int, int) 交给 TextView
+ * (TextView 复用自己的 CharWrapper 包装缓冲区，不生成 String)。余下的分配来自 TextView / ImageView 内部
+ * (重新布局文字、加载图标)，与绑定方式无关。
+ * 点击监听器在创建 ViewHolder 时设置一次，点击时按 ViewHolder 的当前位置取记录 _id。
+ */
 public class AccountAdapter extends RecyclerView.Adapter<AccountAdapter.ViewHolder> {
 
-    private final List<Account> accountList;
+    // 距离已加载末尾不足这么多行时请求下一页
+    private static final int PREFETCH_DISTANCE = 15;
+
+    // 差异计算在同一个后台线程串行执行
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private static final DiffUtil.ItemCallback<AccountRow> ROW_DIFF = new DiffUtil.ItemCallback<AccountRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AccountRow oldRow, @NonNull AccountRow newRow) {
+            return oldRow.account.getId() == newRow.account.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AccountRow oldRow, @NonNull AccountRow newRow) {
+            Account oldItem = oldRow.account;
+            Account newItem = newRow.account;
+            return oldItem.getTypeId() == newItem.getTypeId()
+                    && oldItem.getCategoryId() == newItem.getCategoryId()
+                    && oldItem.getAmountCents() == newItem.getAmountCents()
+                    && Objects.equals(oldItem.getDate(), newItem.getDate())
+                    && Objects.equals(oldItem.getNote(), newItem.getNote());
+        }
+    };
+
+    private final AsyncListDiffer<AccountRow> differ; // List 模式的数据
+    private boolean pagedMode; // true 时显示 pages，否则显示 differ 的列表
+    private final List<AccountCursor> pages = new ArrayList<>(); // 分页模式已加载的各页
+    private int[] pageStarts = new int[0]; // 每一页第一行在列表中的位置
+    private int pagedCount; // 已加载的行数
+    private int pageSize;
+    private boolean hasMorePages; // 最后一页是满页，之后可能还有记录
+    private int refreshGeneration; // 每次整体替换数据时递增，丢弃过期的差异计算结果
+    private boolean refreshPending; // 正在计算差异：期间不追加新页，避免与差异的旧数据不一致
+    private int pagesVersion; // 已加载的页每次变化时递增，丢弃过期的加载请求
+    private boolean loadMorePosted;
+    private OnLoadMoreListener loadMoreListener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final Context context;
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
         void onDeleteClick(int accountId);
-        void onItemClick(Account account);
+        void onItemClick(int accountId);
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
         this.listener = listener;
     }
 
+    /**
+     * 分页模式需要下一页时调用 (在主线程)。加载完成后调用 appendPage(after, page)；
+     * 同一时间只需要一个加载任务，重复的请求可以忽略。
+     */
+    public interface OnLoadMoreListener {
+        /**
+         * @param after 已加载的最后一条记录，下一页从它之后开始
+         */
+        void onLoadMore(Account after);
+    }
+
+    public void setOnLoadMoreListener(OnLoadMoreListener loadMoreListener) {
+        this.loadMoreListener = loadMoreListener;
+    }
+
     public AccountAdapter(Context context, List<Account> accountList) {
         this.context = context;
-        this.accountList = accountList;
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+                new AsyncDifferConfig.Builder<>(ROW_DIFF).setBackgroundThreadExecutor(DIFF_EXECUTOR).build());
+        setHasStableIds(true);
+        if (!accountList.isEmpty()) {
+            differ.submitList(toRows(accountList));
+        }
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_account, parent, false);
-        return new ViewHolder(view);
-    }
+        ViewHolder holder = new ViewHolder(view);
 
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Account account = accountList.get(position);
-
-        holder.tvCategory.setText(account.getCategory());
-        holder.tvNote.setText(account.getNote());
-
-        // 【核心修改】绑定日期字段
-        holder.tvDate.setText(account.getDate());
-
-        // 根据类型设置金额显示颜色和符号
-        if (account.getType().equals("支出")) {
-            holder.tvAmount.setTextColor(Color.RED);
-            holder.tvAmount.setText(String.format(Locale.getDefault(), "-%.2f", account.getAmount()));
-        } else {
-            holder.tvAmount.setTextColor(Color.GREEN);
-            holder.tvAmount.setText(String.format(Locale.getDefault(), "+%.2f", account.getAmount()));
-        }
-
-        // 设置删除点击事件
+        // 监听器只创建一次，点击时按 ViewHolder 的当前位置取记录 _id。设置删除点击事件
         holder.ivDelete.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onDeleteClick(account.getId());
+            int pos = holder.getBindingAdapterPosition();
+            if (listener != null && pos != RecyclerView.NO_POSITION) {
+                listener.onDeleteClick((int) getItemId(pos));
             }
         });
 
         // 设置列表项点击事件 (用于编辑)
         holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemClick(account);
+            int pos = holder.getBindingAdapterPosition();
+            if (listener != null && pos != RecyclerView.NO_POSITION) {
+                listener.onItemClick((int) getItemId(pos));
             }
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        if (pagedMode) {
+            maybeLoadMore(position);
+            AccountCursor cursor = moveToPosition(position);
+            if (cursor == null) return;
+            int typeId = cursor.getTypeId();
+            holder.tvCategory.setText(cursor.getCategory()); // 字典中的名称，不读字符串列
+            cursor.copyNoteToBuffer(holder.noteBuffer);
+            holder.tvNote.setText(holder.noteBuffer.data, 0, holder.noteBuffer.sizeCopied);
+
+            // 【核心修改】绑定日期字段
+            cursor.copyDateToBuffer(holder.dateBuffer);
+            holder.tvDate.setText(holder.dateBuffer.data, 0, holder.dateBuffer.sizeCopied);
 
-        // 示例：根据类别设置图标
-        holder.ivIcon.setImageResource(getCategoryIcon(account.getCategory()));
+            // 根据类型设置金额显示颜色和符号
+            int length = MoneyUtil.formatTo(holder.amountBuffer, amountSign(typeId), cursor.getAmountCents());
+            holder.tvAmount.setText(holder.amountBuffer, 0, length);
+            holder.tvAmount.setTextColor(amountColor(typeId));
+
+            // 示例：根据类别设置图标
+            holder.ivIcon.setImageResource(getCategoryIcon(cursor.getCategoryId()));
+        } else {
+            AccountRow row = differ.getCurrentList().get(position);
+            holder.tvCategory.setText(row.account.getCategory());
+            holder.tvNote.setText(row.account.getNote());
+            holder.tvDate.setText(row.account.getDate());
+            holder.tvAmount.setText(row.amountText);
+            holder.tvAmount.setTextColor(row.amountColor);
+            holder.ivIcon.setImageResource(row.iconRes);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return accountList.size();
+        return pagedMode ? pagedCount : differ.getCurrentList().size();
+    }
+
+    // 稳定 id：记录的 _id
+    @Override
+    public long getItemId(int position) {
+        if (pagedMode) {
+            int index = pageIndexOf(position);
+            return pages.get(index).getItemIds()[position - pageStarts[index]];
+        }
+        return differ.getCurrentList().get(position).account.getId();
     }
 
     /**
-     * 用于在 MainActivity 筛选或编辑后更新 RecyclerView 数据
+     * 取指定位置的完整记录
+     */
+    public Account getItem(int position) {
+        if (pagedMode) {
+            AccountCursor cursor = moveToPosition(position);
+            return cursor != null ? cursor.getAccount() : null;
+        }
+        return differ.getCurrentList().get(position).account;
+    }
+
+    /**
+     * 分页模式已加载的行数，刷新时按这个范围重新加载；List 模式返回 0
+     */
+    public int getLoadedCount() {
+        return pagedMode ? pagedCount : 0;
+    }
+
+    // 包含 position 的页的下标
+    private int pageIndexOf(int position) {
+        int index = Arrays.binarySearch(pageStarts, position);
+        if (index < 0) return -index - 2;
+        // 空页与下一页的起点相同：取最后一个起点为 position 的页
+        while (index + 1 < pageStarts.length && pageStarts[index + 1] == position) index++;
+        return index;
+    }
+
+    // 把 position 所在页的 Cursor 移到对应行；失败时返回 null
+    private AccountCursor moveToPosition(int position) {
+        int index = pageIndexOf(position);
+        AccountCursor cursor = pages.get(index);
+        return cursor.moveToPosition(position - pageStarts[index]) ? cursor : null;
+    }
+
+    // 绑定到接近已加载末尾的行时请求下一页；请求在绑定之后发出，不在布局过程中修改数据
+    private void maybeLoadMore(int position) {
+        if (!hasMorePages || refreshPending || loadMorePosted || loadMoreListener == null
+                || position < pagedCount - PREFETCH_DISTANCE) {
+            return;
+        }
+        loadMorePosted = true;
+        final int version = pagesVersion;
+        mainHandler.post(() -> {
+            loadMorePosted = false;
+            if (version != pagesVersion || !hasMorePages || refreshPending || loadMoreListener == null) return;
+            AccountCursor last = pages.get(pages.size() - 1);
+            last.moveToLast();
+            loadMoreListener.onLoadMore(last.getAccount());
+        });
+    }
+
+    /**
+     * 显示一组记录 (List 模式)，差异在后台线程计算后再通知列表。
+     * 调用方传入的是有上限的结果 (例如搜索结果)，显示字段在这里一次算好。
      */
     public void updateData(List<Account> newAccountList) {
-        this.accountList.clear();
-        this.accountList.addAll(newAccountList);
+        if (pagedMode) {
+            // 从分页模式切换过来：先清空，再由 differ 插入新列表
+            refreshGeneration++;
+            refreshPending = false;
+            pagedMode = false;
+            setPages(null);
+            notifyDataSetChanged();
+        }
+        differ.submitList(toRows(newAccountList));
+    }
+
+    /**
+     * 显示重新加载的各页 (分页模式)。已处于分页模式时，在后台线程按已加载的 _id 计算差异，
+     * 再替换并只通知变化的行；否则立即替换并刷新整个列表。旧的页会被关闭。
+     * @param changedIds 自上次加载以来内容被修改的记录 _id (升序)，这些行即使位置不变也会重新绑定；
+     *                   为 null 表示所有行都可能变化 (例如导入)
+     */
+    public void submitPages(AccountPages newPages, long[] changedIds) {
+        final int generation = ++refreshGeneration;
+        if (!pagedMode) {
+            replacePages(newPages);
+            return;
+        }
+        refreshPending = true;
+        final long[] oldIds = loadedIds(pages, pagedCount);
+        final long[] newIds = loadedIds(newPages.getPages(), newPages.getCount());
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new IdDiffCallback(oldIds, newIds, changedIds));
+            mainHandler.post(() -> {
+                if (generation != refreshGeneration) {
+                    newPages.close(); // 已有更新的数据
+                    return;
+                }
+                refreshPending = false;
+                setPages(newPages);
+                diff.dispatchUpdatesTo(AccountAdapter.this);
+            });
+        });
+    }
+
+    /**
+     * 立即切换到 newPages 并刷新整个列表，旧的页会被关闭。
+     * 传入 null 时清空列表 (例如 Activity 销毁时释放 Cursor)。
+     */
+    public void swapPages(AccountPages newPages) {
+        refreshGeneration++;
+        replacePages(newPages);
+    }
+
+    /**
+     * 在已加载的末尾追加一页 (OnLoadMoreListener 请求的结果)。
+     * 如果期间列表已被刷新或替换 (after 不再是已加载的最后一条)，丢弃并关闭这一页，之后滚动时会重新请求。
+     */
+    public void appendPage(Account after, AccountCursor page) {
+        if (!pagedMode || refreshPending || !hasMorePages || after == null
+                || after.getId() != getItemId(pagedCount - 1)) {
+            page.close();
+            return;
+        }
+        int start = pagedCount;
+        pages.add(page);
+        onPagesChanged();
+        if (page.getCount() > 0) {
+            notifyItemRangeInserted(start, page.getCount());
+        }
+    }
+
+    private void replacePages(AccountPages newPages) {
+        refreshPending = false;
+        if (!pagedMode) {
+            differ.submitList(null); // 离开 List 模式
+            pagedMode = true;
+        }
+        setPages(newPages);
         notifyDataSetChanged();
     }
 
-    // 示例：获取类别图标
-    private int getCategoryIcon(String category) {
-        switch (category) {
-            case "餐饮": return R.drawable.ic_food;
-            case "交通": return R.drawable.ic_transport;
-            case "购物": return R.drawable.ic_shopping;
-            case "学习": return R.drawable.ic_study;
-            case "娱乐": return R.drawable.ic_entertainment;
+    // 关闭旧的页并换成 newPages (可以为 null)
+    private void setPages(AccountPages newPages) {
+        for (AccountCursor page : pages) {
+            page.close();
+        }
+        pages.clear();
+        if (newPages != null) {
+            pages.addAll(newPages.getPages());
+            pageSize = newPages.getPageSize();
+        }
+        onPagesChanged();
+    }
+
+    private void onPagesChanged() {
+        pagesVersion++;
+        int[] starts = new int[pages.size()];
+        int count = 0;
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = count;
+            count += pages.get(i).getCount();
+        }
+        pageStarts = starts;
+        pagedCount = count;
+        hasMorePages = !pages.isEmpty() && pages.get(pages.size() - 1).getCount() == pageSize;
+    }
+
+    // 各页 _id 依次拼接
+    private static long[] loadedIds(List<AccountCursor> pages, int count) {
+        long[] ids = new long[count];
+        int offset = 0;
+        for (AccountCursor page : pages) {
+            long[] pageIds = page.getItemIds();
+            System.arraycopy(pageIds, 0, ids, offset, pageIds.length);
+            offset += pageIds.length;
+        }
+        return ids;
+    }
+
+    /**
+     * 按 _id 比较新旧两组已加载的页：_id 相同即同一条记录；changedIds 中的记录视为内容已变化
+     */
+    private static final class IdDiffCallback extends DiffUtil.Callback {
+        private final long[] oldIds;
+        private final long[] newIds;
+        private final long[] changedIds;
+
+        IdDiffCallback(long[] oldIds, long[] newIds, long[] changedIds) {
+            this.oldIds = oldIds;
+            this.newIds = newIds;
+            this.changedIds = changedIds;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldIds.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newIds.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldIds[oldPosition] == newIds[newPosition];
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return changedIds != null && Arrays.binarySearch(changedIds, newIds[newPosition]) < 0;
+        }
+    }
+
+    private static List<AccountRow> toRows(List<Account> accounts) {
+        List<AccountRow> rows = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            rows.add(new AccountRow(account));
+        }
+        return rows;
+    }
+
+    /**
+     * List 模式的一行：记录及预先算好的显示字段
+     */
+    private static final class AccountRow {
+        final Account account;
+        final String amountText;
+        final int amountColor;
+        final int iconRes;
+
+        AccountRow(Account account) {
+            this.account = account;
+            char[] buffer = new char[MoneyUtil.FORMAT_BUFFER_SIZE];
+            int length = MoneyUtil.formatTo(buffer, amountSign(account.getTypeId()), account.getAmountCents());
+            this.amountText = new String(buffer, 0, length);
+            this.amountColor = amountColor(account.getTypeId());
+            this.iconRes = getCategoryIcon(account.getCategoryId());
+        }
+    }
+
+    // 支出显示为红色 "-"，收入为绿色 "+"
+    private static char amountSign(int typeId) {
+        return typeId == DBHelper.TYPE_EXPENSE ? '-' : '+';
+    }
+
+    private static int amountColor(int typeId) {
+        return typeId == DBHelper.TYPE_EXPENSE ? Color.RED : Color.GREEN;
+    }
+
+    // 示例：获取类别图标 (按字典 id，自定义类别使用默认图标)
+    private static int getCategoryIcon(int categoryId) {
+        switch (categoryId) {
+            case DBHelper.CATEGORY_FOOD: return R.drawable.ic_food;
+            case DBHelper.CATEGORY_TRANSPORT: return R.drawable.ic_transport;
+            case DBHelper.CATEGORY_SHOPPING: return R.drawable.ic_shopping;
+            case DBHelper.CATEGORY_STUDY: return R.drawable.ic_study;
+            case DBHelper.CATEGORY_ENTERTAINMENT: return R.drawable.ic_entertainment;
             default: return R.drawable.ic_other;
         }
     }
@@ -111,6 +455,10 @@ public class AccountAdapter extends RecyclerView.Adapter<AccountAdapter.ViewHold
         final TextView tvAmount;
         final ImageView ivDelete;
         final ImageView ivIcon;
+        // 分页模式绑定时复用的缓冲区
+        final CharArrayBuffer dateBuffer = new CharArrayBuffer(16);
+        final CharArrayBuffer noteBuffer = new CharArrayBuffer(64);
+        final char[] amountBuffer = new char[MoneyUtil.FORMAT_BUFFER_SIZE];
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
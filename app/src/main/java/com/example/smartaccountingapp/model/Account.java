@@ -1,27 +1,44 @@
 package com.example.smartaccountingapp.model;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.smartaccountingapp.util.MoneyUtil;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+
 import java.io.Serializable;
 
-public class Account implements Serializable {
+/**
+ * 一条记账记录。在 Bundle 中保存 (例如编辑页的 onSaveInstanceState) 时使用 Parcelable，
+ * 按字段顺序直接读写，不经过反射式的 Java 序列化。
+ */
+public class Account implements Serializable, Parcelable {
     private int id;
     private String userId; // 【新增】用户ID，用于区分不同用户的记录
     private String type; // 收入/支出
     private String category;
-    private double amount;
+    // 金额，单位为分；JSON 备份中仍以元表示，字段名保持 "amount"
+    @SerializedName("amount")
+    @JsonAdapter(MoneyUtil.YuanJsonAdapter.class)
+    private long amountCents;
     private String date; // YYYY-MM-DD
     private String note;
+    // 类型/类别在数据库中的字典 id，由 DBHelper 读取记录时填充 (0 表示未知)；不写入备份文件
+    private transient int typeId;
+    private transient int categoryId;
 
     public Account() {
         // 无参构造函数 (Gson 反序列化需要)
     }
 
     // 【修改】构造函数新增 userId 参数
-    public Account(int id, String userId, String type, String category, double amount, String date, String note) {
+    public Account(int id, String userId, String type, String category, long amountCents, String date, String note) {
         this.id = id;
         this.userId = userId;
         this.type = type;
         this.category = category;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.date = date;
         this.note = note;
     }
@@ -41,12 +58,62 @@ public class Account implements Serializable {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public int getTypeId() { return typeId; }
+    public void setTypeId(int typeId) { this.typeId = typeId; }
+
+    public int getCategoryId() { return categoryId; }
+    public void setCategoryId(int categoryId) { this.categoryId = categoryId; }
+
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
 
     public String getDate() { return date; }
     public void setDate(String date) { this.date = date; }
 
     public String getNote() { return note; }
     public void setNote(String note) { this.note = note; }
-}
\ No newline at end of file
+
+    // --- Parcelable ---
+
+    protected Account(Parcel in) {
+        id = in.readInt();
+        userId = in.readString();
+        type = in.readString();
+        category = in.readString();
+        amountCents = in.readLong();
+        date = in.readString();
+        note = in.readString();
+        typeId = in.readInt();
+        categoryId = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeString(userId);
+        dest.writeString(type);
+        dest.writeString(category);
+        dest.writeLong(amountCents);
+        dest.writeString(date);
+        dest.writeString(note);
+        dest.writeInt(typeId);
+        dest.writeInt(categoryId);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<Account> CREATOR = new Creator<Account>() {
+        @Override
+        public Account createFromParcel(Parcel in) {
+            return new Account(in);
+        }
+
+        @Override
+        public Account[] newArray(int size) {
+            return new Account[size];
+        }
+    };
+}
@@ -0,0 +1,68 @@
+package com.example.smartaccountingapp.model;
+
+/**
+ * 一次记录变更的通知：变更类型、所属用户、记录 id 以及受影响的日期 (纪元日)。
+ * 修改记录时新旧日期都可能受影响；批量导入/清空等操作以 RESET 通知，表示该用户的全部数据都可能变化。
+ */
+public class AccountChange {
+
+    public enum Kind { INSERT, UPDATE, DELETE, RESET }
+
+    // 不涉及该日期 (例如新增记录没有旧日期)
+    public static final long NO_DAY = Long.MIN_VALUE;
+
+    private final Kind kind;
+    private final String userId;
+    private final long accountId;
+    private final long oldDay;
+    private final long newDay;
+
+    private AccountChange(Kind kind, String userId, long accountId, long oldDay, long newDay) {
+        this.kind = kind;
+        this.userId = userId;
+        this.accountId = accountId;
+        this.oldDay = oldDay;
+        this.newDay = newDay;
+    }
+
+    public static AccountChange inserted(String userId, long accountId, long day) {
+        return new AccountChange(Kind.INSERT, userId, accountId, NO_DAY, day);
+    }
+
+    public static AccountChange updated(String userId, long accountId, long oldDay, long newDay) {
+        return new AccountChange(Kind.UPDATE, userId, accountId, oldDay, newDay);
+    }
+
+    public static AccountChange deleted(String userId, long accountId, long day) {
+        return new AccountChange(Kind.DELETE, userId, accountId, day, NO_DAY);
+    }
+
+    public static AccountChange reset(String userId) {
+        return new AccountChange(Kind.RESET, userId, -1, NO_DAY, NO_DAY);
+    }
+
+    public Kind getKind() { return kind; }
+    public String getUserId() { return userId; }
+    public long getAccountId() { return accountId; } // RESET 时为 -1
+    public long getOldDay() { return oldDay; }
+    public long getNewDay() { return newDay; }
+
+    /**
+     * 该变更是否影响 userId 在 [startDay, endDay] 内的数据
+     */
+    public boolean affects(String userId, long startDay, long endDay) {
+        if (this.userId == null || !this.userId.equals(userId)) return false;
+        if (kind == Kind.RESET) return true;
+        return inRange(oldDay, startDay, endDay) || inRange(newDay, startDay, endDay);
+    }
+
+    private static boolean inRange(long day, long startDay, long endDay) {
+        return day != NO_DAY && day >= startDay && day <= endDay;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountChange{" + kind + ", user=" + userId + ", id=" + accountId
+                + ", oldDay=" + oldDay + ", newDay=" + newDay + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.smartaccountingapp.model;
+
+/**
+ * 合并导入的结果：
+ * inserted 为新增的记录数；skipped 为内容与现有记录完全相同而跳过的记录数；
+ * conflicting 为与现有记录 id 相同但内容不同 (备份之后在本机修改过) 的记录数，这些记录保留本机版本，不导入；
+ * 只有备份来自本数据库、id 可以对应时才会出现冲突，其他来源的备份只按内容匹配。
+ */
+public class MergeResult {
+    private final int inserted;
+    private final int skipped;
+    private final int conflicting;
+
+    public MergeResult(int inserted, int skipped, int conflicting) {
+        this.inserted = inserted;
+        this.skipped = skipped;
+        this.conflicting = conflicting;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getConflicting() {
+        return conflicting;
+    }
+
+    /**
+     * 备份中读取的记录总数
+     */
+    public int getTotal() {
+        return inserted + skipped + conflicting;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.smartaccountingapp.model;
+
+/**
+ * 收支趋势图上的一个点：某一天 (yyyy-MM-dd) 或某个月 (yyyy-MM) 的收入、支出合计，单位：分。
+ */
+public class TrendPoint {
+    private final String timeKey;
+    private final long incomeCents;
+    private final long expenseCents;
+
+    public TrendPoint(String timeKey, long incomeCents, long expenseCents) {
+        this.timeKey = timeKey;
+        this.incomeCents = incomeCents;
+        this.expenseCents = expenseCents;
+    }
+
+    public String getTimeKey() { return timeKey; }
+    public long getIncomeCents() { return incomeCents; }
+    public long getExpenseCents() { return expenseCents; }
+}
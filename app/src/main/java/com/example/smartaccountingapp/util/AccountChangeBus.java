@@ -0,0 +1,39 @@
+package com.example.smartaccountingapp.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.smartaccountingapp.model.AccountChange;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内的记录变更通知：DBHelper 在写入提交后发布 {@link AccountChange}，界面和缓存据此只刷新受影响的部分。
+ * 写入可能发生在任意线程，监听器统一在主线程按注册顺序回调。
+ */
+public class AccountChangeBus {
+
+    public interface Listener {
+        void onAccountChanged(AccountChange change);
+    }
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public void register(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void unregister(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void publish(AccountChange change) {
+        if (listeners.isEmpty()) return;
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onAccountChanged(change);
+            }
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.smartaccountingapp.util;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+import com.example.smartaccountingapp.model.Account;
+
+/**
+ * 记录列表的 Cursor：按列名读取当前行的字段，供列表直接绑定界面。
+ * 数据由 SQLiteCursor 按窗口 (CursorWindow) 分批读入，内存占用与窗口大小有关，与结果总行数无关；
+ * 只有需要完整记录时 (例如进入编辑页) 才用 {@link #getAccount()} 创建 Account。
+ * 由 {@link DBHelper#queryAccounts} / {@link DBHelper#loadAccountsPage} 等创建，使用完毕后需要 close()。
+ */
+public class AccountCursor extends CursorWrapper {
+    private final Cursor cursor;
+    private final AccountCursorMapper mapper;
+    private final long[] itemIds;
+
+    AccountCursor(Cursor cursor, AccountCursorMapper mapper) {
+        this(cursor, mapper, null);
+    }
+
+    AccountCursor(Cursor cursor, AccountCursorMapper mapper, long[] itemIds) {
+        super(cursor);
+        this.cursor = cursor;
+        this.mapper = mapper;
+        this.itemIds = itemIds;
+    }
+
+    /**
+     * 从同一个 Cursor 读出的本页全部 _id (按结果顺序)，用于列表稳定 id 和差异计算；
+     * 只有 loadAccountsPage 创建的页带有，其他情况为 null。返回的数组不可修改。
+     */
+    public long[] getItemIds() {
+        return itemIds;
+    }
+
+    public int getId() {
+        return mapper.readId(cursor);
+    }
+
+    public String getUserId() {
+        return mapper.readUserId(cursor);
+    }
+
+    public int getTypeId() {
+        return mapper.readTypeId(cursor);
+    }
+
+    public int getCategoryId() {
+        return mapper.readCategoryId(cursor);
+    }
+
+    // 类型名称 (由内存字典解析，不读字符串列)
+    public String getType() {
+        return mapper.readType(cursor);
+    }
+
+    // 类别名称 (由内存字典解析，不读字符串列)
+    public String getCategory() {
+        return mapper.readCategory(cursor);
+    }
+
+    public long getAmountCents() {
+        return mapper.readAmountCents(cursor);
+    }
+
+    public String getDate() {
+        return mapper.readDate(cursor);
+    }
+
+    public String getNote() {
+        return mapper.readNote(cursor);
+    }
+
+    /**
+     * 把日期复制到 buffer (容量不足时自动扩容)，不创建 String，用于列表绑定
+     */
+    public void copyDateToBuffer(CharArrayBuffer buffer) {
+        mapper.copyDate(cursor, buffer);
+    }
+
+    /**
+     * 把备注复制到 buffer (容量不足时自动扩容)，不创建 String，用于列表绑定
+     */
+    public void copyNoteToBuffer(CharArrayBuffer buffer) {
+        mapper.copyNote(cursor, buffer);
+    }
+
+    /**
+     * 当前行转换为完整的 Account
+     */
+    public Account getAccount() {
+        return mapper.map(cursor);
+    }
+}
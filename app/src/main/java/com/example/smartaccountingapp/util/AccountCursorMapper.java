@@ -0,0 +1,129 @@
+package com.example.smartaccountingapp.util;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import com.example.smartaccountingapp.model.Account;
+
+/**
+ * 把 accounts 查询结果的一行转换为 Account。
+ * 列序号在构造时按列名解析一次，逐行只按序号取值；结果中不存在的列跳过。
+ * 列表类查询使用 {@link #LIST_PROJECTION}：不读 user_id (查询条件中已知，所有行共用同一个字符串)，
+ * 也不读仅用于索引的 day 列。
+ */
+final class AccountCursorMapper {
+
+    // 列表、分页、检索结果需要的列
+    static final String LIST_PROJECTION = DBHelper.COLUMN_ID + ", "
+            + DBHelper.COLUMN_TYPE_ID + ", "
+            + DBHelper.COLUMN_CATEGORY_ID + ", "
+            + DBHelper.COLUMN_AMOUNT + ", "
+            + DBHelper.COLUMN_DATE + ", "
+            + DBHelper.COLUMN_NOTE;
+
+    private final LookupCache typeCache;
+    private final LookupCache categoryCache;
+    private final String userId;
+
+    private final int idIndex;
+    private final int userIdIndex;
+    private final int typeIdIndex;
+    private final int categoryIdIndex;
+    private final int amountIndex;
+    private final int dateIndex;
+    private final int noteIndex;
+
+    /**
+     * @param userId 结果中没有 user_id 列时填入每条记录的用户 ID
+     */
+    AccountCursorMapper(Cursor cursor, LookupCache typeCache, LookupCache categoryCache, String userId) {
+        this.typeCache = typeCache;
+        this.categoryCache = categoryCache;
+        this.userId = userId;
+        idIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ID);
+        userIdIndex = cursor.getColumnIndex(DBHelper.COLUMN_USER_ID);
+        typeIdIndex = cursor.getColumnIndex(DBHelper.COLUMN_TYPE_ID);
+        categoryIdIndex = cursor.getColumnIndex(DBHelper.COLUMN_CATEGORY_ID);
+        amountIndex = cursor.getColumnIndex(DBHelper.COLUMN_AMOUNT);
+        dateIndex = cursor.getColumnIndex(DBHelper.COLUMN_DATE);
+        noteIndex = cursor.getColumnIndex(DBHelper.COLUMN_NOTE);
+    }
+
+    /**
+     * 转换 cursor 当前所在的行
+     */
+    Account map(Cursor cursor) {
+        Account account = new Account();
+        account.setId(readId(cursor));
+        account.setUserId(readUserId(cursor));
+        if (typeIdIndex >= 0) {
+            int typeId = readTypeId(cursor);
+            account.setTypeId(typeId);
+            account.setType(typeCache.nameOf(typeId));
+        }
+        if (categoryIdIndex >= 0) {
+            int categoryId = readCategoryId(cursor);
+            account.setCategoryId(categoryId);
+            account.setCategory(categoryCache.nameOf(categoryId));
+        }
+        if (amountIndex >= 0) account.setAmountCents(readAmountCents(cursor));
+        if (dateIndex >= 0) account.setDate(readDate(cursor));
+        if (noteIndex >= 0) account.setNote(readNote(cursor));
+        return account;
+    }
+
+    // --- 单列读取 (供 AccountCursor 直接绑定界面，不创建 Account) ---
+
+    int readId(Cursor cursor) {
+        return cursor.getInt(idIndex);
+    }
+
+    String readUserId(Cursor cursor) {
+        return userIdIndex >= 0 ? cursor.getString(userIdIndex) : userId;
+    }
+
+    int readTypeId(Cursor cursor) {
+        return typeIdIndex >= 0 ? cursor.getInt(typeIdIndex) : 0;
+    }
+
+    int readCategoryId(Cursor cursor) {
+        return categoryIdIndex >= 0 ? cursor.getInt(categoryIdIndex) : 0;
+    }
+
+    String readType(Cursor cursor) {
+        return typeCache.nameOf(readTypeId(cursor));
+    }
+
+    String readCategory(Cursor cursor) {
+        return categoryCache.nameOf(readCategoryId(cursor));
+    }
+
+    long readAmountCents(Cursor cursor) {
+        return amountIndex >= 0 ? cursor.getLong(amountIndex) : 0;
+    }
+
+    String readDate(Cursor cursor) {
+        return dateIndex >= 0 ? cursor.getString(dateIndex) : null;
+    }
+
+    String readNote(Cursor cursor) {
+        return noteIndex >= 0 ? cursor.getString(noteIndex) : null;
+    }
+
+    // 复制到调用方复用的缓冲区，不创建 String；列不存在或为 NULL 时长度为 0
+    void copyDate(Cursor cursor, CharArrayBuffer buffer) {
+        copy(cursor, dateIndex, buffer);
+    }
+
+    void copyNote(Cursor cursor, CharArrayBuffer buffer) {
+        copy(cursor, noteIndex, buffer);
+    }
+
+    private static void copy(Cursor cursor, int index, CharArrayBuffer buffer) {
+        if (index >= 0) {
+            cursor.copyStringToBuffer(index, buffer);
+        } else {
+            buffer.sizeCopied = 0;
+        }
+    }
+}
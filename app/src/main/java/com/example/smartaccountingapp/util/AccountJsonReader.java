@@ -0,0 +1,52 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 逐条读取 JSON 备份 (Account 数组，convertAccountsToJson / AccountJsonWriter 的格式)。
+ * 每次只解析一个数组元素，内存占用与文件大小无关；金额兼容旧版本的浮点元。
+ */
+final class AccountJsonReader implements AccountSource {
+
+    private static final TypeAdapter<Account> ADAPTER = new Gson().getAdapter(Account.class);
+
+    private final JsonReader reader;
+    private boolean started;
+    private boolean finished;
+
+    AccountJsonReader(Reader in) {
+        reader = new JsonReader(in);
+    }
+
+    @Override
+    public Account next() throws IOException {
+        if (finished) return null;
+        try {
+            if (!started) {
+                reader.beginArray();
+                started = true;
+            }
+            if (!reader.hasNext()) {
+                reader.endArray();
+                finished = true;
+                return null;
+            }
+            return ADAPTER.read(reader);
+        } catch (IllegalStateException | JsonParseException | NumberFormatException e) {
+            // 结构不符 (不是数组、字段类型错误等) 与语法错误一样按格式错误处理
+            throw new IOException("备份文件格式错误", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.smartaccountingapp.util;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 逐条写出 JSON 备份：输出与 Gson 序列化 List&lt;Account&gt; 的格式相同 (字段顺序、金额按元、null 字段省略)，
+ * 旧版本的导入代码可以直接读取。记录直接从 AccountCursor 的当前行写出，不创建 Account。
+ * 底层输出由调用方关闭 (未 finish 时 JsonWriter.close 会因文档不完整而抛出异常)。
+ */
+final class AccountJsonWriter implements AccountSink {
+
+    private static final MoneyUtil.YuanJsonAdapter AMOUNT_ADAPTER = new MoneyUtil.YuanJsonAdapter();
+
+    private final JsonWriter writer;
+
+    AccountJsonWriter(Writer out) throws IOException {
+        writer = new JsonWriter(out);
+        writer.setSerializeNulls(false); // 与 Gson 默认行为一致
+        writer.beginArray();
+    }
+
+    @Override
+    public void write(AccountCursor cursor) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(cursor.getId());
+        writer.name("userId").value(cursor.getUserId());
+        writer.name("type").value(cursor.getType());
+        writer.name("category").value(cursor.getCategory());
+        writer.name("amount");
+        AMOUNT_ADAPTER.write(writer, cursor.getAmountCents());
+        writer.name("date").value(cursor.getDate());
+        writer.name("note").value(cursor.getNote());
+        writer.endObject();
+    }
+
+    // 结束数组并刷新到底层输出
+    @Override
+    public void finish() throws IOException {
+        writer.endArray();
+        writer.flush();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.smartaccountingapp.util;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 列表已加载的连续若干页 (键集分页，每页一个已填充的 AccountCursor，带本页 _id)。
+ * 除最后一页外每页都是 pageSize 条；最后一页满页时可能还有更多记录。
+ * 由 {@link DBHelper#loadAccountPages} 创建；close() 关闭全部页，作为 DBExecutor 的结果时任务取消会自动关闭。
+ */
+public final class AccountPages implements Closeable {
+    private final List<AccountCursor> pages;
+    private final int pageSize;
+
+    AccountPages(List<AccountCursor> pages, int pageSize) {
+        this.pages = Collections.unmodifiableList(pages);
+        this.pageSize = pageSize;
+    }
+
+    public List<AccountCursor> getPages() {
+        return pages;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 已加载的行数
+     */
+    public int getCount() {
+        int count = 0;
+        for (AccountCursor page : pages) {
+            count += page.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * 最后一页是满页：之后可能还有记录，需要继续按页加载
+     */
+    public boolean hasMore() {
+        return !pages.isEmpty() && pages.get(pages.size() - 1).getCount() == pageSize;
+    }
+
+    @Override
+    public void close() {
+        for (AccountCursor page : pages) {
+            page.close();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录筛选条件 (不可变)，由 {@link Builder} 创建，交给 DBHelper 的 queryAccounts / getFilteredAccounts 等方法执行。
+ * 所有条件之间为 AND 关系，未设置的条件不参与筛选；排序只能是 {@link DBHelper.SortOrder} 中的一种。
+ * <p>
+ * SQL 文本只由查询的“形状” (设置了哪些条件、类别个数、排序方式、查询的列) 决定，条件的值全部作为参数绑定。
+ * 同一形状的 SQL 只拼接一次并缓存，每次得到同一个字符串，连接上已编译的语句 (statement cache) 可以直接复用，
+ * 重复执行相同形状的筛选不再拼接和解析 SQL。
+ */
+public final class AccountQuery {
+
+    // 查询的列与附加子句，属于 SQL 形状的一部分
+    enum Select {
+        LIST,       // 列表需要的列 (AccountCursorMapper.LIST_PROJECTION)
+        PAGE_FIRST, // 键集分页的第一页：LIST + LIMIT ?
+        PAGE_AFTER  // 键集分页的后续页：再加上从上一页末尾定位的条件
+    }
+
+    // 形状 -> SQL，进程内共享 (SQL 与数据库实例无关)
+    private static final ConcurrentHashMap<Integer, String> SQL_CACHE = new ConcurrentHashMap<>();
+
+    private final String userId;
+    private final String type;
+    private final List<String> categories;
+    private final Long startDay;
+    private final Long endDay;
+    private final Long minAmountCents;
+    private final Long maxAmountCents;
+    private final String noteContains;
+    private final DBHelper.SortOrder sortOrder;
+
+    private AccountQuery(Builder builder) {
+        userId = builder.userId;
+        type = builder.type;
+        categories = Collections.unmodifiableList(new ArrayList<>(builder.categories));
+        startDay = builder.startDay;
+        endDay = builder.endDay;
+        minAmountCents = builder.minAmountCents;
+        maxAmountCents = builder.maxAmountCents;
+        noteContains = builder.noteContains;
+        sortOrder = builder.sortOrder;
+    }
+
+    /**
+     * 当前用户的全部记录，按日期从新到旧
+     */
+    public static AccountQuery allOf(String userId) {
+        return new Builder(userId).build();
+    }
+
+    public String getUserId() { return userId; }
+    public String getType() { return type; } // null 表示不按类型筛选
+    public List<String> getCategories() { return categories; } // 空表示不按类别筛选
+    public Long getStartDay() { return startDay; }
+    public Long getEndDay() { return endDay; }
+    public Long getMinAmountCents() { return minAmountCents; }
+    public Long getMaxAmountCents() { return maxAmountCents; }
+    public String getNoteContains() { return noteContains; }
+    public DBHelper.SortOrder getSortOrder() { return sortOrder; }
+
+    /**
+     * 以当前条件为基础修改部分条件
+     */
+    public Builder buildUpon() {
+        return new Builder(this);
+    }
+
+    // --- SQL ---
+
+    /**
+     * 本查询形状对应的 SQL (缓存)，参数由 {@link #appendArgs} 按相同顺序生成
+     */
+    String sql(Select select) {
+        int shape = shape(select);
+        String sql = SQL_CACHE.get(shape);
+        if (sql == null) {
+            sql = buildSql(select);
+            SQL_CACHE.putIfAbsent(shape, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 按 SQL 中占位符的顺序追加参数。类型/类别名称由字典解析为 id，字典中不存在的名称解析为 -1，不匹配任何记录。
+     * PAGE_AFTER 需要上一页最后一条记录 after，PAGE_FIRST / PAGE_AFTER 需要 limit。
+     */
+    void appendArgs(LookupCache typeCache, LookupCache categoryCache, Account after, int limit, List<String> args) {
+        args.add(userId);
+        if (type != null) {
+            args.add(String.valueOf(lookupId(typeCache, type)));
+        }
+        for (String category : categories) {
+            args.add(String.valueOf(lookupId(categoryCache, category)));
+        }
+        if (startDay != null) {
+            // 日期在构建查询时已换算为纪元日，逐行比较的是整数
+            args.add(String.valueOf(startDay));
+            args.add(String.valueOf(endDay));
+        }
+        if (minAmountCents != null) args.add(String.valueOf(minAmountCents));
+        if (maxAmountCents != null) args.add(String.valueOf(maxAmountCents));
+        if (noteContains != null) args.add("%" + escapeLike(noteContains) + "%");
+        if (after != null) {
+            String key = sortOrder.getSeekKey(after);
+            args.add(key);
+            args.add(key);
+            args.add(String.valueOf(after.getId()));
+        }
+        if (limit > 0) args.add(String.valueOf(limit));
+    }
+
+    private static int lookupId(LookupCache cache, String name) {
+        int id = cache.idOf(name);
+        return id != 0 ? id : -1;
+    }
+
+    // 形状编码：各条件是否存在、排序、查询的列、类别个数
+    private int shape(Select select) {
+        int shape = 0;
+        if (type != null) shape |= 1;
+        if (startDay != null) shape |= 1 << 1;
+        if (minAmountCents != null) shape |= 1 << 2;
+        if (maxAmountCents != null) shape |= 1 << 3;
+        if (noteContains != null) shape |= 1 << 4;
+        shape |= sortOrder.ordinal() << 5;
+        shape |= select.ordinal() << 8;
+        shape |= categories.size() << 11;
+        return shape;
+    }
+
+    private String buildSql(Select select) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(AccountCursorMapper.LIST_PROJECTION);
+        sql.append(" FROM ").append(DBHelper.TABLE_ACCOUNT);
+
+        // 始终根据用户ID筛选
+        sql.append(" WHERE ").append(DBHelper.COLUMN_USER_ID).append(" = ?");
+        if (type != null) {
+            sql.append(" AND ").append(DBHelper.COLUMN_TYPE_ID).append(" = ?");
+        }
+        if (categories.size() == 1) {
+            sql.append(" AND ").append(DBHelper.COLUMN_CATEGORY_ID).append(" = ?");
+        } else if (!categories.isEmpty()) {
+            sql.append(" AND ").append(DBHelper.COLUMN_CATEGORY_ID).append(" IN (?");
+            for (int i = 1; i < categories.size(); i++) {
+                sql.append(", ?");
+            }
+            sql.append(')');
+        }
+        if (startDay != null) {
+            sql.append(" AND ").append(DBHelper.COLUMN_DAY).append(" BETWEEN ? AND ?");
+        }
+        if (minAmountCents != null) {
+            sql.append(" AND ").append(DBHelper.COLUMN_AMOUNT).append(" >= ?");
+        }
+        if (maxAmountCents != null) {
+            sql.append(" AND ").append(DBHelper.COLUMN_AMOUNT).append(" <= ?");
+        }
+        if (noteContains != null) {
+            sql.append(" AND ").append(DBHelper.COLUMN_NOTE).append(" LIKE ? ESCAPE '\\'");
+        }
+        if (select == Select.PAGE_AFTER) {
+            sql.append(" AND ").append(sortOrder.getSeekPredicate());
+        }
+        sql.append(" ORDER BY ").append(sortOrder.getOrderBy());
+        if (select == Select.PAGE_FIRST || select == Select.PAGE_AFTER) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    // LIKE 中的 % 和 _ 按普通字符匹配
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') escaped.append('\\');
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountQuery)) return false;
+        AccountQuery that = (AccountQuery) o;
+        return userId.equals(that.userId)
+                && Objects.equals(type, that.type)
+                && categories.equals(that.categories)
+                && Objects.equals(startDay, that.startDay)
+                && Objects.equals(endDay, that.endDay)
+                && Objects.equals(minAmountCents, that.minAmountCents)
+                && Objects.equals(maxAmountCents, that.maxAmountCents)
+                && Objects.equals(noteContains, that.noteContains)
+                && sortOrder == that.sortOrder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, type, categories, startDay, endDay, minAmountCents, maxAmountCents, noteContains, sortOrder);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountQuery{user=" + userId + ", type=" + type + ", categories=" + categories
+                + ", days=" + startDay + ".." + endDay + ", amount=" + minAmountCents + ".." + maxAmountCents
+                + ", note=" + noteContains + ", sort=" + sortOrder + "}";
+    }
+
+    /**
+     * 构建 AccountQuery。名称/文本参数为 null 或空串时表示清除该条件。
+     */
+    public static final class Builder {
+        private final String userId;
+        private String type;
+        private final TreeSet<String> categories = new TreeSet<>(); // 去重并排序，IN 列表与顺序无关
+        private Long startDay;
+        private Long endDay;
+        private Long minAmountCents;
+        private Long maxAmountCents;
+        private String noteContains;
+        private DBHelper.SortOrder sortOrder = DBHelper.SortOrder.DATE_DESC;
+
+        public Builder(String userId) {
+            this.userId = Objects.requireNonNull(userId, "userId");
+        }
+
+        private Builder(AccountQuery query) {
+            userId = query.userId;
+            type = query.type;
+            categories.addAll(query.categories);
+            startDay = query.startDay;
+            endDay = query.endDay;
+            minAmountCents = query.minAmountCents;
+            maxAmountCents = query.maxAmountCents;
+            noteContains = query.noteContains;
+            sortOrder = query.sortOrder;
+        }
+
+        // 类型名称 (收入/支出)
+        public Builder type(String type) {
+            this.type = isEmpty(type) ? null : type;
+            return this;
+        }
+
+        // 只保留这些类别 (名称) 的记录；不传表示不按类别筛选
+        public Builder categories(String... categories) {
+            return categories(Arrays.asList(categories));
+        }
+
+        public Builder categories(Collection<String> categories) {
+            this.categories.clear();
+            for (String category : categories) {
+                if (!isEmpty(category)) this.categories.add(category);
+            }
+            return this;
+        }
+
+        /**
+         * 日期范围 (YYYY-MM-DD，包含两端)。任一端为空时清除日期条件。
+         * @throws IllegalArgumentException 日期格式不正确
+         */
+        public Builder dateRange(String startDate, String endDate) {
+            if (isEmpty(startDate) || isEmpty(endDate)) {
+                startDay = null;
+                endDay = null;
+            } else {
+                startDay = DateUtil.parseEpochDay(startDate);
+                endDay = DateUtil.parseEpochDay(endDate);
+            }
+            return this;
+        }
+
+        // 金额范围 (分，包含两端)，任一端为 null 表示该方向不限
+        public Builder amountRange(Long minCents, Long maxCents) {
+            minAmountCents = minCents;
+            maxAmountCents = maxCents;
+            return this;
+        }
+
+        // 备注包含 text (按字面匹配，% 和 _ 不是通配符)
+        public Builder noteContains(String text) {
+            noteContains = isEmpty(text) ? null : text;
+            return this;
+        }
+
+        public Builder sortBy(DBHelper.SortOrder sortOrder) {
+            this.sortOrder = Objects.requireNonNull(sortOrder, "sortOrder");
+            return this;
+        }
+
+        public AccountQuery build() {
+            return new AccountQuery(this);
+        }
+
+        private static boolean isEmpty(String value) {
+            return value == null || value.isEmpty();
+        }
+    }
+}
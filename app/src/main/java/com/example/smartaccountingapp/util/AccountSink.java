@@ -0,0 +1,17 @@
+package com.example.smartaccountingapp.util;
+
+import java.io.IOException;
+
+/**
+ * 逐条写出记录的备份格式 (JSON / 二进制)，与 {@link AccountSource} 相对。
+ */
+interface AccountSink {
+
+    // 写出 cursor 当前行
+    void write(AccountCursor cursor) throws IOException;
+
+    /**
+     * 写出缓冲中剩余的数据和结尾标记，并刷新到底层输出；不调用时文件不完整
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 逐条读取的记录来源 (例如备份文件)，供 DBHelper 流式导入：调用方不需要先把全部记录读入内存。
+ */
+public interface AccountSource extends Closeable {
+
+    /**
+     * @return 下一条记录；没有更多记录时返回 null
+     * @throws IOException 读取失败或数据格式错误
+     */
+    Account next() throws IOException;
+}
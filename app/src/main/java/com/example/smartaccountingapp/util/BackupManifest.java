@@ -0,0 +1,34 @@
+package com.example.smartaccountingapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量备份的清单 (Gson 序列化为 JSON，与完整备份放在一起，文件名为备份文件名 + ".manifest")。
+ * 记录完整备份覆盖到的变更水位线，以及之后按顺序写出的各个增量：
+ * 恢复时先读完整备份，再依次应用每个增量。
+ */
+final class BackupManifest {
+    String userId;
+    // 完整备份开始时的水位线
+    long baseWatermark;
+    // 完整备份文件的大小和修改时间：与文件不符时 (例如替换完整备份后未来得及写入新清单) 清单作废
+    long baseLength;
+    long baseModified;
+    // 最后一个增量 (没有增量时即完整备份) 覆盖到的水位线，下一个增量从这里开始
+    long watermark;
+    // 从该备份恢复过数据后置为 true：恢复的记录 id 已重新分配，不能再在此基础上追加增量
+    boolean closed;
+    List<Increment> increments = new ArrayList<>();
+
+    /**
+     * 一个增量：(from, to] 之间新增或修改的记录写在 file 中 (格式与完整备份相同，保留原 id)，
+     * 删除的记录 id 记在 deleted 中。
+     */
+    static final class Increment {
+        String file;
+        long from;
+        long to;
+        long[] deleted;
+    }
+}
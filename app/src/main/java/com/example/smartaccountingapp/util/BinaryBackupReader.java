@@ -0,0 +1,243 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.CODE_FIRST_ENTRY;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.CODE_LITERAL;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.CODE_NULL;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.COLUMN_COUNT;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.DATE_LITERAL;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.DICTIONARY_LIMIT;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.MAGIC;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.VERSION;
+import static com.example.smartaccountingapp.util.BinaryBackupWriter.unzigzag;
+
+/**
+ * 二进制备份格式 (见 {@link BinaryBackupWriter}) 的流式解码器：每次读入一个数据块，逐条返回记录。
+ * 输入自带缓冲，不需要再包装 BufferedInputStream。
+ */
+final class BinaryBackupReader implements AccountSource {
+    // 单个数据块的上限，防止损坏的长度字段导致分配过大的数组
+    private static final int MAX_BLOCK_BYTES = 64 * 1024 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int bufferPosition;
+    private int bufferLimit;
+    private long consumed; // 已从输入读取并处理的字节数
+
+    private final String userId;
+    private final List<String> typeDictionary = new ArrayList<>();
+    private final List<String> categoryDictionary = new ArrayList<>();
+    private final List<String> noteDictionary = new ArrayList<>();
+
+    // 当前数据块及各列的读取位置、结束位置 (不含)。block 重复使用且只增不减，末尾可能残留更早数据块的内容，
+    // 因此每列只能读到本列的结束位置
+    private byte[] block = new byte[0];
+    private final int[] columnPosition = new int[COLUMN_COUNT];
+    private final int[] columnEnd = new int[COLUMN_COUNT];
+    private int remaining;
+    private boolean finished;
+    private long lastId;
+    private long lastDay;
+
+    /**
+     * 读取并校验文件头；in 由调用方关闭
+     * @throws IOException 不是二进制备份或版本不受支持
+     */
+    BinaryBackupReader(InputStream in) throws IOException {
+        this.in = in;
+        for (byte b : MAGIC) {
+            if (readByte() != b) throw new IOException("不是二进制备份文件");
+        }
+        long version = readVarint();
+        if (version != VERSION) throw new IOException("不支持的备份版本: " + version);
+        userId = readNullableString();
+    }
+
+    /**
+     * 输入的前几个字节是否为二进制备份的文件头
+     */
+    static boolean isBinaryBackup(byte[] head, int length) {
+        if (length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    // 导出时的用户 ID
+    String getUserId() {
+        return userId;
+    }
+
+    /**
+     * 已读取的字节数 (用于进度)
+     */
+    long position() {
+        return consumed;
+    }
+
+    @Override
+    public Account next() throws IOException {
+        if (remaining == 0) {
+            if (finished || !readBlock()) return null;
+        }
+        remaining--;
+
+        Account account = new Account();
+        account.setUserId(userId);
+        lastId += unzigzag(readColumnVarint(0));
+        account.setId((int) lastId);
+
+        long dateCode = readColumnVarint(1);
+        if (dateCode == DATE_LITERAL) {
+            int length = (int) readColumnVarint(1);
+            account.setDate(length == 0 ? null : readColumnString(1, length - 1));
+        } else {
+            lastDay += unzigzag(dateCode >>> 1);
+            account.setDate(DateUtil.formatEpochDay(lastDay));
+        }
+
+        account.setAmountCents(unzigzag(readColumnVarint(2)));
+        account.setType(readDictionaryString(3, typeDictionary));
+        account.setCategory(readDictionaryString(4, categoryDictionary));
+        account.setNote(readDictionaryString(5, noteDictionary));
+        if (remaining == 0) {
+            // 块内的记录已全部解码：每列都应恰好读完，否则列长度与内容不符
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                if (columnPosition[i] != columnEnd[i]) throw new IOException("备份文件已损坏 (列长度不符)");
+            }
+        }
+        return account;
+    }
+
+    // 读入下一个数据块；遇到结束标记时返回 false
+    private boolean readBlock() throws IOException {
+        long count = readVarint();
+        if (count == 0) {
+            finished = true;
+            return false;
+        }
+        long[] lengths = new long[COLUMN_COUNT];
+        long total = 0;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            lengths[i] = readVarint();
+            if (lengths[i] < 0 || lengths[i] > MAX_BLOCK_BYTES) throw new IOException("备份文件已损坏 (数据块长度异常)");
+            total += lengths[i];
+        }
+        if (count < 0 || count > BinaryBackupWriter.BLOCK_SIZE || total > MAX_BLOCK_BYTES) {
+            throw new IOException("备份文件已损坏 (数据块长度异常)");
+        }
+        if (block.length < total) {
+            block = new byte[(int) total];
+        }
+        readFully(block, (int) total);
+        int offset = 0;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columnPosition[i] = offset;
+            offset += (int) lengths[i];
+            columnEnd[i] = offset;
+        }
+        remaining = (int) count;
+        return true;
+    }
+
+    private String readDictionaryString(int column, List<String> dictionary) throws IOException {
+        long code = readColumnVarint(column);
+        if (code == CODE_NULL) return null;
+        if (code == CODE_LITERAL) {
+            String value = readColumnString(column, (int) readColumnVarint(column));
+            if (dictionary.size() < DICTIONARY_LIMIT) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+        long index = code - CODE_FIRST_ENTRY;
+        if (index >= dictionary.size()) throw new IOException("备份文件已损坏 (字典索引越界)");
+        return dictionary.get((int) index);
+    }
+
+    // --- 块内按列读取 ---
+
+    private long readColumnVarint(int column) throws IOException {
+        int position = columnPosition[column];
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= columnEnd[column]) throw new IOException("备份文件已损坏 (列数据不完整)");
+            byte b = block[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                columnPosition[column] = position;
+                return value;
+            }
+        }
+        throw new IOException("备份文件已损坏 (varint 过长)");
+    }
+
+    private String readColumnString(int column, int length) throws IOException {
+        int position = columnPosition[column];
+        if (length < 0 || length > columnEnd[column] - position) throw new IOException("备份文件已损坏 (字符串越界)");
+        columnPosition[column] = position + length;
+        return new String(block, position, length, StandardCharsets.UTF_8);
+    }
+
+    // --- 从输入流读取 (文件头、块头、块数据) ---
+
+    private int readByte() throws IOException {
+        if (bufferPosition == bufferLimit && !fill()) throw new EOFException("备份文件不完整");
+        consumed++;
+        return buffer[bufferPosition++];
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("备份文件已损坏 (varint 过长)");
+    }
+
+    private String readNullableString() throws IOException {
+        long length = readVarint();
+        if (length == 0) return null;
+        if (length - 1 > MAX_BLOCK_BYTES) throw new IOException("备份文件已损坏 (字符串长度异常)");
+        byte[] bytes = new byte[(int) (length - 1)];
+        readFully(bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (bufferPosition == bufferLimit && !fill()) throw new EOFException("备份文件不完整");
+            int n = Math.min(length - offset, bufferLimit - bufferPosition);
+            System.arraycopy(buffer, bufferPosition, target, offset, n);
+            bufferPosition += n;
+            offset += n;
+        }
+        consumed += length;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        bufferPosition = 0;
+        bufferLimit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
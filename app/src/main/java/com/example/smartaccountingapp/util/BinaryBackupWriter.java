@@ -0,0 +1,213 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制备份格式的流式编码器，格式 (版本 1)：
+ * <pre>
+ * 文件头：MAGIC "SABK"、版本 (varint)、用户 ID (可空字符串)
+ * 数据块：记录数 n (varint，0 表示结束)、6 列的字节长度 (varint)、各列数据
+ *   id       与上一条记录的差 (zigzag varint)
+ *   date     可解析的日期：与上一条的纪元日之差 (zigzag) 左移 1 位；否则为 1，后跟可空字符串
+ *   amount   金额 (分，zigzag varint)
+ *   type / category / note   字典编码：0 = null，1 = 新字符串 (后跟长度和 UTF-8 字节)，k + 2 = 字典第 k 项
+ * </pre>
+ * 每块最多 {@link #BLOCK_SIZE} 条记录，同一列的数据连续存放，内存中只保留当前块。
+ * 差值和字典跨块延续：新字符串出现时按出现顺序加入字典，解码时按相同规则重建，字典本身不单独写出。
+ * 字典最多 {@link #DICTIONARY_LIMIT} 项，之后的新字符串按原文写入，备注大多不重复时内存占用仍有上限。
+ * 可空字符串：varint(字节长度 + 1) 后跟 UTF-8 字节，0 表示 null。
+ */
+final class BinaryBackupWriter implements AccountSink {
+    static final byte[] MAGIC = {'S', 'A', 'B', 'K'};
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 4096;
+    static final int DICTIONARY_LIMIT = 4096;
+
+    static final int COLUMN_COUNT = 6;
+    // 字典列编码
+    static final int CODE_NULL = 0;
+    static final int CODE_LITERAL = 1;
+    static final int CODE_FIRST_ENTRY = 2;
+    // 日期列：无法按纪元日编码的日期
+    static final int DATE_LITERAL = 1;
+
+    private final OutputStream out;
+    private final ByteColumn ids = new ByteColumn();
+    private final ByteColumn dates = new ByteColumn();
+    private final ByteColumn amounts = new ByteColumn();
+    private final ByteColumn types = new ByteColumn();
+    private final ByteColumn categories = new ByteColumn();
+    private final ByteColumn notes = new ByteColumn();
+    private final ByteColumn blockHeader = new ByteColumn();
+    private final Map<String, Integer> typeDictionary = new HashMap<>();
+    private final Map<String, Integer> categoryDictionary = new HashMap<>();
+    private final Map<String, Integer> noteDictionary = new HashMap<>();
+
+    private int count;
+    private long lastId;
+    private long lastDay;
+
+    /**
+     * 立即写出文件头；out 由调用方关闭
+     */
+    BinaryBackupWriter(OutputStream out, String userId) throws IOException {
+        this.out = out;
+        ByteColumn header = new ByteColumn();
+        header.writeBytes(MAGIC, MAGIC.length);
+        header.writeVarint(VERSION);
+        header.writeNullableString(userId);
+        header.writeTo(out);
+    }
+
+    @Override
+    public void write(AccountCursor cursor) throws IOException {
+        add(cursor.getId(), cursor.getType(), cursor.getCategory(), cursor.getAmountCents(), cursor.getDate(), cursor.getNote());
+    }
+
+    void write(Account account) throws IOException {
+        add(account.getId(), account.getType(), account.getCategory(), account.getAmountCents(), account.getDate(), account.getNote());
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (count > 0) {
+            flushBlock();
+        }
+        blockHeader.reset();
+        blockHeader.writeVarint(0); // 结束标记
+        blockHeader.writeTo(out);
+        out.flush();
+    }
+
+    private void add(int id, String type, String category, long amountCents, String date, String note) throws IOException {
+        ids.writeVarint(zigzag(id - lastId));
+        lastId = id;
+
+        long day = parseDay(date);
+        if (day != Long.MIN_VALUE) {
+            dates.writeVarint(zigzag(day - lastDay) << 1);
+            lastDay = day;
+        } else {
+            dates.writeVarint(DATE_LITERAL);
+            dates.writeNullableString(date);
+        }
+
+        amounts.writeVarint(zigzag(amountCents));
+        writeDictionaryString(types, typeDictionary, type);
+        writeDictionaryString(categories, categoryDictionary, category);
+        writeDictionaryString(notes, noteDictionary, note);
+
+        if (++count == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        ByteColumn[] columns = {ids, dates, amounts, types, categories, notes};
+        blockHeader.reset();
+        blockHeader.writeVarint(count);
+        for (ByteColumn column : columns) {
+            blockHeader.writeVarint(column.size());
+        }
+        blockHeader.writeTo(out);
+        for (ByteColumn column : columns) {
+            column.writeTo(out);
+            column.reset();
+        }
+        count = 0;
+    }
+
+    private static void writeDictionaryString(ByteColumn column, Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            column.writeVarint(CODE_NULL);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            column.writeVarint(CODE_FIRST_ENTRY + index);
+            return;
+        }
+        column.writeVarint(CODE_LITERAL);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        column.writeVarint(bytes.length);
+        column.writeBytes(bytes, bytes.length);
+        if (dictionary.size() < DICTIONARY_LIMIT) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    // 能以纪元日无损表示的日期 (yyyy-MM-dd 且日期存在)；否则返回 Long.MIN_VALUE
+    private static long parseDay(String date) {
+        if (date == null) return Long.MIN_VALUE;
+        try {
+            return DateUtil.parseEpochDay(date);
+        } catch (IllegalArgumentException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    // 有符号数映射为无符号数，绝对值小的数 (正负) 编码后都很短
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // 可增长的字节缓冲区，按列累积一个块的数据
+    private static final class ByteColumn {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] source, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            writeBytes(utf8, utf8.length);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
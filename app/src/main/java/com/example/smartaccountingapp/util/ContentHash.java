@@ -0,0 +1,56 @@
+package com.example.smartaccountingapp.util;
+
+/**
+ * 记录内容的 64 位哈希 (类型、类别、金额、日期、备注)，合并导入时用来识别重复记录。
+ * 只取决于字段内容，不含 id 和用户：同一条记录在任何设备、任何备份中的哈希都相同。
+ * 类型和类别按名称计算 (字典 id 在不同数据库中不同)；日期按原字符串计算，不做规范化。
+ * <p>
+ * 各字段先写入长度 (null 与空字符串不同)，字段边界不会混淆；算法为 FNV-1a 加 64 位混合，
+ * 不同内容哈希相同的概率可以忽略。
+ */
+final class ContentHash {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ContentHash() {
+    }
+
+    static long of(String type, String category, long amountCents, String date, String note) {
+        long h = FNV_OFFSET;
+        h = mix(h, type);
+        h = mix(h, category);
+        h = mix(h, amountCents);
+        h = mix(h, date);
+        h = mix(h, note);
+        return finish(h);
+    }
+
+    private static long mix(long h, String s) {
+        if (s == null) return mix(h, -1L);
+        h = mix(h, (long) s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            h = (h ^ (c & 0xFF)) * FNV_PRIME;
+            h = (h ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (value & 0xFF)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return h;
+    }
+
+    // 64 位混合 (MurmurHash3 fmix64)：FNV 的高位扩散较差，混合后各位分布均匀
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
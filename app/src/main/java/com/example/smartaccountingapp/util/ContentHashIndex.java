@@ -0,0 +1,71 @@
+package com.example.smartaccountingapp.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 合并导入时现有记录的内容哈希索引，用来判断备份中的每条记录是否需要插入。
+ * 只保存 id 和哈希两个 long 数组以及一个位图 (每条记录约 24 字节)，不保存记录本身。
+ * <p>
+ * 哈希按多重集合计算：本机和备份中都有两条内容相同的记录 (例如同一天两杯同价的咖啡) 时两条都跳过，
+ * 备份中多出的第三条仍会插入。每条现有记录最多抵消备份中的一条记录。
+ * <p>
+ * 只有备份来自本数据库 (id 与本机记录属于同一序列) 时才按 id 识别冲突；
+ * 其他来源 (其他设备、覆盖导入之前的备份) 的 id 与本机无关，只按内容匹配，不会因为 id 碰巧相同而丢弃记录。
+ */
+final class ContentHashIndex {
+
+    enum Match {
+        // 没有对应的现有记录，需要插入
+        NEW,
+        // 已有内容相同的记录
+        DUPLICATE,
+        // 同一来源中已有相同 id 的记录但内容不同：备份之后在本机修改过，保留本机版本
+        CONFLICT
+    }
+
+    private final long[] ids;
+    private final long[] hashesById;
+    private final long[] sortedHashes;
+    private final BitSet matched;
+
+    /**
+     * @param ids 现有记录的 id，升序；为 null 时备份的 id 与本机无关，只按内容匹配
+     * @param hashes 现有记录的内容哈希 (ids 不为 null 时与 ids 一一对应)
+     */
+    ContentHashIndex(long[] ids, long[] hashes) {
+        if (ids != null && ids.length != hashes.length) throw new IllegalArgumentException("ids 与 hashes 长度不同");
+        this.ids = ids;
+        this.hashesById = hashes;
+        this.sortedHashes = hashes.clone();
+        Arrays.sort(sortedHashes);
+        this.matched = new BitSet(sortedHashes.length);
+    }
+
+    /**
+     * 判断备份中 id 为 id、内容哈希为 hash 的记录。
+     * 同一来源中 id 相同但内容不同时为冲突 (accounts 的 id 不复用，相同 id 一定是同一条记录)，
+     * 否则按内容抵消一条现有记录。
+     * <p>
+     * 内容相同的记录之间可以互换：id 相同的记录找不到可抵消的记录时，说明之前按内容抵消的某条备份记录
+     * 实际上在本机已被删除，插入这一条 (内容相同) 即可，插入条数与按 id 优先匹配的结果一致。
+     */
+    Match match(long id, long hash) {
+        if (ids != null) {
+            int i = Arrays.binarySearch(ids, id);
+            if (i >= 0 && hashesById[i] != hash) return Match.CONFLICT;
+        }
+        return consume(hash) ? Match.DUPLICATE : Match.NEW;
+    }
+
+    // 抵消一条哈希为 hash 的现有记录；都已抵消时返回 false
+    private boolean consume(long hash) {
+        int i = Arrays.binarySearch(sortedHashes, hash);
+        if (i < 0) return false;
+        while (i > 0 && sortedHashes[i - 1] == hash) i--; // 相同哈希的第一个
+        int free = matched.nextClearBit(i);
+        if (free >= sortedHashes.length || sortedHashes[free] != hash) return false;
+        matched.set(free);
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.smartaccountingapp.util;
+
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库后台执行器：界面上的 DBHelper 读写都提交到这里，在有界线程池中执行，结果回到主线程。
+ * 返回的 {@link Task} 可以取消 (例如筛选条件已变化)：排队中的任务直接移除，执行中的 SQL 通过
+ * CancellationSignal 中断，已取消任务的结果不会回调 (Cursor 等 Closeable 结果会被关闭)。
+ * <p>
+ * 线程池有两个线程，读写可能并行执行；写入后需要刷新的界面应在写任务的回调里发起查询，保证读到新数据。
+ */
+public final class DBExecutor {
+    private static final String TAG = "DBExecutor";
+
+    static final int POOL_SIZE = 2;
+    static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * 在后台线程执行的工作。查询应把 signal 传给 DBHelper，取消时抛出 OperationCanceledException。
+     */
+    public interface Work<T> {
+        T run(CancellationSignal signal) throws Exception;
+    }
+
+    /**
+     * 主线程回调
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "后台数据库操作失败", e);
+        }
+    }
+
+    private static volatile DBExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static DBExecutor getInstance() {
+        if (instance == null) {
+            synchronized (DBExecutor.class) {
+                if (instance == null) {
+                    instance = new DBExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private DBExecutor() {
+        executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "db-worker");
+                    thread.setPriority(Thread.NORM_PRIORITY - 1); // 略低于主线程
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交任务 (在主线程调用)。callback 只会在主线程、且任务未被取消 (或分离) 时调用一次。
+     */
+    public <T> Task submit(Work<T> work, Callback<T> callback) {
+        Task task = new Task();
+        task.runnable = () -> {
+            if (task.cancelled) return;
+            T result;
+            try {
+                result = work.run(task.signal);
+            } catch (OperationCanceledException e) {
+                return; // 已取消，丢弃
+            } catch (Exception e) {
+                mainHandler.post(() -> {
+                    if (task.isActive()) callback.onError(e);
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!task.isActive()) {
+                    closeQuietly(result);
+                    return;
+                }
+                task.delivered = true;
+                callback.onResult(result);
+            });
+        };
+        try {
+            executor.execute(task.runnable);
+        } catch (RejectedExecutionException e) {
+            // 队列已满：不在主线程上退化执行，直接报告失败
+            mainHandler.post(() -> {
+                if (task.isActive()) callback.onError(e);
+            });
+        }
+        return task;
+    }
+
+    private static void closeQuietly(Object result) {
+        if (result instanceof Closeable) {
+            try {
+                ((Closeable) result).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 已提交的任务
+     */
+    public final class Task {
+        private final CancellationSignal signal = new CancellationSignal();
+        private volatile boolean cancelled;
+        private boolean detached; // 只在主线程读写
+        private boolean delivered; // 只在主线程读写
+        private Runnable runnable;
+
+        /**
+         * 取消任务 (在主线程调用)。结果已回调后再取消不产生任何影响，
+         * 因此已交给界面的 Cursor 不会因为取消而无法继续读取后续窗口。
+         */
+        public void cancel() {
+            if (delivered || cancelled) return;
+            cancelled = true;
+            executor.remove(runnable);
+            signal.cancel();
+        }
+
+        /**
+         * 不再回调，但任务照常执行完 (在主线程调用)。用于界面销毁时仍需完成的写入：
+         * 写入不会因为离开页面而丢失，回调也不会作用于已销毁的 Activity。
+         */
+        public void detach() {
+            detached = true;
+        }
+
+        // 结果仍需交给 callback (在主线程调用)
+        private boolean isActive() {
+            return !cancelled && !detached;
+        }
+    }
+}
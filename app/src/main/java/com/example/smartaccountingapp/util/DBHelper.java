@@ -3,67 +3,658 @@ package com.example.smartaccountingapp.util;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
 import com.example.smartaccountingapp.model.Account;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import com.example.smartaccountingapp.model.AccountChange;
+import com.example.smartaccountingapp.model.MergeResult;
+import com.example.smartaccountingapp.model.TrendPoint;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Set;
 
 public class DBHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "AccountDB";
-    private static final int DATABASE_VERSION = 2; // 【修改】升级版本号以应用结构变更
+    private static final int DATABASE_VERSION = 10; // V3: 复合索引；V4: 金额改为整数“分”存储；V5: 新增纪元日列；V6: 按日汇总表；V7: 类型/类别字典表；V8: 全文检索；V9: 变更日志；V10: 检索索引改为二元分词
 
     // 表名和列名
     public static final String TABLE_ACCOUNT = "accounts";
     public static final String COLUMN_ID = "_id";
     public static final String COLUMN_USER_ID = "user_id"; // 【新增】用户ID列
-    public static final String COLUMN_TYPE = "type"; // 收入/支出
-    public static final String COLUMN_CATEGORY = "category"; // 类别
-    public static final String COLUMN_AMOUNT = "amount"; // 金额 (REAL 浮点型)
-    public static final String COLUMN_DATE = "date"; // 日期 (TEXT YYYY-MM-DD)
+    public static final String COLUMN_TYPE_ID = "type_id"; // 类型 id (types._id)，0 表示未知
+    public static final String COLUMN_CATEGORY_ID = "category_id"; // 类别 id (categories._id)，0 表示未知
+    public static final String COLUMN_AMOUNT = "amount_cents"; // 金额 (INTEGER，单位：分)
+    public static final String COLUMN_DATE = "date"; // 日期 (TEXT YYYY-MM-DD)，用于显示和导出
+    public static final String COLUMN_DAY = "day"; // 日期 (INTEGER 纪元日)，由 date 派生，用于范围查询、排序和分组
     public static final String COLUMN_NOTE = "note"; // 备注
 
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    // 字典表：types / categories，结构均为 (_id, name)
+    public static final String TABLE_TYPES = "types";
+    public static final String TABLE_CATEGORIES = "categories";
+    public static final String COLUMN_NAME = "name";
 
+    // 预置的类型和类别 id，建表时写入且固定不变；用户自定义的类别在其后依次分配
+    public static final int TYPE_INCOME = 1;
+    public static final int TYPE_EXPENSE = 2;
+    public static final int CATEGORY_FOOD = 1;
+    public static final int CATEGORY_SHOPPING = 2;
+    public static final int CATEGORY_TRANSPORT = 3;
+    public static final int CATEGORY_STUDY = 4;
+    public static final int CATEGORY_ENTERTAINMENT = 5;
+    public static final int CATEGORY_OTHER = 6;
+    private static final String[] TYPE_SEEDS = {null, "收入", "支出"}; // 下标即 id
+    private static final String[] CATEGORY_SEEDS = {null, "餐饮", "购物", "交通", "学习", "娱乐", "其他"};
 
-    public DBHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // 索引名 (V5)
+    static final String INDEX_USER_DAY = "idx_accounts_user_day"; // 列表按日期排序/日期范围汇总
+    static final String INDEX_USER_TYPE_CATEGORY_DAY = "idx_accounts_user_type_category_day"; // 类型/类别筛选、饼图
+    static final String INDEX_USER_AMOUNT = "idx_accounts_user_amount"; // 按金额排序
+
+    // 按日汇总表：每个 (用户, 日, 类型, 类别) 一行，由 accounts 上的触发器维护，供图表和汇总查询使用
+    public static final String TABLE_DAILY_ROLLUP = "daily_rollup";
+    public static final String COLUMN_TOTAL_CENTS = "total_cents"; // 金额合计，单位：分
+    public static final String COLUMN_ENTRY_COUNT = "entry_count"; // 记录条数
+    private static final String TRIGGER_ROLLUP_INSERT = "trg_accounts_rollup_insert";
+    private static final String TRIGGER_ROLLUP_DELETE = "trg_accounts_rollup_delete";
+    private static final String TRIGGER_ROLLUP_UPDATE = "trg_accounts_rollup_update";
+
+    // 全文检索表 (FTS4)：docid 即 accounts._id，索引备注和类别名称的二元分词，由 accounts 上的触发器同步
+    public static final String TABLE_ACCOUNT_FTS = "accounts_fts";
+    public static final String COLUMN_FTS_CATEGORY = "category"; // 类别名称 (非 id，便于按名称检索)
+    // 序号表 1..SEARCH_MAX_CHARS，触发器用它逐字切出二元分词；超出长度的部分不进入索引
+    static final String TABLE_SEARCH_POSITIONS = "search_positions";
+    private static final String COLUMN_POSITION = "n";
+    static final int SEARCH_MAX_CHARS = 512;
+    private static final String TRIGGER_FTS_INSERT = "trg_accounts_fts_insert";
+    private static final String TRIGGER_FTS_DELETE = "trg_accounts_fts_delete";
+    private static final String TRIGGER_FTS_UPDATE = "trg_accounts_fts_update";
+    // 排序权重，顺序与 FTS 表的列一致：备注命中比类别命中更相关
+    private static final double[] SEARCH_COLUMN_WEIGHTS = {1.0, 0.5};
+
+    // 变更日志 (V9)：每条记录最近一次变更占一行，由 accounts 上的触发器维护，供增量备份使用。
+    // seq 单调递增且不复用 (AUTOINCREMENT)，备份以 seq 作为水位线；deleted = 1 表示记录已删除
+    public static final String TABLE_ACCOUNT_CHANGES = "account_changes";
+    public static final String COLUMN_SEQ = "seq";
+    public static final String COLUMN_ACCOUNT_ID = "account_id";
+    public static final String COLUMN_DELETED = "deleted";
+    static final String INDEX_CHANGES_USER_SEQ = "idx_account_changes_user_seq";
+    private static final String TRIGGER_CHANGES_INSERT = "trg_accounts_changes_insert";
+    private static final String TRIGGER_CHANGES_DELETE = "trg_accounts_changes_delete";
+    private static final String TRIGGER_CHANGES_UPDATE = "trg_accounts_changes_update";
+
+    // 趋势图跨度超过该天数时按月分组，否则按日分组
+    private static final int TREND_DAILY_MAX_DAYS = 30;
+
+    /**
+     * 列表排序方式。每种排序都以 _id 作为末位键，保证顺序稳定，可用于键集分页 (keyset pagination)。
+     */
+    public enum SortOrder {
+        DATE_DESC(COLUMN_DAY, false),
+        DATE_ASC(COLUMN_DAY, true),
+        AMOUNT_DESC(COLUMN_AMOUNT, false),
+        AMOUNT_ASC(COLUMN_AMOUNT, true);
+
+        final String keyColumn;
+        final boolean ascending;
+
+        SortOrder(String keyColumn, boolean ascending) {
+            this.keyColumn = keyColumn;
+            this.ascending = ascending;
+        }
+
+        public String getOrderBy() {
+            String direction = ascending ? " ASC" : " DESC";
+            return keyColumn + direction + ", " + COLUMN_ID + direction;
+        }
+
+        /**
+         * 位于 (key, id) 之后的记录。冗余的 "key <= ?" 让 SQLite 能直接在索引上定位起点，
+         * 而不是从头扫描后再过滤。
+         */
+        String getSeekPredicate() {
+            String cmp = ascending ? " > ?" : " < ?";
+            String cmpOrEqual = ascending ? " >= ?" : " <= ?";
+            return keyColumn + cmpOrEqual + " AND (" + keyColumn + cmp + " OR " + COLUMN_ID + cmp + ")";
+        }
+
+        String getSeekKey(Account account) {
+            return String.valueOf(keyColumn.equals(COLUMN_AMOUNT) ? account.getAmountCents() : epochDayOf(account.getDate()));
+        }
+    }
+
+    // 批量插入默认每多少条提交一次事务
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String INSERT_ACCOUNT_SQL = "INSERT INTO " + TABLE_ACCOUNT + " ("
+            + COLUMN_USER_ID + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ", "
+            + COLUMN_AMOUNT + ", " + COLUMN_DATE + ", " + COLUMN_DAY + ", " + COLUMN_NOTE
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // 进程内共享的单例，连接在整个进程生命周期内保持打开
+    private static DBHelper sInstance;
+
+    // 字典表的内存副本，打开数据库时加载
+    private final LookupCache typeCache = new LookupCache();
+    private final LookupCache categoryCache = new LookupCache();
+
+    // 写入提交后发布变更通知
+    private final AccountChangeBus changeBus = new AccountChangeBus();
+
+    /**
+     * 获取应用级共享的 DBHelper。
+     * 所有 Activity 共用同一个连接池：连接只打开一次，开启 WAL 后读操作可以并行，
+     * 且读不会被写阻塞；任何调用方都不应再关闭数据库。
+     */
+    public static synchronized DBHelper getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DBHelper(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * 关闭共享连接。
+     * 正常运行时不需要调用：进程被系统回收时 WAL 保证已提交的数据不丢失。
+     * 调用后此前返回的 Cursor 全部失效；再次调用 getInstance() 会重新打开数据库。
+     */
+    public static synchronized void closeInstance() {
+        if (sInstance != null) {
+            sInstance.close();
+            sInstance = null;
+        }
+    }
+
+    private DBHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    // 供测试使用：databaseName 传 null 时使用内存数据库
+    DBHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    // 每个连接缓存的已编译语句数：筛选 SQL 按形状复用 (见 AccountQuery)，默认的 25 条容纳不下常用形状和其他查询
+    private static final int SQL_CACHE_SIZE = 64;
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.setMaxSqlCacheSize(SQL_CACHE_SIZE);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        // 创建记账表 (【修改】增加 COLUMN_USER_ID 列)
-        String CREATE_ACCOUNT_TABLE = "CREATE TABLE " + TABLE_ACCOUNT + "("
+        createLookupTable(db, TABLE_TYPES, TYPE_SEEDS);
+        createLookupTable(db, TABLE_CATEGORIES, CATEGORY_SEEDS);
+        db.execSQL(buildCreateAccountTable());
+        createIndexes(db);
+        createRollup(db);
+        createSearchIndex(db);
+        createChangeLog(db);
+    }
+
+    // 打开数据库 (含创建/升级之后) 时把字典表读入内存，之后按 id 解析名称不再查库
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        loadLookup(db, TABLE_TYPES, typeCache);
+        loadLookup(db, TABLE_CATEGORIES, categoryCache);
+    }
+
+    // 字典表结构 (当前版本)，按下标写入预置项
+    private static void createLookupTable(SQLiteDatabase db, String table, String[] seeds) {
+        db.execSQL("CREATE TABLE " + table + "("
+                + COLUMN_ID + " INTEGER PRIMARY KEY,"
+                + COLUMN_NAME + " TEXT NOT NULL UNIQUE)");
+        for (int id = 1; id < seeds.length; id++) {
+            db.execSQL("INSERT INTO " + table + " (" + COLUMN_ID + ", " + COLUMN_NAME + ") VALUES (?, ?)",
+                    new Object[]{id, seeds[id]});
+        }
+    }
+
+    private static void loadLookup(SQLiteDatabase db, String table, LookupCache cache) {
+        Map<String, Integer> entries = new HashMap<>();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_NAME + " FROM " + table, null);
+        try {
+            while (cursor.moveToNext()) {
+                entries.put(cursor.getString(1), cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        cache.replaceAll(entries);
+    }
+
+    // 记账表结构 (当前版本)
+    private static String buildCreateAccountTable() {
+        return "CREATE TABLE " + TABLE_ACCOUNT + "("
                 + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + COLUMN_USER_ID + " TEXT NOT NULL DEFAULT 'default_user'," // 新增用户ID列，设置默认值以防数据丢失
-                + COLUMN_TYPE + " TEXT,"
-                + COLUMN_CATEGORY + " TEXT,"
-                + COLUMN_AMOUNT + " REAL,"
+                + COLUMN_USER_ID + " TEXT NOT NULL DEFAULT 'default_user'," // 用户ID列，设置默认值以防数据丢失
+                + COLUMN_TYPE_ID + " INTEGER NOT NULL DEFAULT 0 REFERENCES " + TABLE_TYPES + "(" + COLUMN_ID + "),"
+                + COLUMN_CATEGORY_ID + " INTEGER NOT NULL DEFAULT 0 REFERENCES " + TABLE_CATEGORIES + "(" + COLUMN_ID + "),"
+                + COLUMN_AMOUNT + " INTEGER NOT NULL DEFAULT 0," // 金额，单位：分
                 + COLUMN_DATE + " TEXT,"
+                + COLUMN_DAY + " INTEGER NOT NULL DEFAULT 0," // 纪元日，与 date 同步写入
                 + COLUMN_NOTE + " TEXT"
                 + ")";
-        db.execSQL(CREATE_ACCOUNT_TABLE);
     }
 
-    // 【修改】处理数据库升级
+    // 【修改】处理数据库升级：按版本逐级迁移，保留已有数据。
+    // 各步骤使用当时的表结构字面量，不随当前列名常量变化。
+    // 汇总表和全文检索表是派生数据：升级前先删除 (避免旧触发器在迁移中触发)，升级后按当前结构重建。
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropRollup(db);
+        dropSearchIndex(db);
         // 如果是从旧版本 (V1) 升级上来 (V2)，添加 user_id 列
         if (oldVersion < 2) {
             // 默认值 'default_user' 用于保留 V1 版本的数据
             db.execSQL("ALTER TABLE " + TABLE_ACCOUNT + " ADD COLUMN " + COLUMN_USER_ID + " TEXT DEFAULT 'default_user'");
-        } else {
-            // 如果版本跨度较大，删除重建
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ACCOUNT);
-            onCreate(db);
+        }
+        // V2 -> V3：新增复合索引
+        if (oldVersion < 3) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_accounts_user_date ON accounts(user_id, date, _id)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_accounts_user_type_category_date ON accounts(user_id, type, category, date)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_accounts_user_amount ON accounts(user_id, amount)");
+        }
+        // V3 -> V4：金额由 REAL 元改为 INTEGER 分
+        if (oldVersion < 4) {
+            migrateToV4(db);
+        }
+        // V4 -> V5：新增纪元日列，日期范围和排序改走整数索引
+        if (oldVersion < 5) {
+            migrateToV5(db);
+        }
+        // V6 -> V7：类型/类别改为字典表 id
+        if (oldVersion < 7) {
+            migrateToV7(db);
+        }
+        // V6 起：按日汇总表
+        createRollup(db);
+        fillRollup(db);
+        // V8 起：全文检索
+        createSearchIndex(db);
+        fillSearchIndex(db);
+        // V8 -> V9：变更日志。日志不是派生数据 (无法由 accounts 重建)，只创建一次，不随升级删除；
+        // 已有记录不写入日志，升级后的第一次备份总是完整备份
+        if (oldVersion < 9) {
+            createChangeLog(db);
         }
     }
 
+    /**
+     * V4 迁移：SQLite 不支持修改列类型，新建表拷贝数据后替换旧表。
+     * 金额按 ROUND(amount * 100) 换算为分，消除历史浮点误差。
+     */
+    private static void migrateToV4(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE accounts_v4("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "user_id TEXT NOT NULL DEFAULT 'default_user',"
+                + "type TEXT,"
+                + "category TEXT,"
+                + "amount_cents INTEGER NOT NULL DEFAULT 0,"
+                + "date TEXT,"
+                + "note TEXT)");
+        db.execSQL("INSERT INTO accounts_v4 (_id, user_id, type, category, amount_cents, date, note)"
+                + " SELECT _id, COALESCE(user_id, 'default_user'), type, category,"
+                + " CAST(ROUND(COALESCE(amount, 0) * 100) AS INTEGER), date, note"
+                + " FROM accounts");
+        db.execSQL("DROP TABLE accounts"); // 旧索引随表一起删除
+        db.execSQL("ALTER TABLE accounts_v4 RENAME TO accounts");
+        db.execSQL("CREATE INDEX idx_accounts_user_date ON accounts(user_id, date, _id)");
+        db.execSQL("CREATE INDEX idx_accounts_user_type_category_date ON accounts(user_id, type, category, date)");
+        db.execSQL("CREATE INDEX idx_accounts_user_amount ON accounts(user_id, amount_cents)");
+    }
+
+    /**
+     * V5 迁移：新增 day 列 (1970-01-01 起的天数)，由 SQLite 的 julianday() 一次性回填；
+     * 无法解析的日期记为 0。按日期的两个索引改建在 day 上。
+     */
+    private static void migrateToV5(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE accounts ADD COLUMN day INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("UPDATE accounts SET day = COALESCE(CAST(julianday(date) - 2440587.5 AS INTEGER), 0)");
+        db.execSQL("DROP INDEX IF EXISTS idx_accounts_user_date");
+        db.execSQL("DROP INDEX IF EXISTS idx_accounts_user_type_category_date");
+        db.execSQL("CREATE INDEX idx_accounts_user_day ON accounts(user_id, day, _id)");
+        db.execSQL("CREATE INDEX idx_accounts_user_type_category_day ON accounts(user_id, type, category, day)");
+    }
+
+    /**
+     * V7 迁移：新建 types / categories 字典表 (预置项 id 固定)，已有记录中出现的其他名称作为自定义项追加；
+     * 重建 accounts，type / category 文本改为整数 id (NULL 或空串记为 0)。
+     */
+    private static void migrateToV7(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE types(_id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+        db.execSQL("INSERT INTO types (_id, name) VALUES (1, '收入'), (2, '支出')");
+        db.execSQL("INSERT OR IGNORE INTO types (name)"
+                + " SELECT DISTINCT type FROM accounts WHERE type IS NOT NULL AND type <> '' ORDER BY type");
+        db.execSQL("CREATE TABLE categories(_id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+        db.execSQL("INSERT INTO categories (_id, name) VALUES"
+                + " (1, '餐饮'), (2, '购物'), (3, '交通'), (4, '学习'), (5, '娱乐'), (6, '其他')");
+        db.execSQL("INSERT OR IGNORE INTO categories (name)"
+                + " SELECT DISTINCT category FROM accounts WHERE category IS NOT NULL AND category <> '' ORDER BY category");
+
+        db.execSQL("CREATE TABLE accounts_v7("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "user_id TEXT NOT NULL DEFAULT 'default_user',"
+                + "type_id INTEGER NOT NULL DEFAULT 0 REFERENCES types(_id),"
+                + "category_id INTEGER NOT NULL DEFAULT 0 REFERENCES categories(_id),"
+                + "amount_cents INTEGER NOT NULL DEFAULT 0,"
+                + "date TEXT,"
+                + "day INTEGER NOT NULL DEFAULT 0,"
+                + "note TEXT)");
+        db.execSQL("INSERT INTO accounts_v7 (_id, user_id, type_id, category_id, amount_cents, date, day, note)"
+                + " SELECT a._id, a.user_id, COALESCE(t._id, 0), COALESCE(c._id, 0), a.amount_cents, a.date, a.day, a.note"
+                + " FROM accounts a"
+                + " LEFT JOIN types t ON t.name = a.type"
+                + " LEFT JOIN categories c ON c.name = a.category");
+        db.execSQL("DROP TABLE accounts");
+        db.execSQL("ALTER TABLE accounts_v7 RENAME TO accounts");
+        db.execSQL("CREATE INDEX idx_accounts_user_day ON accounts(user_id, day, _id)");
+        db.execSQL("CREATE INDEX idx_accounts_user_type_category_day ON accounts(user_id, type_id, category_id, day)");
+        db.execSQL("CREATE INDEX idx_accounts_user_amount ON accounts(user_id, amount_cents)");
+    }
+
+    /**
+     * 创建复合索引。所有查询都以 user_id 等值 + day 范围过滤，
+     * 索引列顺序与 WHERE / ORDER BY 对齐，避免全表扫描和额外排序。
+     * (user_id, amount) 隐含 rowid(_id) 作为末列，可直接满足 "amount, _id" 排序。
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_USER_DAY + " ON " + TABLE_ACCOUNT
+                + "(" + COLUMN_USER_ID + ", " + COLUMN_DAY + ", " + COLUMN_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_USER_TYPE_CATEGORY_DAY + " ON " + TABLE_ACCOUNT
+                + "(" + COLUMN_USER_ID + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ", " + COLUMN_DAY + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_USER_AMOUNT + " ON " + TABLE_ACCOUNT
+                + "(" + COLUMN_USER_ID + ", " + COLUMN_AMOUNT + ")");
+    }
+
+
+    /**
+     * 创建按日汇总表及维护它的触发器。
+     * 主键即查询键 (WITHOUT ROWID)，按 user_id + day 范围查询直接在主键上定位，按 day 分组无需排序。
+     * 旧版 SQLite 不支持 UPSERT，触发器先 INSERT OR IGNORE 占位行再累加；条数减到 0 的行随即删除。
+     */
+    private static void createRollup(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_DAILY_ROLLUP + "("
+                + COLUMN_USER_ID + " TEXT NOT NULL,"
+                + COLUMN_DAY + " INTEGER NOT NULL,"
+                + COLUMN_TYPE_ID + " INTEGER NOT NULL,"
+                + COLUMN_CATEGORY_ID + " INTEGER NOT NULL,"
+                + COLUMN_TOTAL_CENTS + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_ENTRY_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + "PRIMARY KEY (" + COLUMN_USER_ID + ", " + COLUMN_DAY + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ")"
+                + ") WITHOUT ROWID");
+
+        db.execSQL("CREATE TRIGGER " + TRIGGER_ROLLUP_INSERT + " AFTER INSERT ON " + TABLE_ACCOUNT + " BEGIN "
+                + rollupAdd("NEW")
+                + " END");
+        db.execSQL("CREATE TRIGGER " + TRIGGER_ROLLUP_DELETE + " AFTER DELETE ON " + TABLE_ACCOUNT + " BEGIN "
+                + rollupSubtract("OLD")
+                + " END");
+        // 只修改备注时不触发
+        db.execSQL("CREATE TRIGGER " + TRIGGER_ROLLUP_UPDATE + " AFTER UPDATE OF "
+                + COLUMN_USER_ID + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ", " + COLUMN_AMOUNT + ", " + COLUMN_DAY
+                + " ON " + TABLE_ACCOUNT + " BEGIN "
+                + rollupSubtract("OLD")
+                + rollupAdd("NEW")
+                + " END");
+    }
+
+    private static void dropRollup(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_ROLLUP_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_ROLLUP_DELETE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_ROLLUP_UPDATE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DAILY_ROLLUP);
+    }
+
+    /**
+     * 创建全文检索表及同步触发器。
+     * 使用 FTS4 (Android 自带的 SQLite 没有 FTS5) 和 unicode61 分词 (不区分大小写)。unicode61 把连续的中文当作一个词，
+     * 只能按词首匹配，因此索引的不是原文，而是原文的二元分词：每个位置起的两个字，最后一个字单独一项，
+     * 例如 "坐地铁上班" 写入 "坐地 地铁 铁上 上班 班"。检索词按同样方式切分后作为短语查询 (buildSearchMatch)，
+     * 即在原文任意位置按子串匹配，中英文相同。分词在触发器中借助序号表完成，所有写入路径都会同步。
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SEARCH_POSITIONS + "(" + COLUMN_POSITION + " INTEGER PRIMARY KEY)");
+        db.execSQL("INSERT INTO " + TABLE_SEARCH_POSITIONS
+                + " WITH RECURSIVE p(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM p WHERE n < " + SEARCH_MAX_CHARS + ")"
+                + " SELECT n FROM p");
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_ACCOUNT_FTS + " USING fts4("
+                + COLUMN_NOTE + ", " + COLUMN_FTS_CATEGORY + ", tokenize=unicode61)");
+
+        String categoryName = "(SELECT " + COLUMN_NAME + " FROM " + TABLE_CATEGORIES
+                + " WHERE " + COLUMN_ID + " = NEW." + COLUMN_CATEGORY_ID + ")";
+        db.execSQL("CREATE TRIGGER " + TRIGGER_FTS_INSERT + " AFTER INSERT ON " + TABLE_ACCOUNT + " BEGIN "
+                + "INSERT INTO " + TABLE_ACCOUNT_FTS + " (docid, " + COLUMN_NOTE + ", " + COLUMN_FTS_CATEGORY + ")"
+                + " VALUES (NEW." + COLUMN_ID + ", " + bigrams("NEW." + COLUMN_NOTE) + ", " + bigrams(categoryName) + "); "
+                + "END");
+        db.execSQL("CREATE TRIGGER " + TRIGGER_FTS_DELETE + " AFTER DELETE ON " + TABLE_ACCOUNT + " BEGIN "
+                + "DELETE FROM " + TABLE_ACCOUNT_FTS + " WHERE docid = OLD." + COLUMN_ID + "; "
+                + "END");
+        // 只有备注或类别变化时才更新索引
+        db.execSQL("CREATE TRIGGER " + TRIGGER_FTS_UPDATE + " AFTER UPDATE OF " + COLUMN_NOTE + ", " + COLUMN_CATEGORY_ID
+                + " ON " + TABLE_ACCOUNT + " BEGIN "
+                + "UPDATE " + TABLE_ACCOUNT_FTS + " SET " + COLUMN_NOTE + " = " + bigrams("NEW." + COLUMN_NOTE) + ", "
+                + COLUMN_FTS_CATEGORY + " = " + bigrams(categoryName)
+                + " WHERE docid = NEW." + COLUMN_ID + "; "
+                + "END");
+    }
+
+    /**
+     * 文本表达式 -> 以空格连接的二元分词 (SQL 子查询)。按序号表的主键顺序逐字截取 substr(text, n, 2)，
+     * 最后一个位置只剩一个字；text 为 NULL 或空串时结果为 NULL。
+     * 触发器中不能使用 WITH，因此用序号表代替递归查询。
+     */
+    private static String bigrams(String text) {
+        return "(SELECT group_concat(substr(" + text + ", " + COLUMN_POSITION + ", 2), ' ')"
+                + " FROM " + TABLE_SEARCH_POSITIONS + " WHERE " + COLUMN_POSITION + " <= length(" + text + "))";
+    }
+
+    private static void dropSearchIndex(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_FTS_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_FTS_DELETE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_FTS_UPDATE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ACCOUNT_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEARCH_POSITIONS);
+    }
+
+    /**
+     * 创建变更日志及维护它的触发器。每条记录只保留最近一次变更：触发器先删除该记录的旧日志行，
+     * 再以新的 seq 插入，日志行数与备份之间的变更条数成正比，而非历史记录总数。
+     * 先 DELETE 再 INSERT，而不是 INSERT OR REPLACE：外层语句的冲突策略会覆盖触发器内的策略。
+     */
+    private static void createChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ACCOUNT_CHANGES + "("
+                + COLUMN_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COLUMN_ACCOUNT_ID + " INTEGER NOT NULL UNIQUE,"
+                + COLUMN_USER_ID + " TEXT NOT NULL,"
+                + COLUMN_DELETED + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX " + INDEX_CHANGES_USER_SEQ + " ON " + TABLE_ACCOUNT_CHANGES
+                + "(" + COLUMN_USER_ID + ", " + COLUMN_SEQ + ")");
+
+        db.execSQL("CREATE TRIGGER " + TRIGGER_CHANGES_INSERT + " AFTER INSERT ON " + TABLE_ACCOUNT + " BEGIN "
+                + logChange("NEW", 0)
+                + " END");
+        db.execSQL("CREATE TRIGGER " + TRIGGER_CHANGES_DELETE + " AFTER DELETE ON " + TABLE_ACCOUNT + " BEGIN "
+                + logChange("OLD", 1)
+                + " END");
+        db.execSQL("CREATE TRIGGER " + TRIGGER_CHANGES_UPDATE + " AFTER UPDATE ON " + TABLE_ACCOUNT + " BEGIN "
+                + logChange("NEW", 0)
+                + " END");
+    }
+
+    // 触发器语句：以新的 seq 记录 row (NEW/OLD) 的变更
+    private static String logChange(String row, int deleted) {
+        return "DELETE FROM " + TABLE_ACCOUNT_CHANGES + " WHERE " + COLUMN_ACCOUNT_ID + " = " + row + "." + COLUMN_ID + "; "
+                + "INSERT INTO " + TABLE_ACCOUNT_CHANGES + " (" + COLUMN_ACCOUNT_ID + ", " + COLUMN_USER_ID + ", " + COLUMN_DELETED + ")"
+                + " VALUES (" + row + "." + COLUMN_ID + ", " + row + "." + COLUMN_USER_ID + ", " + deleted + ");";
+    }
+
+    // 由 accounts 全量建立检索索引 (检索表需为空)
+    private static void fillSearchIndex(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_ACCOUNT_FTS + " (docid, " + COLUMN_NOTE + ", " + COLUMN_FTS_CATEGORY + ")"
+                + " SELECT a." + COLUMN_ID + ", " + bigrams("a." + COLUMN_NOTE) + ", " + bigrams("c." + COLUMN_NAME)
+                + " FROM " + TABLE_ACCOUNT + " a LEFT JOIN " + TABLE_CATEGORIES + " c ON c." + COLUMN_ID + " = a." + COLUMN_CATEGORY_ID);
+    }
+
+    // 由 accounts 原始数据全量计算汇总 (汇总表需为空)
+    private static void fillRollup(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_DAILY_ROLLUP + " " + buildRollupFromAccountsQuery());
+    }
+
+    // 与汇总表列顺序一致的原始数据聚合
+    private static String buildRollupFromAccountsQuery() {
+        return "SELECT " + COLUMN_USER_ID + ", " + COLUMN_DAY + ", "
+                + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ", "
+                + "SUM(" + COLUMN_AMOUNT + "), COUNT(*)"
+                + " FROM " + TABLE_ACCOUNT
+                + " GROUP BY 1, 2, 3, 4";
+    }
+
+    // 触发器语句：把 row (NEW/OLD) 计入汇总
+    private static String rollupAdd(String row) {
+        return "INSERT OR IGNORE INTO " + TABLE_DAILY_ROLLUP + " ("
+                + COLUMN_USER_ID + ", " + COLUMN_DAY + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ") VALUES ("
+                + row + "." + COLUMN_USER_ID + ", " + row + "." + COLUMN_DAY + ", "
+                + row + "." + COLUMN_TYPE_ID + ", " + row + "." + COLUMN_CATEGORY_ID + "); "
+                + "UPDATE " + TABLE_DAILY_ROLLUP + " SET "
+                + COLUMN_TOTAL_CENTS + " = " + COLUMN_TOTAL_CENTS + " + " + row + "." + COLUMN_AMOUNT + ", "
+                + COLUMN_ENTRY_COUNT + " = " + COLUMN_ENTRY_COUNT + " + 1"
+                + " WHERE " + rollupKeyMatches(row) + "; ";
+    }
+
+    // 触发器语句：把 row (NEW/OLD) 从汇总中扣除
+    private static String rollupSubtract(String row) {
+        return "UPDATE " + TABLE_DAILY_ROLLUP + " SET "
+                + COLUMN_TOTAL_CENTS + " = " + COLUMN_TOTAL_CENTS + " - " + row + "." + COLUMN_AMOUNT + ", "
+                + COLUMN_ENTRY_COUNT + " = " + COLUMN_ENTRY_COUNT + " - 1"
+                + " WHERE " + rollupKeyMatches(row) + "; "
+                + "DELETE FROM " + TABLE_DAILY_ROLLUP
+                + " WHERE " + rollupKeyMatches(row) + " AND " + COLUMN_ENTRY_COUNT + " = 0; ";
+    }
+
+    private static String rollupKeyMatches(String row) {
+        return COLUMN_USER_ID + " = " + row + "." + COLUMN_USER_ID
+                + " AND " + COLUMN_DAY + " = " + row + "." + COLUMN_DAY
+                + " AND " + COLUMN_TYPE_ID + " = " + row + "." + COLUMN_TYPE_ID
+                + " AND " + COLUMN_CATEGORY_ID + " = " + row + "." + COLUMN_CATEGORY_ID;
+    }
+
+    /**
+     * 一致性检查：由原始记录重新聚合，与汇总表逐行比较。
+     * @return 不一致的行数 (两边多出或数值不同的行都计入)；0 表示一致
+     */
+    public int checkRollupConsistency() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String rollup = "SELECT " + COLUMN_USER_ID + ", " + COLUMN_DAY + ", " + COLUMN_TYPE_ID + ", " + COLUMN_CATEGORY_ID + ", "
+                + COLUMN_TOTAL_CENTS + ", " + COLUMN_ENTRY_COUNT + " FROM " + TABLE_DAILY_ROLLUP;
+        String expected = buildRollupFromAccountsQuery();
+        long missing = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM (" + expected + " EXCEPT " + rollup + ")", null);
+        long extra = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM (" + rollup + " EXCEPT " + expected + ")", null);
+        return (int) (missing + extra);
+    }
+
+    /**
+     * 由原始记录重建汇总表 (在一个事务中完成，读者看不到中间状态)。
+     * 正常情况下触发器保证汇总表精确，仅在一致性检查失败时使用。
+     */
+    public void rebuildRollup() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            db.delete(TABLE_DAILY_ROLLUP, null, null);
+            fillRollup(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 一致性检查，不一致时重建汇总表。
+     * @return 检查时发现的不一致行数
+     */
+    public int verifyRollup() {
+        int mismatches = checkRollupConsistency();
+        if (mismatches > 0) {
+            rebuildRollup();
+        }
+        return mismatches;
+    }
+
+
+    // --- 变更日志 (增量备份) ---
+
+    /**
+     * 当前用户的变更水位线：日志中最大的 seq，没有日志时为 0。
+     * 之后的任何变更 seq 都更大；seq 不复用，日志被清理后也不会回退到已记录的水位线以下。
+     */
+    public long getChangeWatermark(String userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + COLUMN_SEQ + "), 0) FROM " + TABLE_ACCOUNT_CHANGES
+                + " WHERE " + COLUMN_USER_ID + " = ?", new String[]{userId});
+    }
+
+    /**
+     * 水位线 afterSeq 之后新增或修改、当前仍存在的记录，按 _id 键集分页 (afterId 为上一页最后一条的 _id，第一页传 0)。
+     * 先按 (user_id, seq) 索引取出变更的 id，再按主键读取记录，耗时与变更条数成正比。
+     * 调用方负责关闭返回的 Cursor。
+     */
+    public AccountCursor queryChangedAccountsPage(String userId, long afterSeq, long afterId, int limit,
+                                                  CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + AccountCursorMapper.LIST_PROJECTION + " FROM " + TABLE_ACCOUNT
+                        + " WHERE " + COLUMN_USER_ID + " = ? AND " + COLUMN_ID + " > ? AND " + COLUMN_ID + " IN ("
+                        + "SELECT " + COLUMN_ACCOUNT_ID + " FROM " + TABLE_ACCOUNT_CHANGES
+                        + " WHERE " + COLUMN_USER_ID + " = ? AND " + COLUMN_SEQ + " > ? AND " + COLUMN_DELETED + " = 0)"
+                        + " ORDER BY " + COLUMN_ID + " LIMIT ?",
+                new String[]{userId, String.valueOf(afterId), userId, String.valueOf(afterSeq), String.valueOf(limit)},
+                cancellationSignal);
+        return new AccountCursor(cursor, new AccountCursorMapper(cursor, typeCache, categoryCache, userId));
+    }
+
+    /**
+     * 水位线 afterSeq 之后删除的记录 id
+     */
+    public long[] getDeletedAccountIds(String userId, long afterSeq) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return readIds(db.rawQuery("SELECT " + COLUMN_ACCOUNT_ID + " FROM " + TABLE_ACCOUNT_CHANGES
+                        + " WHERE " + COLUMN_USER_ID + " = ? AND " + COLUMN_SEQ + " > ? AND " + COLUMN_DELETED + " = 1",
+                new String[]{userId, String.valueOf(afterSeq)}));
+    }
+
+    /**
+     * 备份已覆盖到 upToSeq 后清理日志：删除 seq 不超过它的行，日志只保留之后的变更。
+     * 之后再修改的记录会由触发器以新的 seq 重新写入。
+     * @return 删除的行数
+     */
+    public int pruneChangeLog(String userId, long upToSeq) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        return db.delete(TABLE_ACCOUNT_CHANGES, COLUMN_USER_ID + " = ? AND " + COLUMN_SEQ + " <= ?",
+                new String[]{userId, String.valueOf(upToSeq)});
+    }
+
+    /**
+     * 记录变更通知。通过本类写入的新增、修改、删除在提交后发布；批量操作以 RESET 发布。
+     */
+    public AccountChangeBus getChangeBus() {
+        return changeBus;
+    }
 
     // --- CRUD 操作 ---
 
@@ -72,14 +663,17 @@ public class DBHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(COLUMN_USER_ID, account.getUserId()); // 【核心修改】保存用户ID
-        values.put(COLUMN_TYPE, account.getType());
-        values.put(COLUMN_CATEGORY, account.getCategory());
-        values.put(COLUMN_AMOUNT, account.getAmount());
+        values.put(COLUMN_TYPE_ID, resolveTypeId(db, account.getType()));
+        values.put(COLUMN_CATEGORY_ID, resolveCategoryId(db, account.getCategory()));
+        values.put(COLUMN_AMOUNT, account.getAmountCents());
         values.put(COLUMN_DATE, account.getDate());
+        values.put(COLUMN_DAY, epochDayOf(account.getDate()));
         values.put(COLUMN_NOTE, account.getNote());
 
         long id = db.insert(TABLE_ACCOUNT, null, values);
-        db.close();
+        if (id != -1) {
+            changeBus.publish(AccountChange.inserted(account.getUserId(), id, epochDayOf(account.getDate())));
+        }
         return id;
     }
 
@@ -87,16 +681,29 @@ public class DBHelper extends SQLiteOpenHelper {
     public int updateAccount(Account account) {
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
-        values.put(COLUMN_TYPE, account.getType());
-        values.put(COLUMN_CATEGORY, account.getCategory());
-        values.put(COLUMN_AMOUNT, account.getAmount());
+        values.put(COLUMN_TYPE_ID, resolveTypeId(db, account.getType()));
+        values.put(COLUMN_CATEGORY_ID, resolveCategoryId(db, account.getCategory()));
+        values.put(COLUMN_AMOUNT, account.getAmountCents());
         values.put(COLUMN_DATE, account.getDate());
+        values.put(COLUMN_DAY, epochDayOf(account.getDate()));
         values.put(COLUMN_NOTE, account.getNote());
 
         // 【核心修改】增加 user_id 限制
-        int rows = db.update(TABLE_ACCOUNT, values, COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?",
-                new String[]{String.valueOf(account.getId()), account.getUserId()});
-        db.close();
+        String[] whereArgs = {String.valueOf(account.getId()), account.getUserId()};
+        // 读取旧日期与更新在同一事务中，变更通知同时包含新旧两个日期
+        long oldDay;
+        int rows;
+        db.beginTransactionNonExclusive();
+        try {
+            oldDay = findDay(db, whereArgs);
+            rows = db.update(TABLE_ACCOUNT, values, COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?", whereArgs);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (rows > 0) {
+            changeBus.publish(AccountChange.updated(account.getUserId(), account.getId(), oldDay, epochDayOf(account.getDate())));
+        }
         return rows;
     }
 
@@ -104,161 +711,823 @@ public class DBHelper extends SQLiteOpenHelper {
     public void deleteAccount(int accountId, String userId) {
         SQLiteDatabase db = this.getWritableDatabase();
         // 【核心修改】增加 user_id 限制
-        db.delete(TABLE_ACCOUNT, COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?",
-                new String[]{String.valueOf(accountId), userId});
-        db.close();
+        String[] whereArgs = {String.valueOf(accountId), userId};
+        long day;
+        int rows;
+        db.beginTransactionNonExclusive();
+        try {
+            day = findDay(db, whereArgs);
+            rows = db.delete(TABLE_ACCOUNT, COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?", whereArgs);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (rows > 0) {
+            changeBus.publish(AccountChange.deleted(userId, accountId, day));
+        }
+    }
+
+    // 按主键读取记录的 day；参数为 {_id, user_id}，记录不存在时返回 AccountChange.NO_DAY
+    private static long findDay(SQLiteDatabase db, String[] idAndUser) {
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_DAY + " FROM " + TABLE_ACCOUNT
+                + " WHERE " + COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?", idAndUser);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : AccountChange.NO_DAY;
+        } finally {
+            cursor.close();
+        }
     }
 
     // 【修改】传入 userId 参数，清空当前用户的记录
     public void deleteAllAccounts(String userId) {
         SQLiteDatabase db = this.getWritableDatabase();
         // 【核心修改】增加 user_id 限制
-        db.delete(TABLE_ACCOUNT, COLUMN_USER_ID + " = ?", new String[]{userId});
-        db.close();
+        int rows = db.delete(TABLE_ACCOUNT, COLUMN_USER_ID + " = ?", new String[]{userId});
+        if (rows > 0) {
+            changeBus.publish(AccountChange.reset(userId));
+        }
+    }
+
+    /**
+     * 批量插入记录 (按 DEFAULT_BATCH_SIZE 分批提交)。
+     * @return 成功插入的条数
+     */
+    public int addAccounts(Collection<Account> accounts) {
+        return addAccounts(accounts, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 批量插入记录：复用同一条预编译 SQLiteStatement，每 batchSize 条提交一次事务。
+     * batchSize <= 0 时全部记录在一个事务中提交。
+     * @return 成功插入的条数
+     */
+    public int addAccounts(Collection<Account> accounts, int batchSize) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        PendingNames names = registerLookupNames(db, accounts);
+        SQLiteStatement statement = db.compileStatement(INSERT_ACCOUNT_SQL);
+        Set<String> userIds = new HashSet<>();
+        int inserted = 0;
+        try {
+            db.beginTransactionNonExclusive();
+            try {
+                for (Account account : accounts) {
+                    insertAccount(statement, account, account.getUserId(), names);
+                    userIds.add(account.getUserId());
+                    inserted++;
+                    if (batchSize > 0 && inserted % batchSize == 0) {
+                        // 提交当前批次，开启下一批
+                        db.setTransactionSuccessful();
+                        db.endTransaction();
+                        db.beginTransactionNonExclusive();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            statement.close();
+            // 失败时之前的批次已经提交，同样需要通知
+            if (inserted > 0) {
+                for (String userId : userIds) {
+                    changeBus.publish(AccountChange.reset(userId));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 用 accounts 整体替换当前用户的全部记录 (导入备份使用)。
+     * 删除与插入在同一个事务中完成：要么全部生效，要么保持原数据不变。
+     * 所有记录都归属到 userId，忽略记录自身的 id 和 userId。
+     * @return 插入的条数
+     */
+    public int replaceAllAccounts(String userId, Collection<Account> accounts) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        PendingNames names = registerLookupNames(db, accounts);
+        SQLiteStatement statement = db.compileStatement(INSERT_ACCOUNT_SQL);
+        int inserted = 0;
+        try {
+            db.beginTransactionNonExclusive();
+            try {
+                db.delete(TABLE_ACCOUNT, COLUMN_USER_ID + " = ?", new String[]{userId});
+                for (Account account : accounts) {
+                    insertAccount(statement, account, userId, names);
+                    inserted++;
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            statement.close();
+        }
+        changeBus.publish(AccountChange.reset(userId));
+        return inserted;
+    }
+
+    /**
+     * 流式版本的 replaceAllAccounts：从 source 逐条读取记录，每凑满 batchSize 条登记新名称并批量插入，
+     * 内存中最多只保留一批记录。新名称在事务内写入字典表，提交之后才加入共享的字典缓存 (见 PendingNames)。删除与全部插入在同一个事务中完成，提交之前其他连接读到的仍是原数据
+     * (WAL 下读取已提交的快照)；读取失败、格式错误或取消时整体回滚，原数据保持不变。
+     * source 中没有任何记录时同样回滚，不会清空现有数据。source 由调用方关闭。
+     * @return 插入的条数
+     */
+    public int replaceAllAccounts(String userId, AccountSource source, int batchSize, CancellationSignal signal) throws IOException {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(INSERT_ACCOUNT_SQL);
+        List<Account> batch = new ArrayList<>(batchSize);
+        PendingNames names = new PendingNames();
+        int inserted = 0;
+        try {
+            db.beginTransactionNonExclusive();
+            try {
+                db.delete(TABLE_ACCOUNT, COLUMN_USER_ID + " = ?", new String[]{userId});
+                boolean more = true;
+                while (more) {
+                    batch.clear();
+                    Account account = null;
+                    while (batch.size() < batchSize && (account = source.next()) != null) {
+                        batch.add(account);
+                    }
+                    more = account != null;
+                    if (signal != null) signal.throwIfCanceled();
+                    // 名称只能在读到时登记，因此在事务内进行；提交前只记在 names 中
+                    names.register(db, batch);
+                    for (Account a : batch) {
+                        insertAccount(statement, a, userId, names);
+                        inserted++;
+                    }
+                }
+                if (inserted > 0) {
+                    db.setTransactionSuccessful();
+                }
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            statement.close();
+        }
+        if (inserted > 0) {
+            names.publish();
+            changeBus.publish(AccountChange.reset(userId));
+        }
+        return inserted;
+    }
+
+    /**
+     * 把 source 中的记录合并到当前用户的记录中 (不删除任何现有记录)：
+     * 先在事务内读取现有记录的内容哈希，再逐批读取 source，内容已存在的记录跳过，其余记录批量插入。
+     * sameSource 为 true (source 由本数据库导出，id 与本机记录属于同一序列) 时，id 相同但内容不同的记录
+     * 为冲突，保留本机版本；否则 id 与本机无关，只按内容匹配。
+     * 全部在同一个事务中完成，读取失败、格式错误或取消时整体回滚；新名称提交之后才加入字典缓存。
+     * source 由调用方关闭。
+     * @return 插入、跳过和冲突的条数
+     */
+    public MergeResult mergeAccounts(String userId, AccountSource source, boolean sameSource, int batchSize,
+                                     CancellationSignal signal) throws IOException {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(INSERT_ACCOUNT_SQL);
+        List<Account> batch = new ArrayList<>(batchSize);
+        List<Account> fresh = new ArrayList<>(batchSize);
+        PendingNames names = new PendingNames();
+        int inserted = 0;
+        int skipped = 0;
+        int conflicting = 0;
+        try {
+            db.beginTransactionNonExclusive();
+            try {
+                ContentHashIndex existing = readContentHashes(db, userId, sameSource, signal);
+                boolean more = true;
+                while (more) {
+                    batch.clear();
+                    fresh.clear();
+                    Account account = null;
+                    while (batch.size() < batchSize && (account = source.next()) != null) {
+                        batch.add(account);
+                    }
+                    more = account != null;
+                    if (signal != null) signal.throwIfCanceled();
+                    for (Account a : batch) {
+                        long hash = ContentHash.of(a.getType(), a.getCategory(), a.getAmountCents(), a.getDate(), a.getNote());
+                        switch (existing.match(a.getId(), hash)) {
+                            case NEW:
+                                fresh.add(a);
+                                break;
+                            case DUPLICATE:
+                                skipped++;
+                                break;
+                            case CONFLICT:
+                                conflicting++;
+                                break;
+                        }
+                    }
+                    names.register(db, fresh);
+                    for (Account a : fresh) {
+                        insertAccount(statement, a, userId, names);
+                        inserted++;
+                    }
+                }
+                if (inserted > 0) {
+                    db.setTransactionSuccessful();
+                }
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            statement.close();
+        }
+        if (inserted > 0) {
+            names.publish();
+            changeBus.publish(AccountChange.reset(userId));
+        }
+        return new MergeResult(inserted, skipped, conflicting);
+    }
+
+    // 按 id 顺序读取当前用户全部记录的内容哈希；只在内存中保留 id 和哈希 (withIds 为 false 时只保留哈希)
+    private ContentHashIndex readContentHashes(SQLiteDatabase db, String userId, boolean withIds, CancellationSignal signal) {
+        try (Cursor cursor = db.rawQuery("SELECT " + AccountCursorMapper.LIST_PROJECTION + " FROM " + TABLE_ACCOUNT
+                        + " WHERE " + COLUMN_USER_ID + " = ? ORDER BY " + COLUMN_ID,
+                new String[]{userId}, signal)) {
+            AccountCursorMapper mapper = new AccountCursorMapper(cursor, typeCache, categoryCache, userId);
+            long[] ids = withIds ? new long[cursor.getCount()] : null;
+            long[] hashes = new long[cursor.getCount()];
+            int i = 0;
+            while (cursor.moveToNext() && i < hashes.length) {
+                if (ids != null) ids[i] = mapper.readId(cursor);
+                hashes[i] = ContentHash.of(typeCache.nameOf(mapper.readTypeId(cursor)),
+                        categoryCache.nameOf(mapper.readCategoryId(cursor)),
+                        mapper.readAmountCents(cursor), mapper.readDate(cursor), mapper.readNote(cursor));
+                i++;
+            }
+            return new ContentHashIndex(ids, hashes);
+        }
+    }
+
+    // 绑定参数并执行预编译的 INSERT 语句 (参数顺序与 INSERT_ACCOUNT_SQL 一致)
+    // 类型/类别名称需已登记到 names (已提交的名称直接从缓存解析)
+    private long insertAccount(SQLiteStatement statement, Account account, String userId, PendingNames names) {
+        statement.clearBindings();
+        bindStringOrNull(statement, 1, userId);
+        statement.bindLong(2, names.typeId(account.getType()));
+        statement.bindLong(3, names.categoryId(account.getCategory()));
+        statement.bindLong(4, account.getAmountCents());
+        bindStringOrNull(statement, 5, account.getDate());
+        statement.bindLong(6, epochDayOf(account.getDate()));
+        bindStringOrNull(statement, 7, account.getNote());
+        return statement.executeInsert();
+    }
+
+    // --- 字典 ---
+
+    /**
+     * @return 类型 id 对应的名称；未知 id 返回 null
+     */
+    public String getTypeName(int typeId) {
+        return typeCache.nameOf(typeId);
+    }
+
+    /**
+     * @return 类别 id 对应的名称；未知 id 返回 null
+     */
+    public String getCategoryName(int categoryId) {
+        return categoryCache.nameOf(categoryId);
+    }
+
+    private int resolveTypeId(SQLiteDatabase db, String name) {
+        return resolveId(db, TABLE_TYPES, typeCache, name);
+    }
+
+    private int resolveCategoryId(SQLiteDatabase db, String name) {
+        return resolveId(db, TABLE_CATEGORIES, categoryCache, name);
+    }
+
+    /**
+     * 名称 -> id。字典中没有的名称 (如用户自定义类别、导入数据中的类别) 写入字典表并加入缓存。
+     * null 或空串记为 0。
+     */
+    private static int resolveId(SQLiteDatabase db, String table, LookupCache cache, String name) {
+        if (name == null || name.isEmpty()) return 0;
+        int id = cache.idOf(name);
+        if (id != 0) return id;
+        synchronized (cache) {
+            id = cache.idOf(name);
+            if (id == 0) {
+                id = insertName(db, table, name);
+                cache.put(id, name);
+            }
+        }
+        return id;
+    }
+
+    // 写入字典表并返回 id；名称已存在 (例如其他连接写入) 时直接查询
+    private static int insertName(SQLiteDatabase db, String table, String name) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_NAME, name);
+        long rowId = db.insert(table, null, values);
+        if (rowId == -1) {
+            rowId = DatabaseUtils.longForQuery(db,
+                    "SELECT " + COLUMN_ID + " FROM " + table + " WHERE " + COLUMN_NAME + " = ?", new String[]{name});
+        }
+        return (int) rowId;
+    }
+
+    /**
+     * 在批量事务之外登记 accounts 中的所有新名称：写入字典表 (自动提交) 后立即加入缓存。
+     * 事务内不能使用：回滚后字典表中没有这些行，其他线程却可能已经从缓存读到并使用了这些 id；
+     * 事务内登记需使用 PendingNames，提交后再 publish()。
+     * @return 已发布的登记结果，供 insertAccount 解析名称
+     */
+    private PendingNames registerLookupNames(SQLiteDatabase db, Collection<Account> accounts) {
+        PendingNames names = new PendingNames();
+        names.register(db, accounts);
+        names.publish();
+        return names;
+    }
+
+    /**
+     * 批量写入时新登记的类型/类别名称。名称写入字典表后只记在本对象中 (本次写入通过 typeId/categoryId 解析)，
+     * 不加入共享的字典缓存；所在事务提交之后调用 publish()，每个缓存只更新一次。
+     * 事务回滚时直接丢弃本对象即可：其他线程 (例如另一个 DBExecutor 线程上的 addAccount) 不会读到未提交的 id。
+     */
+    private final class PendingNames {
+        private final Map<String, Integer> types = new HashMap<>();
+        private final Map<String, Integer> categories = new HashMap<>();
+
+        void register(SQLiteDatabase db, Collection<Account> accounts) {
+            for (Account account : accounts) {
+                registerName(db, TABLE_TYPES, typeCache, types, account.getType());
+                registerName(db, TABLE_CATEGORIES, categoryCache, categories, account.getCategory());
+            }
+        }
+
+        int typeId(String name) {
+            return idOf(typeCache, types, name);
+        }
+
+        int categoryId(String name) {
+            return idOf(categoryCache, categories, name);
+        }
+
+        void publish() {
+            typeCache.putAll(types);
+            categoryCache.putAll(categories);
+        }
+
+        private int idOf(LookupCache cache, Map<String, Integer> added, String name) {
+            int id = cache.idOf(name);
+            if (id != 0 || name == null) return id;
+            Integer pending = added.get(name);
+            return pending != null ? pending : 0;
+        }
+    }
+
+    // 缓存和 added 中都没有的名称写入字典表，id 记入 added (尚未加入缓存)
+    private static void registerName(SQLiteDatabase db, String table, LookupCache cache, Map<String, Integer> added, String name) {
+        if (name == null || name.isEmpty() || cache.idOf(name) != 0 || added.containsKey(name)) return;
+        added.put(name, insertName(db, table, name));
+    }
+
+    // 写入 day 列：与迁移时 julianday() 的处理一致，无法解析的日期记为 0
+    private static long epochDayOf(String date) {
+        try {
+            return DateUtil.parseEpochDay(date);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    // bindString 不接受 null，需显式绑定 NULL
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
     }
 
     // --- 查询操作 ---
 
     /**
-     * 【修改】新增 userId 参数，所有查询都基于当前用户
+     * 按筛选条件查询当前用户的全部记录
      */
-    public List<Account> getFilteredAccounts(String userId, String type, String category, String startDate, String endDate, String orderBy) {
+    public List<Account> getFilteredAccounts(AccountQuery query) {
         List<Account> accountList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
 
-        // 1. 构建 WHERE 子句和参数列表
-        StringBuilder whereClause = new StringBuilder();
-        List<String> whereArgs = new ArrayList<>();
+        Cursor cursor = db.rawQuery(query.sql(AccountQuery.Select.LIST), queryArgs(query, null, 0));
+        readAccounts(cursor, accountList, query.getUserId());
+        return accountList;
+    }
 
-        // 【核心修改】始终根据用户ID筛选
-        whereClause.append(COLUMN_USER_ID).append(" = ?");
-        whereArgs.add(userId);
+    /**
+     * 分页查询 (键集分页)：按 query 的排序方式，返回排在 after 之后的最多 limit 条记录。
+     * 每一页都直接在索引上定位，耗时与所在页数无关；不会像遍历单个大 Cursor 那样在换窗口时重新执行查询并跳过已读的行。
+     * 查询在首次 getCount() / move 时执行。调用方负责关闭返回的 Cursor。
+     * @param after 上一页的最后一条记录；为 null 时返回第一页
+     */
+    public AccountCursor queryAccountsPage(AccountQuery query, Account after, int limit, CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        AccountQuery.Select select = after != null ? AccountQuery.Select.PAGE_AFTER : AccountQuery.Select.PAGE_FIRST;
+        Cursor cursor = db.rawQuery(query.sql(select), queryArgs(query, after, limit), cancellationSignal);
+        return new AccountCursor(cursor, new AccountCursorMapper(cursor, typeCache, categoryCache, query.getUserId()));
+    }
 
+    /**
+     * 列表的一页：同 queryAccountsPage，并在调用线程 (后台) 上执行查询、填充整页，
+     * 再从同一个 Cursor 读出本页各行的 _id (AccountCursor.getItemIds)，供列表作稳定 id 和差异计算。
+     * limit 应远小于一个 CursorWindow 能容纳的行数：整页在一个窗口内，之后在主线程绑定时不会再执行查询。
+     * _id 与行数据来自同一次查询，必然一致；只使用读连接，不开启事务，不占用写锁。
+     */
+    public AccountCursor loadAccountsPage(AccountQuery query, Account after, int limit, CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
 
-        if (type != null && !type.isEmpty() && !"全部".equals(type)) {
-            if (whereClause.length() > 0) whereClause.append(" AND ");
-            whereClause.append(COLUMN_TYPE).append(" = ?");
-            whereArgs.add(type);
+        AccountQuery.Select select = after != null ? AccountQuery.Select.PAGE_AFTER : AccountQuery.Select.PAGE_FIRST;
+        Cursor cursor = db.rawQuery(query.sql(select), queryArgs(query, after, limit), cancellationSignal);
+        try {
+            int idIndex = cursor.getColumnIndexOrThrow(COLUMN_ID);
+            long[] ids = new long[cursor.getCount()];
+            int i = 0;
+            while (cursor.moveToNext() && i < ids.length) {
+                ids[i++] = cursor.getLong(idIndex);
+            }
+            cursor.moveToPosition(-1);
+            return new AccountCursor(cursor, new AccountCursorMapper(cursor, typeCache, categoryCache, query.getUserId()), ids);
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
         }
-        if (category != null && !category.isEmpty() && !"全部".equals(category)) {
-            if (whereClause.length() > 0) whereClause.append(" AND ");
-            whereClause.append(COLUMN_CATEGORY).append(" = ?");
-            whereArgs.add(category);
+    }
+
+    /**
+     * 从第一页开始逐页加载 (每页 pageSize 条)，直到至少 minRows 条或没有更多记录；至少加载一页。
+     * 列表刷新时用于重新加载已经显示的范围：耗时和内存与已加载的行数成正比，与结果总数无关。
+     * 失败或取消时关闭已加载的页。
+     */
+    public AccountPages loadAccountPages(AccountQuery query, int minRows, int pageSize, CancellationSignal cancellationSignal) {
+        List<AccountCursor> pages = new ArrayList<>();
+        try {
+            int loaded = 0;
+            Account after = null;
+            while (true) {
+                AccountCursor page = loadAccountsPage(query, after, pageSize, cancellationSignal);
+                pages.add(page);
+                loaded += page.getCount();
+                if (page.getCount() < pageSize || loaded >= minRows) break;
+                page.moveToLast();
+                after = page.getAccount();
+                page.moveToPosition(-1);
+            }
+            return new AccountPages(pages, pageSize);
+        } catch (RuntimeException e) {
+            for (AccountCursor page : pages) {
+                page.close();
+            }
+            throw e;
         }
-        if (startDate != null && !startDate.isEmpty() && endDate != null && !endDate.isEmpty()) {
-            if (whereClause.length() > 0) whereClause.append(" AND ");
-            whereClause.append(COLUMN_DATE).append(" BETWEEN ? AND ?");
-            whereArgs.add(startDate);
-            whereArgs.add(endDate);
+    }
+
+    /**
+     * 按筛选条件查询当前用户的全部记录，返回单个 Cursor。
+     * getCount() 需要统计全部匹配的行，之后每次换窗口都会重新执行查询并跳过已读的行，
+     * 因此只适合条数有限的结果；交易列表使用 loadAccountsPage / loadAccountPages 按页加载。
+     * 调用方负责关闭返回的 Cursor。
+     */
+    public AccountCursor queryAccounts(AccountQuery query) {
+        return queryAccounts(query, null);
+    }
+
+    /**
+     * 同上，cancellationSignal 被取消时，执行中的查询 (包括之后填充窗口) 抛出 OperationCanceledException
+     */
+    public AccountCursor queryAccounts(AccountQuery query, CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(query.sql(AccountQuery.Select.LIST), queryArgs(query, null, 0), cancellationSignal);
+        return new AccountCursor(cursor, new AccountCursorMapper(cursor, typeCache, categoryCache, query.getUserId()));
+    }
+
+    // query 的绑定参数 (名称由内存字典解析为 id)
+    String[] queryArgs(AccountQuery query, Account after, int limit) {
+        List<String> args = new ArrayList<>();
+        query.appendArgs(typeCache, categoryCache, after, limit, args);
+        return args.toArray(new String[0]);
+    }
+
+    // 读取单列整数结果并关闭 Cursor
+    private static long[] readIds(Cursor cursor) {
+        try {
+            long[] ids = new long[cursor.getCount()];
+            int i = 0;
+            while (cursor.moveToNext() && i < ids.length) {
+                ids[i++] = cursor.getLong(0);
+            }
+            return ids;
+        } finally {
+            cursor.close();
         }
+    }
 
-        String whereString = whereClause.length() > 0 ? whereClause.toString() : null;
-        String[] whereArray = whereArgs.toArray(new String[0]);
+    /**
+     * 全文检索当前用户的记录：在备注和类别名称中按子串匹配 (中文词不需要以空白分隔)，多个关键词 (以空白分隔) 需同时命中。
+     * 先只读取命中记录的 docid 和 matchinfo 在内存中打分排序，再按 id 读取前 limit 条完整记录，
+     * 命中很多时也不会把全部记录读入内存。
+     * @return 按相关度降序 (相同时新记录在前) 的记录；关键词为空时返回空列表
+     */
+    public List<Account> searchAccounts(String userId, String keywords, int limit) {
+        return searchAccounts(userId, keywords, limit, null);
+    }
 
-        // 2. 执行查询
-        String selectQuery = "SELECT * FROM " + TABLE_ACCOUNT;
-        if (whereString != null) {
-            selectQuery += " WHERE " + whereString;
+    /**
+     * 同上，可通过 cancellationSignal 取消 (抛出 OperationCanceledException)
+     */
+    public List<Account> searchAccounts(String userId, String keywords, int limit, CancellationSignal cancellationSignal) {
+        String match = buildSearchMatch(keywords);
+        if (match == null || limit <= 0) return new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        // 1. 命中的 id 与相关度
+        long[] ids = new long[16];
+        double[] scores = new double[16];
+        int count = 0;
+        Cursor cursor = db.rawQuery(buildSearchQuery(), new String[]{match, userId}, cancellationSignal);
+        try {
+            while (cursor.moveToNext()) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                ids[count] = cursor.getLong(0);
+                scores[count] = rankMatchInfo(cursor.getBlob(1), SEARCH_COLUMN_WEIGHTS);
+                count++;
+            }
+        } finally {
+            cursor.close();
         }
+        if (count == 0) return new ArrayList<>();
 
-        String finalOrderBy = (orderBy != null && !orderBy.isEmpty()) ? orderBy : COLUMN_DATE + " DESC, " + COLUMN_ID + " DESC";
-        selectQuery += " ORDER BY " + finalOrderBy;
+        // 2. 按相关度排序，取前 limit 条
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        final long[] hitIds = ids;
+        final double[] hitScores = scores;
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Double.compare(hitScores[b], hitScores[a]);
+            return byScore != 0 ? byScore : Long.compare(hitIds[b], hitIds[a]);
+        });
+        int size = Math.min(limit, count);
 
-        Cursor cursor = db.rawQuery(selectQuery, whereArray);
+        // 3. 读取完整记录并恢复相关度顺序 (id 均为整数，直接拼入 IN 列表)
+        StringBuilder idList = new StringBuilder();
+        Map<Long, Integer> rankById = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            long id = hitIds[order[i]];
+            if (i > 0) idList.append(',');
+            idList.append(id);
+            rankById.put(id, i);
+        }
+        List<Account> unordered = new ArrayList<>(size);
+        readAccounts(db.rawQuery("SELECT " + AccountCursorMapper.LIST_PROJECTION + " FROM " + TABLE_ACCOUNT
+                + " WHERE " + COLUMN_ID + " IN (" + idList + ")", null, cancellationSignal), unordered, userId);
+        Account[] ranked = new Account[size];
+        for (Account account : unordered) {
+            ranked[rankById.get((long) account.getId())] = account;
+        }
+        List<Account> result = new ArrayList<>(size);
+        for (Account account : ranked) {
+            if (account != null) result.add(account);
+        }
+        return result;
+    }
 
-        // 3. 解析 Cursor
-        if (cursor.moveToFirst()) {
-            do {
-                Account account = new Account();
-                account.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                account.setUserId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USER_ID))); // 【新增】读取用户ID
-                account.setType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TYPE)));
-                account.setCategory(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CATEGORY)));
-                account.setAmount(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_AMOUNT)));
-                account.setDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DATE)));
-                account.setNote(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NOTE)));
-                accountList.add(account);
-            } while (cursor.moveToNext());
+    /**
+     * 用户输入 -> FTS 查询表达式：按空白拆分，每个词切成与索引相同的二元分词，作为加引号的短语查询
+     * (例如 "地铁卡" -> "地铁 铁卡")，输入中的运算符和特殊字符不生效；只有一个字的词按前缀匹配二元分词。
+     * 多个词隐式 AND。没有字母或数字的词忽略；没有有效关键词时返回 null。
+     */
+    static String buildSearchMatch(String keywords) {
+        if (keywords == null) return null;
+        StringBuilder match = new StringBuilder();
+        for (String word : keywords.trim().split("\\s+")) {
+            String term = word.replace("\"", "").replace("*", "");
+            if (!term.codePoints().anyMatch(Character::isLetterOrDigit)) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append('"');
+            int length = term.codePointCount(0, term.length());
+            if (length == 1) {
+                match.append(term).append('*');
+            } else {
+                for (int i = 0; i < length - 1; i++) {
+                    if (i > 0) match.append(' ');
+                    int start = term.offsetByCodePoints(0, i);
+                    match.append(term, start, term.offsetByCodePoints(start, 2));
+                }
+            }
+            match.append('"');
         }
-        cursor.close();
-        return accountList;
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    // 参数: match, userId；结果列依次为 docid, matchinfo('pcx')
+    static String buildSearchQuery() {
+        return "SELECT f.docid, matchinfo(" + TABLE_ACCOUNT_FTS + ", 'pcx')"
+                + " FROM " + TABLE_ACCOUNT_FTS + " f"
+                + " JOIN " + TABLE_ACCOUNT + " a ON a." + COLUMN_ID + " = f.docid"
+                + " WHERE " + TABLE_ACCOUNT_FTS + " MATCH ? AND a." + COLUMN_USER_ID + " = ?";
     }
 
     /**
-     * 【修改】获取当前用户总收支的摘要信息
+     * 由 matchinfo('pcx') 计算相关度：对每个关键词、每列累加 (本行命中次数 / 全表命中次数) * 列权重，
+     * 即 SQLite 文档中的简单排序函数，稀有词的命中得分更高。
+     * blob 为本机字节序的 32 位无符号整数数组：[短语数 p, 列数 c, 然后每个短语每列 3 个值]。
      */
-    public Cursor getAccountSummary(String userId, String startDate, String endDate) {
+    static double rankMatchInfo(byte[] matchInfo, double[] columnWeights) {
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = info.get(0);
+        int columnCount = info.get(1);
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int base = 2 + 3 * (phrase * columnCount + column);
+                int hitsInRow = info.get(base);
+                int hitsInAllRows = info.get(base + 1);
+                if (hitsInRow > 0) {
+                    double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                    score += weight * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 获取当前用户的记录总数 (不加载记录本身)
+     */
+    public long getAccountCount(String userId) {
         SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.queryNumEntries(db, TABLE_ACCOUNT, COLUMN_USER_ID + " = ?", new String[]{userId});
+    }
 
-        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_DATE + " BETWEEN ? AND ?";
-        String[] whereArgs = new String[]{userId, startDate, endDate};
+    /**
+     * 按主键读取当前用户的一条记录 (rowid 查找，不扫描索引)。
+     * 编辑页只通过 Intent 传递 _id，打开时读取最新数据。
+     * @return 记录不存在或不属于该用户时返回 null
+     */
+    public Account getAccountById(int id, String userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + AccountCursorMapper.LIST_PROJECTION + " FROM " + TABLE_ACCOUNT
+                + " WHERE " + COLUMN_ID + " = ? AND " + COLUMN_USER_ID + " = ?",
+                new String[]{String.valueOf(id), userId});
+        try {
+            if (!cursor.moveToFirst()) return null;
+            return new AccountCursorMapper(cursor, typeCache, categoryCache, userId).map(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
 
-        String query = "SELECT " +
-                "SUM(CASE WHEN " + COLUMN_TYPE + " = '收入' THEN " + COLUMN_AMOUNT + " ELSE 0 END) as total_income, " +
-                "SUM(CASE WHEN " + COLUMN_TYPE + " = '支出' THEN " + COLUMN_AMOUNT + " ELSE 0 END) as total_expense " +
-                "FROM " + TABLE_ACCOUNT +
-                " WHERE " + whereClause;
+    /**
+     * 解析 Cursor 并关闭。列序号只解析一次 (见 AccountCursorMapper)，类型/类别 id 由内存字典解析为名称。
+     * @param userId 查询条件中的用户 ID，结果不含 user_id 列时填入每条记录
+     */
+    void readAccounts(Cursor cursor, List<Account> accountList, String userId) {
+        try {
+            AccountCursorMapper mapper = new AccountCursorMapper(cursor, typeCache, categoryCache, userId);
+            while (cursor.moveToNext()) {
+                accountList.add(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
 
-        return db.rawQuery(query, whereArgs);
+    /**
+     * 【修改】获取当前用户总收支的摘要信息 (total_income / total_expense，单位：分)
+     * 图表相关的三个查询都读按日汇总表，扫描行数与天数成正比，而非记录条数。
+     */
+    public Cursor getAccountSummary(String userId, String startDate, String endDate) {
+        return getAccountSummary(userId, startDate, endDate, null);
+    }
+
+    public Cursor getAccountSummary(String userId, String startDate, String endDate, CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return db.rawQuery(buildSummaryQuery(), rangeArgs(userId, startDate, endDate), cancellationSignal);
+    }
+
+    // 参数: userId, startDay, endDay
+    static String buildSummaryQuery() {
+        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_DAY + " BETWEEN ? AND ?";
+        return "SELECT " +
+                "SUM(CASE WHEN " + COLUMN_TYPE_ID + " = " + TYPE_INCOME + " THEN " + COLUMN_TOTAL_CENTS + " ELSE 0 END) as total_income, " +
+                "SUM(CASE WHEN " + COLUMN_TYPE_ID + " = " + TYPE_EXPENSE + " THEN " + COLUMN_TOTAL_CENTS + " ELSE 0 END) as total_expense " +
+                "FROM " + TABLE_DAILY_ROLLUP +
+                " WHERE " + whereClause;
     }
 
     /**
-     * 【修改】获取当前用户的支出饼图数据
+     * 【修改】获取当前用户的支出饼图数据 (category_id / total_amount，单位：分)，类别名称用 getCategoryName 解析
      */
     public Cursor getPieChartData(String userId, String startDate, String endDate) {
-        SQLiteDatabase db = this.getReadableDatabase();
+        return getPieChartData(userId, startDate, endDate, null);
+    }
 
-        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_TYPE + " = '支出' AND " +
-                COLUMN_DATE + " BETWEEN ? AND ?";
-        String[] whereArgs = new String[]{userId, startDate, endDate};
+    public Cursor getPieChartData(String userId, String startDate, String endDate, CancellationSignal cancellationSignal) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return db.rawQuery(buildPieChartQuery(), rangeArgs(userId, startDate, endDate), cancellationSignal);
+    }
 
-        String query = "SELECT " + COLUMN_CATEGORY + ", SUM(" + COLUMN_AMOUNT + ") as total_amount " +
-                "FROM " + TABLE_ACCOUNT +
+    // 参数: userId, startDay, endDay
+    static String buildPieChartQuery() {
+        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_TYPE_ID + " = " + TYPE_EXPENSE + " AND " +
+                COLUMN_DAY + " BETWEEN ? AND ?";
+        return "SELECT " + COLUMN_CATEGORY_ID + ", SUM(" + COLUMN_TOTAL_CENTS + ") as total_amount " +
+                "FROM " + TABLE_DAILY_ROLLUP +
                 " WHERE " + whereClause +
-                " GROUP BY " + COLUMN_CATEGORY +
+                " GROUP BY " + COLUMN_CATEGORY_ID +
                 " HAVING total_amount > 0" +
                 " ORDER BY total_amount DESC";
-
-        return db.rawQuery(query, whereArgs);
     }
 
     /**
-     * 【修改】获取当前用户的收支趋势折线图数据
+     * 【修改】获取当前用户的收支趋势折线图数据 (单位：分)，按时间升序。
+     * 跨度超过 30 天按月汇总 (timeKey 为 yyyy-MM)，否则按日汇总 (timeKey 为 yyyy-MM-dd)。
+     * SQL 只按整数 day 分组 (顺序与汇总表主键一致，无需排序)，月份在这里合并，不再对每行调用 strftime。
      */
-    public Cursor getTrendDataByRange(String userId, String startDate, String endDate) {
+    public List<TrendPoint> getTrendDataByRange(String userId, String startDate, String endDate) {
+        return getTrendDataByRange(userId, startDate, endDate, null);
+    }
+
+    public List<TrendPoint> getTrendDataByRange(String userId, String startDate, String endDate, CancellationSignal cancellationSignal) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String groupByFormat;
+        long startDay = DateUtil.parseEpochDay(startDate);
+        long endDay = DateUtil.parseEpochDay(endDate);
+        boolean monthly = endDay - startDay > TREND_DAILY_MAX_DAYS;
+
+        List<TrendPoint> points = new ArrayList<>();
+        Cursor cursor = db.rawQuery(buildTrendQuery(),
+                new String[]{userId, String.valueOf(startDay), String.valueOf(endDay)}, cancellationSignal);
         try {
-            // 超过一个月按月分组，否则按日分组
-            long diffDays = TimeUnit.DAYS.convert(dateFormat.parse(endDate).getTime() - dateFormat.parse(startDate).getTime(), TimeUnit.MILLISECONDS);
-            groupByFormat = (diffDays > 30) ? "strftime('%Y-%m', " : "strftime('%Y-%m-%d', ";
-        } catch (ParseException e) {
-            groupByFormat = "strftime('%Y-%m-%d', "; // 错误时默认按日
+            long bucket = Long.MIN_VALUE;
+            long income = 0;
+            long expense = 0;
+            while (cursor.moveToNext()) {
+                long day = cursor.getLong(0);
+                long dayBucket = monthly ? DateUtil.firstDayOfMonth(day) : day;
+                if (dayBucket != bucket) {
+                    if (bucket != Long.MIN_VALUE) {
+                        points.add(new TrendPoint(trendKey(bucket, monthly), income, expense));
+                    }
+                    bucket = dayBucket;
+                    income = 0;
+                    expense = 0;
+                }
+                income += cursor.getLong(1);
+                expense += cursor.getLong(2);
+            }
+            if (bucket != Long.MIN_VALUE) {
+                points.add(new TrendPoint(trendKey(bucket, monthly), income, expense));
+            }
+        } finally {
+            cursor.close();
         }
+        return points;
+    }
 
-        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_DATE + " BETWEEN ? AND ?";
-        String[] whereArgs = new String[]{userId, startDate, endDate};
+    private static String trendKey(long day, boolean monthly) {
+        String date = DateUtil.formatEpochDay(day);
+        return monthly ? date.substring(0, 7) : date;
+    }
 
-        String query =
+    // 参数: userId, startDay, endDay；结果列依次为 day, total_income, total_expense
+    static String buildTrendQuery() {
+        String whereClause = COLUMN_USER_ID + " = ? AND " + COLUMN_DAY + " BETWEEN ? AND ?";
+        return
                 "SELECT " +
-                        groupByFormat + COLUMN_DATE + ") as time_key, " +
-                        "SUM(CASE WHEN " + COLUMN_TYPE + " = '收入' THEN " + COLUMN_AMOUNT + " ELSE 0 END) as total_income, " +
-                        "SUM(CASE WHEN " + COLUMN_TYPE + " = '支出' THEN " + COLUMN_AMOUNT + " ELSE 0 END) as total_expense " +
-                        "FROM " + TABLE_ACCOUNT +
+                        COLUMN_DAY + ", " +
+                        "SUM(CASE WHEN " + COLUMN_TYPE_ID + " = " + TYPE_INCOME + " THEN " + COLUMN_TOTAL_CENTS + " ELSE 0 END) as total_income, " +
+                        "SUM(CASE WHEN " + COLUMN_TYPE_ID + " = " + TYPE_EXPENSE + " THEN " + COLUMN_TOTAL_CENTS + " ELSE 0 END) as total_expense " +
+                        "FROM " + TABLE_DAILY_ROLLUP +
                         " WHERE " + whereClause +
-                        " GROUP BY time_key " +
-                        " ORDER BY time_key ASC";
-        return db.rawQuery(query, whereArgs);
+                        " GROUP BY " + COLUMN_DAY +
+                        " ORDER BY " + COLUMN_DAY + " ASC";
+    }
+
+    // 汇总查询参数：日期换算为纪元日 (整数以字符串绑定，与 INTEGER 列比较时按数值比较)
+    private static String[] rangeArgs(String userId, String startDate, String endDate) {
+        return new String[]{userId,
+                String.valueOf(DateUtil.parseEpochDay(startDate)),
+                String.valueOf(DateUtil.parseEpochDay(endDate))};
     }
 
     // 历史遗留方法，新代码已不再调用此方法
     public Cursor getMonthlySummary(String yearMonth) {
         SQLiteDatabase db = this.getReadableDatabase();
         // 此处应添加 user_id 限制，但为兼容旧代码结构，仅作提醒
-        String query = "SELECT " + COLUMN_CATEGORY + ", SUM(" + COLUMN_AMOUNT + ") as total_amount " +
+        String query = "SELECT " + COLUMN_CATEGORY_ID + ", SUM(" + COLUMN_AMOUNT + ") as total_amount " +
                 "FROM " + TABLE_ACCOUNT +
                 " WHERE " + COLUMN_DATE + " LIKE '" + yearMonth + "%'" +
-                " GROUP BY " + COLUMN_CATEGORY +
+                " GROUP BY " + COLUMN_CATEGORY_ID +
                 " ORDER BY total_amount DESC";
         return db.rawQuery(query, null);
     }
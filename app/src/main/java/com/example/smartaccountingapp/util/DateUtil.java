@@ -0,0 +1,144 @@
+package com.example.smartaccountingapp.util;
+
+import java.util.TimeZone;
+
+/**
+ * 日期工具类：日期在数据库中以“纪元日” (1970-01-01 起的天数，long) 存储，
+ * 界面和备份文件中使用 "yyyy-MM-dd" 文本。
+ * 所有换算都是纯整数运算，线程安全，与语言区域无关，也不需要 SimpleDateFormat。
+ * (minSdk 24 不能直接使用 java.time，算法与 LocalDate.toEpochDay 一致)
+ */
+public class DateUtil {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private DateUtil() {
+    }
+
+    /**
+     * 年月日 -> 纪元日 (month 从 1 开始)
+     */
+    public static long toEpochDay(int year, int month, int dayOfMonth) {
+        // 以 3 月为一年的开始，闰日落在年末，便于计算
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;                                        // [0, 399]
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1; // [0, 365]
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;  // [0, 146096]
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * 解析 "yyyy-MM-dd" 为纪元日。
+     * @throws IllegalArgumentException 格式不正确或日期不存在
+     */
+    public static long parseEpochDay(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new IllegalArgumentException("日期格式应为 yyyy-MM-dd: " + date);
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException("日期不存在: " + date);
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * 纪元日 -> "yyyy-MM-dd"
+     */
+    public static String formatEpochDay(long epochDay) {
+        return format(yearOf(epochDay), monthOf(epochDay), dayOfMonthOf(epochDay));
+    }
+
+    /**
+     * 年月日 -> "yyyy-MM-dd" (month 从 1 开始，供 DatePickerDialog 回调使用)
+     */
+    public static String format(int year, int month, int dayOfMonth) {
+        char[] buf = new char[10];
+        buf[0] = (char) ('0' + year / 1000 % 10);
+        buf[1] = (char) ('0' + year / 100 % 10);
+        buf[2] = (char) ('0' + year / 10 % 10);
+        buf[3] = (char) ('0' + year % 10);
+        buf[4] = '-';
+        buf[5] = (char) ('0' + month / 10);
+        buf[6] = (char) ('0' + month % 10);
+        buf[7] = '-';
+        buf[8] = (char) ('0' + dayOfMonth / 10);
+        buf[9] = (char) ('0' + dayOfMonth % 10);
+        return new String(buf);
+    }
+
+    /**
+     * 当前时区下的今天
+     */
+    public static long todayEpochDay() {
+        long now = System.currentTimeMillis();
+        return Math.floorDiv(now + TimeZone.getDefault().getOffset(now), MILLIS_PER_DAY);
+    }
+
+    public static int yearOf(long epochDay) {
+        return Math.floorDiv(toYearMonthDay(epochDay), 10000);
+    }
+
+    // 月份从 1 开始 (DatePickerDialog 需要减 1)
+    public static int monthOf(long epochDay) {
+        return Math.floorMod(toYearMonthDay(epochDay), 10000) / 100;
+    }
+
+    public static int dayOfMonthOf(long epochDay) {
+        return Math.floorMod(toYearMonthDay(epochDay), 100);
+    }
+
+    public static long firstDayOfMonth(long epochDay) {
+        return epochDay - dayOfMonthOf(epochDay) + 1;
+    }
+
+    public static long firstDayOfYear(long epochDay) {
+        return toEpochDay(yearOf(epochDay), 1, 1);
+    }
+
+    /**
+     * 纪元日 -> yyyyMMdd 打包的整数 (不分配对象)；公元前年份为负，需用 floorDiv / floorMod 拆分
+     */
+    private static int toYearMonthDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;                                                  // [0, 146096]
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365; // [0, 399]
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);   // [0, 365]
+        long mp = (5 * dayOfYear + 2) / 153;                                               // [0, 11]
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int parseDigits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("日期格式应为 yyyy-MM-dd: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -1,22 +1,71 @@
 package com.example.smartaccountingapp.util;
 
 import android.content.Context;
+import android.os.CancellationSignal;
 import android.util.Log;
 import com.example.smartaccountingapp.model.Account;
+import com.example.smartaccountingapp.model.MergeResult;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class FileUtil {
     private static final String TAG = "FileUtil";
     private static final Gson gson = new Gson();
 
+    // 流式导出：每页读取的记录数；文件读写缓冲大小
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 增量备份：清单和增量文件名的后缀 (接在完整备份文件名之后)
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String INCREMENT_SUFFIX = ".inc";
+    // 流式导入：每读取多少条记录回调一次进度
+    private static final int IMPORT_PROGRESS_INTERVAL = 1000;
+    // 备份压缩：0 表示不压缩，1~9 为 GZIP (Deflater) 压缩级别，越大文件越小、耗时越长
+    public static final int COMPRESSION_NONE = Deflater.NO_COMPRESSION;
+    public static final int COMPRESSION_FASTEST = Deflater.BEST_SPEED;
+    public static final int COMPRESSION_DEFAULT = 6;
+    public static final int COMPRESSION_SMALLEST = Deflater.BEST_COMPRESSION;
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1F, (byte) 0x8B};
+
+    /**
+     * 导出/导入进度回调，在执行任务的后台线程调用
+     */
+    public interface ProgressListener {
+        void onProgress(long done, long total);
+    }
+
+    /**
+     * 备份文件格式；导入时按文件头自动识别
+     */
+    public enum BackupFormat {
+        JSON,   // 与 convertAccountsToJson 相同
+        BINARY  // 列式二进制 (BinaryBackupWriter)，体积更小、解析更快
+    }
+
     // 将 List<Account> 转换为 JSON 字符串
     public static String convertAccountsToJson(List<Account> accounts) {
         return gson.toJson(accounts);
@@ -46,21 +95,514 @@ public class FileUtil {
         }
     }
 
-    // 从内部存储文件读取数据
+    /**
+     * 流式导出 userId 的全部记录到内部存储文件 fileName，格式与 convertAccountsToJson 相同。
+     * 按日期逐页读取 Cursor，每条记录直接写入带缓冲的文件流，内存占用与记录总数无关。
+     * 先写入临时文件，完成后再替换原文件：失败或取消时原备份保持不变。
+     * 需在后台线程调用；signal 被取消时抛出 OperationCanceledException。
+     * @param listener 每写完一页回调一次，可以为 null
+     * @return 导出的条数
+     */
+    public static long exportAccounts(Context context, DBHelper dbHelper, String userId, String fileName,
+                                      ProgressListener listener, CancellationSignal signal) throws IOException {
+        return exportAccounts(context, dbHelper, userId, fileName, BackupFormat.JSON, listener, signal);
+    }
+
+    /**
+     * 同上，按 format 指定的格式导出 (不压缩)
+     */
+    public static long exportAccounts(Context context, DBHelper dbHelper, String userId, String fileName, BackupFormat format,
+                                      ProgressListener listener, CancellationSignal signal) throws IOException {
+        return exportAccounts(context, dbHelper, userId, fileName, format, COMPRESSION_NONE, listener, signal);
+    }
+
+    /**
+     * 同上，compressionLevel 为 1~9 时以 GZIP 压缩写出 (COMPRESSION_NONE 不压缩)。
+     * 压缩和文件写入在单独的线程中进行 (PipelinedOutputStream)，与读取 Cursor、编码记录并行。
+     */
+    public static long exportAccounts(Context context, DBHelper dbHelper, String userId, String fileName, BackupFormat format,
+                                      int compressionLevel, ProgressListener listener, CancellationSignal signal) throws IOException {
+        long total = dbHelper.getAccountCount(userId);
+        AccountQuery query = new AccountQuery.Builder(userId).sortBy(DBHelper.SortOrder.DATE_ASC).build();
+        return writeBackupFile(context, fileName, userId, format, compressionLevel, writer -> {
+            long exported = 0;
+            Account last = null;
+            int count;
+            do {
+                if (signal != null) signal.throwIfCanceled();
+                // 键集分页：从上一页最后一条记录之后继续，不重复读取已导出的行
+                try (AccountCursor cursor = dbHelper.queryAccountsPage(query, last, EXPORT_PAGE_SIZE, signal)) {
+                    count = 0;
+                    while (cursor.moveToNext()) {
+                        writer.write(cursor);
+                        count++;
+                    }
+                    if (count > 0) {
+                        cursor.moveToLast();
+                        last = cursor.getAccount();
+                    }
+                }
+                exported += count;
+                if (listener != null) listener.onProgress(exported, Math.max(total, exported));
+            } while (count == EXPORT_PAGE_SIZE);
+            return exported;
+        });
+    }
+
+    // 向备份文件写出记录，返回写出的条数
+    private interface BackupBody {
+        long writeTo(AccountSink writer) throws IOException;
+    }
+
+    // 先写入临时文件，完成后再替换 fileName：失败或取消时原文件保持不变
+    private static long writeBackupFile(Context context, String fileName, String userId, BackupFormat format,
+                                        int compressionLevel, BackupBody body) throws IOException {
+        if (compressionLevel < COMPRESSION_NONE || compressionLevel > COMPRESSION_SMALLEST) {
+            throw new IllegalArgumentException("压缩级别应为 0~9: " + compressionLevel);
+        }
+        File target = context.getFileStreamPath(fileName);
+        File temp = context.getFileStreamPath(fileName + TEMP_SUFFIX);
+        long written;
+        boolean replaced = false;
+        try {
+            try (OutputStream out = openOutput(temp, compressionLevel)) {
+                AccountSink writer = openSink(out, format, userId);
+                written = body.writeTo(writer);
+                writer.finish();
+            }
+            replaced = temp.renameTo(target);
+            if (!replaced) {
+                throw new IOException("无法替换备份文件 " + fileName);
+            }
+        } finally {
+            if (!replaced) temp.delete();
+        }
+        return written;
+    }
+
+    private static OutputStream openOutput(File file, int compressionLevel) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (compressionLevel == COMPRESSION_NONE) return out;
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(compressionLevel);
+                }
+            };
+            return new PipelinedOutputStream(gzip, "backup-compress");
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // JSON 经缓冲的 UTF-8 Writer 写出；二进制格式按块缓冲，直接写入文件流
+    private static AccountSink openSink(OutputStream out, BackupFormat format, String userId) throws IOException {
+        if (format == BackupFormat.BINARY) {
+            return new BinaryBackupWriter(out, userId);
+        }
+        return new AccountJsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * 流式导入内部存储文件 fileName 中的备份，替换 userId 的全部记录：边解析边分批插入，
+     * 内存占用与备份大小无关；全部记录在一个事务中提交，失败或取消时原数据保持不变。
+     * 格式和压缩按文件头自动识别 (BackupFormat、GZIP)：未压缩的 JSON 通过内存映射读取并按 UTF-8 解码 (MappedFileReader)，
+     * 解析器直接读取解码结果；二进制备份按块流式解码；压缩的备份在单独的线程中解压 (PipelinedInputStream)，
+     * 与解析和写入数据库并行。
+     * 需在后台线程调用；signal 被取消时抛出 OperationCanceledException。
+     * @param listener 进度按已读取的字节数回调 (total 为文件大小)，可以为 null
+     * @return 导入的条数；备份中没有记录时返回 0，且不修改现有数据
+     * @throws FileNotFoundException 备份文件不存在
+     * @throws IOException 读取失败或格式错误
+     */
+    public static int importAccounts(Context context, DBHelper dbHelper, String userId, String fileName,
+                                     ProgressListener listener, CancellationSignal signal) throws IOException {
+        try (AccountSource source = openBackup(context.getFileStreamPath(fileName), listener)) {
+            return dbHelper.replaceAllAccounts(userId, source, DBHelper.DEFAULT_BATCH_SIZE, signal);
+        }
+    }
+
+    // 按文件头识别格式和压缩，打开备份文件的记录流；关闭返回的 source 时关闭文件
+    private static AccountSource openBackup(File file, ProgressListener listener) throws IOException {
+        BackupFormat format = detectFormat(file);
+        boolean compressed = isCompressed(file);
+        if (format == BackupFormat.JSON && !compressed) {
+            MappedFileReader in = new MappedFileReader(file);
+            try {
+                return withProgress(new AccountJsonReader(in), in::position, in.size(), listener);
+            } catch (RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        // 进度按已读取的文件字节数 (压缩后的大小) 计算
+        CountingInputStream counted = new CountingInputStream(new FileInputStream(file));
+        InputStream in = counted;
+        try {
+            if (compressed) {
+                in = new PipelinedInputStream(new GZIPInputStream(counted, BUFFER_SIZE), "backup-decompress");
+            }
+            AccountSource reader = format == BackupFormat.BINARY
+                    ? new BinaryBackupReader(in)
+                    : new AccountJsonReader(new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()));
+            return withProgress(reader, counted::getCount, file.length(), listener);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            counted.close();
+            throw e;
+        }
+    }
+
+    // --- 增量备份 ---
+
+    /**
+     * 完整备份并开始新的增量链：记下导出前的变更水位线，导出全部记录 (同 exportAccounts)，
+     * 然后写入新的清单 (fileName + ".manifest")、删除旧的增量文件，并清理水位线之前的变更日志。
+     * 导出过程中发生的变更可能已包含在备份中，下一个增量会再次写出它们，恢复时结果相同。
+     * @return 导出的条数
+     */
+    public static long exportBaseBackup(Context context, DBHelper dbHelper, String userId, String fileName, BackupFormat format,
+                                        int compressionLevel, ProgressListener listener, CancellationSignal signal) throws IOException {
+        long watermark = dbHelper.getChangeWatermark(userId);
+        long exported = exportAccounts(context, dbHelper, userId, fileName, format, compressionLevel, listener, signal);
+
+        BackupManifest manifest = new BackupManifest();
+        manifest.userId = userId;
+        manifest.baseWatermark = watermark;
+        manifest.watermark = watermark;
+        File base = context.getFileStreamPath(fileName);
+        manifest.baseLength = base.length();
+        manifest.baseModified = base.lastModified();
+        writeManifest(context, fileName, manifest);
+        // 旧增量链的文件按序号连续编号
+        int n = 1;
+        while (context.deleteFile(fileName + INCREMENT_SUFFIX + n)) {
+            n++;
+        }
+        dbHelper.pruneChangeLog(userId, watermark);
+        return exported;
+    }
+
+    /**
+     * 是否可以在 fileName 的完整备份上追加增量 (有有效的清单，且之后没有从它恢复过)
+     */
+    public static boolean canExportIncrement(Context context, String fileName) {
+        BackupManifest manifest = readManifest(context, fileName);
+        return manifest != null && !manifest.closed;
+    }
+
+    /**
+     * 增量备份：只写出上次备份 (完整或增量) 的水位线之后新增、修改的记录和删除的记录 id，
+     * 读取和写入的数据量与变更条数成正比，与历史记录总数无关。
+     * 记录写入新的增量文件 (fileName + ".inc" + 序号，格式和压缩同 exportAccounts)，删除的 id 记在清单中；
+     * 写完后更新清单的水位线并清理之前的变更日志。没有变更时不写文件。
+     * 需在后台线程调用；signal 被取消时抛出 OperationCanceledException。
+     * @param listener 每写完一页回调一次 (total 为变更条数)，可以为 null
+     * @return 写出的记录条数与删除条数之和
+     * @throws IllegalStateException 没有可以追加增量的完整备份 (见 canExportIncrement)
+     */
+    public static long exportIncrementalBackup(Context context, DBHelper dbHelper, String userId, String fileName,
+                                               BackupFormat format, int compressionLevel,
+                                               ProgressListener listener, CancellationSignal signal) throws IOException {
+        if (!canExportIncrement(context, fileName)) {
+            throw new IllegalStateException("没有可追加增量的完整备份: " + fileName);
+        }
+        BackupManifest manifest = readManifest(context, fileName);
+        long from = manifest.watermark;
+        long to = dbHelper.getChangeWatermark(userId);
+        if (to <= from) return 0;
+
+        long[] deleted = dbHelper.getDeletedAccountIds(userId, from);
+        String incrementFile = fileName + INCREMENT_SUFFIX + (manifest.increments.size() + 1);
+        long changed = writeBackupFile(context, incrementFile, userId, format, compressionLevel, writer -> {
+            long written = 0;
+            long lastId = 0;
+            int count;
+            do {
+                if (signal != null) signal.throwIfCanceled();
+                try (AccountCursor cursor = dbHelper.queryChangedAccountsPage(userId, from, lastId, EXPORT_PAGE_SIZE, signal)) {
+                    count = 0;
+                    while (cursor.moveToNext()) {
+                        writer.write(cursor);
+                        lastId = cursor.getId();
+                        count++;
+                    }
+                }
+                written += count;
+                if (listener != null) listener.onProgress(written, written + deleted.length);
+            } while (count == EXPORT_PAGE_SIZE);
+            return written;
+        });
+
+        BackupManifest.Increment increment = new BackupManifest.Increment();
+        increment.file = incrementFile;
+        increment.from = from;
+        increment.to = to;
+        increment.deleted = deleted;
+        manifest.increments.add(increment);
+        manifest.watermark = to;
+        writeManifest(context, fileName, manifest);
+        dbHelper.pruneChangeLog(userId, to);
+        return changed + deleted.length;
+    }
+
+    /**
+     * 恢复备份：有增量清单时先依次读取各个增量 (后面的覆盖前面的，内存占用与变更条数成正比)，
+     * 再流式读取完整备份，跳过被修改或删除的记录，最后写入增量中的新记录；没有清单时同 importAccounts。
+     * 全部记录在一个事务中替换 userId 的数据。恢复后清单标记为已关闭，之后的备份需重新做完整备份。
+     * @param listener 进度按完整备份已读取的字节数回调，可以为 null
+     * @return 恢复的条数
+     */
+    public static int restoreAccounts(Context context, DBHelper dbHelper, String userId, String fileName,
+                                      ProgressListener listener, CancellationSignal signal) throws IOException {
+        BackupManifest manifest = readManifest(context, fileName);
+        if (manifest == null) {
+            return importAccounts(context, dbHelper, userId, fileName, listener, signal);
+        }
+        int restored;
+        try (AccountSource source = openRestore(context, fileName, manifest, listener, signal)) {
+            restored = dbHelper.replaceAllAccounts(userId, source, DBHelper.DEFAULT_BATCH_SIZE, signal);
+        }
+        if (restored > 0) {
+            manifest.closed = true;
+            writeManifest(context, fileName, manifest);
+        }
+        return restored;
+    }
+
+    /**
+     * 合并导入备份：读取的记录与 restoreAccounts 相同 (有增量时包含各个增量)，但不删除现有记录，
+     * 内容与现有记录相同的跳过，只插入新记录 (见 DBHelper.mergeAccounts)。全部插入在一个事务中提交。
+     * 只有备份带有有效且未关闭的增量清单时 (由 exportBaseBackup 从本数据库导出，之后没有覆盖导入过)，
+     * 备份中的 id 才与本机记录对应：此时 id 相同但内容已在本机修改过的记录作为冲突，保留本机版本。
+     * 其他备份 (普通导出、覆盖导入之前的备份) 只按内容匹配。现有记录的 id 不变，增量清单仍然有效。
+     * @param listener 进度按完整备份已读取的字节数回调，可以为 null
+     * @return 插入、跳过和冲突的条数
+     */
+    public static MergeResult mergeAccounts(Context context, DBHelper dbHelper, String userId, String fileName,
+                                            ProgressListener listener, CancellationSignal signal) throws IOException {
+        BackupManifest manifest = readManifest(context, fileName);
+        boolean sameSource = manifest != null && !manifest.closed && userId.equals(manifest.userId);
+        try (AccountSource source = manifest == null
+                ? openBackup(context.getFileStreamPath(fileName), listener)
+                : openRestore(context, fileName, manifest, listener, signal)) {
+            return dbHelper.mergeAccounts(userId, source, sameSource, DBHelper.DEFAULT_BATCH_SIZE, signal);
+        }
+    }
+
+    // 完整备份叠加各个增量后的记录流：先读入全部增量 (后面的覆盖前面的)，
+    // 再流式读取完整备份并跳过被修改或删除的记录，最后返回增量中的新记录；关闭时关闭完整备份文件
+    private static AccountSource openRestore(Context context, String fileName, BackupManifest manifest,
+                                             ProgressListener listener, CancellationSignal signal) throws IOException {
+        // id -> 增量后的最新记录；null 表示已删除
+        Map<Integer, Account> changes = new LinkedHashMap<>();
+        for (BackupManifest.Increment increment : manifest.increments) {
+            if (signal != null) signal.throwIfCanceled();
+            try (AccountSource source = openBackup(context.getFileStreamPath(increment.file), null)) {
+                Account account;
+                while ((account = source.next()) != null) {
+                    changes.put(account.getId(), account);
+                }
+            }
+            if (increment.deleted != null) {
+                for (long id : increment.deleted) {
+                    changes.put((int) id, null);
+                }
+            }
+        }
+
+        AccountSource base = openBackup(context.getFileStreamPath(fileName), listener);
+        return new AccountSource() {
+            private Iterator<Account> remaining;
+
+            @Override
+            public Account next() throws IOException {
+                if (remaining == null) {
+                    Account account;
+                    while ((account = base.next()) != null) {
+                        if (!changes.containsKey(account.getId())) return account;
+                    }
+                    remaining = changes.values().iterator();
+                }
+                while (remaining.hasNext()) {
+                    Account account = remaining.next();
+                    if (account != null) return account;
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                base.close();
+            }
+        };
+    }
+
+    // 读取增量清单；不存在、无法解析或与完整备份文件不符时返回 null
+    static BackupManifest readManifest(Context context, String fileName) {
+        String json = readFromFile(context, fileName + MANIFEST_SUFFIX);
+        if (json == null) return null;
+        BackupManifest manifest;
+        try {
+            manifest = gson.fromJson(json, BackupManifest.class);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "增量清单解析失败", e);
+            return null;
+        }
+        if (manifest == null) return null;
+        File base = context.getFileStreamPath(fileName);
+        if (base.length() != manifest.baseLength || base.lastModified() != manifest.baseModified) {
+            Log.w(TAG, "完整备份已被替换，忽略旧的增量清单: " + fileName);
+            return null;
+        }
+        if (manifest.increments == null) {
+            manifest.increments = new ArrayList<>();
+        }
+        return manifest;
+    }
+
+    // 先写临时文件再替换，清单不会只写一半
+    private static void writeManifest(Context context, String fileName, BackupManifest manifest) throws IOException {
+        File target = context.getFileStreamPath(fileName + MANIFEST_SUFFIX);
+        File temp = context.getFileStreamPath(fileName + MANIFEST_SUFFIX + TEMP_SUFFIX);
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            gson.toJson(manifest, out);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("无法写入增量清单 " + target.getName());
+        }
+    }
+
+    /**
+     * 按文件头识别备份格式；压缩的备份识别解压后的内容
+     * @throws FileNotFoundException 文件不存在
+     */
+    static BackupFormat detectFormat(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            if (isGzip(readHead(in, GZIP_MAGIC.length))) {
+                in.close();
+                in = new GZIPInputStream(new FileInputStream(file));
+            } else {
+                in.close();
+                in = new FileInputStream(file);
+            }
+            byte[] head = readHead(in, BinaryBackupWriter.MAGIC.length);
+            return BinaryBackupReader.isBinaryBackup(head, head.length) ? BackupFormat.BINARY : BackupFormat.JSON;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 备份文件是否为 GZIP 压缩
+     * @throws FileNotFoundException 文件不存在
+     */
+    static boolean isCompressed(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return isGzip(readHead(in, GZIP_MAGIC.length));
+        }
+    }
+
+    private static boolean isGzip(byte[] head) {
+        return head.length == GZIP_MAGIC.length && head[0] == GZIP_MAGIC[0] && head[1] == GZIP_MAGIC[1];
+    }
+
+    // 读取最多 length 个字节 (文件较短时返回实际读到的部分)
+    private static byte[] readHead(InputStream in, int length) throws IOException {
+        byte[] head = new byte[length];
+        int read = 0;
+        int n;
+        while (read < length && (n = in.read(head, read, length - read)) > 0) {
+            read += n;
+        }
+        return read == length ? head : Arrays.copyOf(head, read);
+    }
+
+    // 统计从文件读取的字节数；由解压线程写入、导入线程读取
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    // 已读取的字节数，用于导入进度
+    private interface BytePosition {
+        long get();
+    }
+
+    // 每读取 IMPORT_PROGRESS_INTERVAL 条记录 (以及读完时) 按已读取的字节数回调一次进度
+    private static AccountSource withProgress(AccountSource source, BytePosition position, long total, ProgressListener listener) {
+        if (listener == null) return source;
+        return new AccountSource() {
+            private int read;
+
+            @Override
+            public Account next() throws IOException {
+                Account account = source.next();
+                if (account == null) {
+                    listener.onProgress(total, total); // 读完；预读时计数可能尚未到达文件末尾
+                } else if (++read % IMPORT_PROGRESS_INTERVAL == 0) {
+                    listener.onProgress(Math.min(position.get(), total), total);
+                }
+                return account;
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+        };
+    }
+
+    // 从内部存储文件读取数据 (按 UTF-8 解码，内容原样保留)；文件不存在时返回 null
     public static String readFromFile(Context context, String fileName) {
-        StringBuilder sb = new StringBuilder();
-        try (FileInputStream fis = context.openFileInput(fileName);
-             InputStreamReader isr = new InputStreamReader(fis);
-             BufferedReader br = new BufferedReader(isr)) {
-
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
+        File file = context.getFileStreamPath(fileName);
+        if (!file.isFile()) {
+            return null; // 文件不存在是正常情况，不报E级错误
+        }
+        try (MappedFileReader reader = new MappedFileReader(file)) {
+            // UTF-8 的字符数不超过字节数，一次分配足够的容量
+            StringBuilder sb = new StringBuilder((int) Math.min(reader.size(), Integer.MAX_VALUE - 8));
+            char[] buffer = new char[BUFFER_SIZE];
+            int n;
+            while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+                sb.append(buffer, 0, n);
             }
             return sb.toString();
-        } catch (Exception e) {
-            // Log.e(TAG, "读取文件失败 (文件可能不存在)", e); // 文件不存在是正常情况，不报E级错误
+        } catch (IOException e) {
+            Log.e(TAG, "读取文件失败", e);
             return null;
         }
     }
-}
\ No newline at end of file
+}
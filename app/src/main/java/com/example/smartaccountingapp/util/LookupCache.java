@@ -0,0 +1,74 @@
+package com.example.smartaccountingapp.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * types / categories 字典表在内存中的副本：小整数 id 与名称双向查找。
+ * id 从 1 开始且基本连续，名称按 id 直接存放在数组中；0 表示未知。
+ * 读操作不加锁 (volatile 快照)，新增名称时复制一次 (批量登记用 putAll，一批只复制一次)，适合“读多写极少”。
+ */
+final class LookupCache {
+    private static final String[] EMPTY_NAMES = new String[0];
+
+    private volatile String[] names = EMPTY_NAMES;
+    private volatile Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * @return id 对应的名称；未知 id 返回 null
+     */
+    String nameOf(int id) {
+        String[] snapshot = names;
+        return id > 0 && id < snapshot.length ? snapshot[id] : null;
+    }
+
+    /**
+     * @return 名称对应的 id；未知名称返回 0
+     */
+    int idOf(String name) {
+        if (name == null) return 0;
+        Integer id = ids.get(name);
+        return id != null ? id : 0;
+    }
+
+    synchronized void put(int id, String name) {
+        putAll(Collections.singletonMap(name, id));
+    }
+
+    /**
+     * 一次加入多个名称 -> id：无论多少个名称，数组和映射都只复制一次
+     */
+    synchronized void putAll(Map<String, Integer> entries) {
+        if (entries.isEmpty()) return;
+        int maxId = names.length - 1;
+        for (int id : entries.values()) {
+            maxId = Math.max(maxId, id);
+        }
+        String[] newNames = maxId < names.length ? names.clone() : Arrays.copyOf(names, Math.max(maxId + 1, names.length * 2));
+        Map<String, Integer> newIds = new HashMap<>(ids);
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            newNames[entry.getValue()] = entry.getKey();
+            newIds.put(entry.getKey(), entry.getValue());
+        }
+        names = newNames;
+        ids = newIds;
+    }
+
+    /**
+     * 用 entries 替换全部内容 (从字典表重新加载)
+     */
+    synchronized void replaceAll(Map<String, Integer> entries) {
+        int maxId = 0;
+        for (int id : entries.values()) {
+            maxId = Math.max(maxId, id);
+        }
+        String[] newNames = entries.isEmpty() ? EMPTY_NAMES : new String[maxId + 1];
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            newNames[entry.getValue()] = entry.getKey();
+        }
+        names = newNames;
+        ids = new HashMap<>(entries);
+    }
+}
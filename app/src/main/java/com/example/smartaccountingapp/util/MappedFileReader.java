@@ -0,0 +1,137 @@
+package com.example.smartaccountingapp.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 以内存映射方式读取文件，按 UTF-8 解码为字符流，供 JsonReader 等解析器直接使用。
+ * 文件内容由系统按页映射到内存，解码器直接从映射区写入调用方的 char 数组：
+ * 没有 InputStream 的中间 byte[] 复制，也不按行拆分成 String。
+ * <p>
+ * 文件按区段 (默认 64 MB) 映射，跨区段的多字节字符从该字符的起始字节重新映射，不会被截断。
+ * 非法的 UTF-8 字节序列抛出 MalformedInputException，而不是静默替换为 U+FFFD。
+ * 映射区在 close() 后由 GC 回收时解除映射。
+ */
+final class MappedFileReader extends Reader {
+    private static final long DEFAULT_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    // 调用方只读 1 个 char 而下一个字符是代理对时，先解码到这里再逐个返回
+    private final CharBuffer pending = CharBuffer.allocate(2);
+
+    private ByteBuffer region;
+    private long regionStart;
+    private boolean flushed;
+
+    MappedFileReader(File file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    // regionSize 可调小以便测试跨区段的情况；至少 4 字节，保证每段至少包含一个完整的 UTF-8 字符
+    MappedFileReader(File file, long regionSize) throws IOException {
+        this.regionSize = Math.max(regionSize, 4);
+        channel = new FileInputStream(file).getChannel();
+        try {
+            size = channel.size();
+            mapRegion(0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        pending.flip(); // 初始为空
+    }
+
+    /**
+     * 把整个文件映射为只读 ByteBuffer (不超过 2 GB)，供按字节解析的格式直接读取
+     */
+    static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            // 映射在通道关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * 文件总字节数
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * 已解码的字节数 (用于进度)
+     */
+    long position() {
+        return regionStart + region.position();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (pending.hasRemaining()) {
+            buffer[offset] = pending.get();
+            return 1;
+        }
+        if (length == 1) {
+            pending.clear();
+            int n = decode(pending);
+            pending.flip();
+            if (n < 0) return -1;
+            buffer[offset] = pending.get();
+            return 1;
+        }
+        return decode(CharBuffer.wrap(buffer, offset, length));
+    }
+
+    // 解码到 out 中，至少一个字符 (out 剩余空间 >= 2)；已到文件末尾时返回 -1
+    private int decode(CharBuffer out) throws IOException {
+        if (region == null) throw new IOException("Reader 已关闭");
+        int start = out.position();
+        while (out.position() == start) {
+            boolean endOfInput = regionStart + region.limit() == size;
+            if (endOfInput && flushed) return -1;
+            CoderResult result = decoder.decode(region, out, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isOverflow()) break;
+            if (!endOfInput) {
+                // 区段已用完 (可能剩下半个字符)：从未解码的第一个字节开始映射下一段
+                mapRegion(position());
+            } else {
+                result = decoder.flush(out);
+                if (result.isOverflow()) break;
+                flushed = true;
+            }
+        }
+        int n = out.position() - start;
+        return n > 0 ? n : -1;
+    }
+
+    private void mapRegion(long start) throws IOException {
+        long length = Math.min(regionSize, size - start);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        regionStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
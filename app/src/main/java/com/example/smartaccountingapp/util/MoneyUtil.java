@@ -0,0 +1,131 @@
+package com.example.smartaccountingapp.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额工具类：金额在数据库和模型中统一以 long 类型的“分”存储，
+ * 只在输入解析和界面显示时与“元”相互转换，避免浮点误差。
+ */
+public class MoneyUtil {
+
+    private MoneyUtil() {
+    }
+
+    /**
+     * 将用户输入的金额 (元，如 "12.5") 解析为分，超过两位的小数四舍五入。
+     * @throws NumberFormatException 格式不正确或超出范围
+     */
+    public static long parseCents(String yuan) {
+        try {
+            return new BigDecimal(yuan.trim()).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("金额超出范围: " + yuan);
+        }
+    }
+
+    /**
+     * 将分格式化为两位小数的元，如 1250 -> "12.50"，-5 -> "-0.05"。与语言区域无关。
+     */
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(24);
+        appendYuan(sb, cents);
+        return sb.toString();
+    }
+
+    /**
+     * 将分格式化后追加到 sb，不产生中间字符串。
+     */
+    public static void appendYuan(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            // Long.MIN_VALUE 取反仍为负数，按无符号处理
+            long abs = -cents;
+            if (abs < 0) {
+                sb.append(new BigDecimal(cents).negate().movePointLeft(2).toPlainString());
+                return;
+            }
+            cents = abs;
+        }
+        sb.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) sb.append('0');
+        sb.append(fraction);
+    }
+
+    // formatTo 需要的缓冲区长度：前缀 + 负号 + 17 位整数 + 小数点 + 2 位小数
+    public static final int FORMAT_BUFFER_SIZE = 24;
+
+    /**
+     * 与 prefix + format(cents) 结果相同，但直接写入 dest 并返回写入的字符数，不分配任何对象。
+     * 用于列表绑定等频繁调用的地方，配合 TextView.setText(char[], int, int) 复用同一个缓冲区。
+     * @param dest   长度至少为 {@link #FORMAT_BUFFER_SIZE}
+     * @param prefix 写在最前面的符号 (如 '+'、'-')，为 0 时不写
+     */
+    public static int formatTo(char[] dest, char prefix, long cents) {
+        int pos = 0;
+        if (prefix != 0) dest[pos++] = prefix;
+        if (cents < 0) dest[pos++] = '-';
+
+        // 统一按非正数计算，Long.MIN_VALUE 不会溢出
+        long negative = cents < 0 ? cents : -cents;
+        long yuan = negative / 100;
+        int fraction = (int) -(negative % 100);
+
+        int digits = 0;
+        long q = yuan;
+        do {
+            digits++;
+            q /= 10;
+        } while (q != 0);
+
+        int end = pos + digits + 3;
+        dest[end - 1] = (char) ('0' + fraction % 10);
+        dest[end - 2] = (char) ('0' + fraction / 10);
+        dest[end - 3] = '.';
+        int i = end - 4;
+        q = yuan;
+        do {
+            dest[i--] = (char) ('0' - q % 10);
+            q /= 10;
+        } while (q != 0);
+        return end;
+    }
+
+    /**
+     * 转换为 float 元，仅用于图表绘制等不要求精确的场景。
+     */
+    public static float toYuanFloat(long cents) {
+        return cents / 100f;
+    }
+
+    /**
+     * JSON 中金额仍以“元”表示 (如 "amount": 12.5)，与旧版本备份文件保持兼容；
+     * 模型内部字段为分。
+     */
+    public static class YuanJsonAdapter extends TypeAdapter<Long> {
+        @Override
+        public void write(JsonWriter out, Long cents) throws IOException {
+            if (cents == null) {
+                out.nullValue();
+            } else {
+                out.value(new BigDecimal(cents).movePointLeft(2));
+            }
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return 0L;
+            }
+            return parseCents(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.smartaccountingapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 在单独的线程中预读上游输入流：工作线程按 64 KB 分块读取 (例如 GZIPInputStream 的解压和文件读取)，
+ * 调用方 (解析记录、写入数据库) 读取已准备好的分块，两者并行执行。
+ * <p>
+ * 分块总数固定，调用方落后时工作线程等待，内存占用有上限。上游的异常在调用方读到对应位置时抛出。
+ * close() 停止预读并关闭上游，可以在读完之前调用。
+ */
+final class PipelinedInputStream extends InputStream {
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_DEPTH = 4;
+
+    private final InputStream in;
+    private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(QUEUE_DEPTH + 2);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUE_DEPTH + 1);
+    private final Thread worker;
+    private volatile IOException failure;
+
+    private Chunk current;
+    private int position;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * 立即启动工作线程；in 由本对象关闭
+     */
+    PipelinedInputStream(InputStream in, String threadName) {
+        this.in = in;
+        for (int i = 0; i < QUEUE_DEPTH + 1; i++) {
+            free.add(new Chunk());
+        }
+        worker = new Thread(this::fill, threadName);
+        worker.setDaemon(true); // 调用方未关闭时不阻止进程退出
+        worker.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) return -1;
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!ensureAvailable()) return -1;
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待读取线程时被中断");
+        }
+    }
+
+    // 当前分块还有数据时返回 true；读完时换下一个分块，已到末尾返回 false
+    private boolean ensureAvailable() throws IOException {
+        if (closed) throw new IOException("输入流已关闭");
+        if (current != null && position < current.length) return true;
+        if (finished) return false;
+        try {
+            if (current != null) {
+                free.put(current);
+            }
+            current = full.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待读取线程时被中断");
+        }
+        position = 0;
+        if (current == Chunk.END) {
+            current = null;
+            finished = true;
+            if (failure != null) throw failure;
+            return false;
+        }
+        return true;
+    }
+
+    // 工作线程：按顺序读入分块，读完或出错时放入结束标记；调用方 close() 时被中断退出
+    private void fill() {
+        try {
+            try {
+                while (true) {
+                    Chunk chunk = free.take();
+                    chunk.length = 0;
+                    int n;
+                    while (chunk.length < CHUNK_SIZE
+                            && (n = in.read(chunk.data, chunk.length, CHUNK_SIZE - chunk.length)) > 0) {
+                        chunk.length += n;
+                    }
+                    if (chunk.length == 0) break;
+                    full.put(chunk);
+                    if (chunk.length < CHUNK_SIZE) break; // 上游已到末尾
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            full.put(Chunk.END);
+        } catch (InterruptedException e) {
+            // 调用方已关闭，不再需要结束标记
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        final byte[] data;
+        int length;
+
+        Chunk() {
+            this(CHUNK_SIZE);
+        }
+
+        private Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
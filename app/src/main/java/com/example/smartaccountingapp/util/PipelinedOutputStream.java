@@ -0,0 +1,137 @@
+package com.example.smartaccountingapp.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 在单独的线程中写入下游输出流：调用方写入的数据按 64 KB 分块交给工作线程，
+ * 下游的耗时操作 (例如 GZIPOutputStream 的压缩和文件写入) 与调用方 (读取 Cursor、编码记录) 并行执行。
+ * <p>
+ * 分块总数固定，工作线程落后时调用方在 write 中等待，内存占用有上限。
+ * 下游的异常在之后的 write 或 close 中抛出；close() 等待全部数据写出并关闭下游。
+ * flush() 不等待工作线程，数据在 close() 返回时才保证已写入下游。
+ */
+final class PipelinedOutputStream extends OutputStream {
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_DEPTH = 4;
+
+    private final OutputStream out;
+    private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(QUEUE_DEPTH + 2);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUE_DEPTH + 1);
+    private final Thread worker;
+    private volatile IOException failure;
+
+    private Chunk current;
+    private boolean closed;
+
+    /**
+     * 立即启动工作线程；out 由本对象关闭
+     */
+    PipelinedOutputStream(OutputStream out, String threadName) {
+        this.out = out;
+        for (int i = 0; i < QUEUE_DEPTH + 1; i++) {
+            free.add(new Chunk());
+        }
+        worker = new Thread(this::drain, threadName);
+        worker.setDaemon(true); // 调用方未关闭时不阻止进程退出
+        worker.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        Chunk chunk = chunk();
+        chunk.data[chunk.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            Chunk chunk = chunk();
+            int n = Math.min(len, CHUNK_SIZE - chunk.length);
+            System.arraycopy(b, off, chunk.data, chunk.length, n);
+            chunk.length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (current != null && current.length > 0) {
+                full.put(current);
+            }
+            current = null;
+            full.put(Chunk.END);
+            worker.join();
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写入线程时被中断");
+        }
+        if (failure != null) throw failure;
+    }
+
+    // 当前可写入的分块；已满时交给工作线程并换一个空块
+    private Chunk chunk() throws IOException {
+        if (closed) throw new IOException("输出流已关闭");
+        if (failure != null) throw failure;
+        if (current != null && current.length < CHUNK_SIZE) return current;
+        try {
+            if (current != null) {
+                full.put(current);
+            }
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写入线程时被中断");
+        }
+        current.length = 0;
+        return current;
+    }
+
+    // 工作线程：按顺序写出分块直到结束标记；出错后继续取出剩余分块 (丢弃)，调用方不会因队列满而阻塞
+    private void drain() {
+        try {
+            Chunk chunk;
+            while ((chunk = full.take()) != Chunk.END) {
+                if (failure == null) {
+                    try {
+                        out.write(chunk.data, 0, chunk.length);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                free.add(chunk);
+            }
+        } catch (InterruptedException e) {
+            if (failure == null) failure = new InterruptedIOException("写入线程被中断");
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        final byte[] data;
+        int length;
+
+        Chunk() {
+            this(CHUNK_SIZE);
+        }
+
+        private Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
@@ -7,6 +7,8 @@ public class PrefsManager {
     private static final String PREF_NAME = "SmartAccountingPrefs";
     private static final String KEY_CURRENT_USER_ID = "current_user_id";
     private static final String KEY_IS_LOGGED_IN = "is_logged_in";
+    private static final String KEY_BACKUP_FORMAT = "backup_format";
+    private static final String KEY_BACKUP_COMPRESSION = "backup_compression";
 
     private static SharedPreferences getPrefs(Context context) {
         return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
@@ -42,6 +44,46 @@ public class PrefsManager {
         return getPrefs(context).getBoolean(KEY_IS_LOGGED_IN, false);
     }
 
+    /**
+     * 获取导出时使用的备份格式，默认 JSON。
+     * @param context Context
+     * @return 上次选择的备份格式。
+     */
+    public static FileUtil.BackupFormat getBackupFormat(Context context) {
+        String name = getPrefs(context).getString(KEY_BACKUP_FORMAT, null);
+        for (FileUtil.BackupFormat format : FileUtil.BackupFormat.values()) {
+            if (format.name().equals(name)) return format;
+        }
+        return FileUtil.BackupFormat.JSON;
+    }
+
+    /**
+     * 保存导出时使用的备份格式 (导入时按文件内容自动识别，不受此设置影响)。
+     * @param context Context
+     * @param format 备份格式
+     */
+    public static void setBackupFormat(Context context, FileUtil.BackupFormat format) {
+        getPrefs(context).edit().putString(KEY_BACKUP_FORMAT, format.name()).apply();
+    }
+
+    /**
+     * 获取导出时使用的压缩级别 (FileUtil.COMPRESSION_*)，默认不压缩。
+     * @param context Context
+     * @return 上次选择的压缩级别。
+     */
+    public static int getBackupCompressionLevel(Context context) {
+        return getPrefs(context).getInt(KEY_BACKUP_COMPRESSION, FileUtil.COMPRESSION_NONE);
+    }
+
+    /**
+     * 保存导出时使用的压缩级别 (导入时按文件内容自动识别，不受此设置影响)。
+     * @param context Context
+     * @param level 压缩级别 0~9
+     */
+    public static void setBackupCompressionLevel(Context context, int level) {
+        getPrefs(context).edit().putInt(KEY_BACKUP_COMPRESSION, level).apply();
+    }
+
     /**
      * 退出登录，清空当前用户ID和登录状态。
      * @param context Context
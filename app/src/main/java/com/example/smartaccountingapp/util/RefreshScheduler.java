@@ -0,0 +1,76 @@
+package com.example.smartaccountingapp.util;
+
+import android.view.Choreographer;
+
+/**
+ * 合并界面刷新请求 (只在主线程使用)：在下一帧之前 (或合并窗口内) 到达的多次 {@link #requestRefresh()}
+ * 只执行一次刷新，例如启动时的首次加载、导入完成的回调和随后的变更通知。
+ * <p>
+ * 每次执行刷新都分配一个递增的代号。后台查询完成时用 {@link #isCurrent(int)} 判断结果是否仍然有效，
+ * 较早发起的查询即使较晚完成，也不会覆盖较新的结果。
+ */
+public final class RefreshScheduler {
+
+    /**
+     * 执行刷新 (发起查询)，generation 在结果回调时传给 isCurrent
+     */
+    public interface Refresh {
+        void run(int generation);
+    }
+
+    private final long windowMs;
+    private final Refresh refresh;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> fire();
+    private boolean pending;
+    private int generation;
+
+    /**
+     * @param windowMs 合并窗口：0 表示合并到下一帧，大于 0 时从第一次请求起再等待这么久
+     */
+    public RefreshScheduler(long windowMs, Refresh refresh) {
+        this.windowMs = windowMs;
+        this.refresh = refresh;
+    }
+
+    /**
+     * 请求刷新：已有排队中的刷新时直接合并
+     */
+    public void requestRefresh() {
+        if (pending) return;
+        pending = true;
+        Choreographer.getInstance().postFrameCallbackDelayed(frameCallback, windowMs);
+    }
+
+    /**
+     * 立即刷新 (例如用户提交搜索)，同时合并排队中的请求
+     */
+    public void refreshNow() {
+        if (pending) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+        fire();
+    }
+
+    /**
+     * generation 是否仍是最近一次刷新；否则结果已过期，应丢弃
+     */
+    public boolean isCurrent(int generation) {
+        return generation == this.generation;
+    }
+
+    /**
+     * 取消排队中的刷新，并使已发起的刷新全部过期 (例如 Activity 销毁时)
+     */
+    public void cancel() {
+        if (pending) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            pending = false;
+        }
+        generation++;
+    }
+
+    private void fire() {
+        pending = false;
+        refresh.run(++generation);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryBackupTest {
+
+    @Test
+    public void roundTrip_preservesAllFields() throws IOException {
+        List<Account> accounts = Arrays.asList(
+                new Account(7, "u", "支出", "餐饮", 1250, "2024-03-01", "午饭 😀"),
+                new Account(3, "u", "收入", "工资", 1_000_000_00L, "2024-02-28", null),   // id 和日期倒退
+                new Account(9, "u", "支出", "餐饮", -99, "2024-3-1", ""),                // 负数金额、非规范日期
+                new Account(10, "u", null, null, 0, null, "备注"),
+                new Account(11, "u", "支出", "交通", Long.MAX_VALUE, "2024-02-30", "备注")); // 不存在的日期
+        assertAccountsEqual(accounts, decode(encode("u", accounts)));
+    }
+
+    @Test
+    public void roundTrip_spansBlocksAndDictionaryLimit() throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        int count = BinaryBackupWriter.BLOCK_SIZE * 2 + 17;
+        for (int i = 0; i < count; i++) {
+            // 每条备注都不同：超过字典上限后按原文写入
+            accounts.add(new Account(i + 1, "u", i % 2 == 0 ? "支出" : "收入", "分类" + (i % 13),
+                    i * 37 - 5000, DateUtil.formatEpochDay(19000 + i / 5), "备注" + i));
+        }
+        assertAccountsEqual(accounts, decode(encode("u", accounts)));
+    }
+
+    @Test
+    public void emptyBackup_hasNoRecords() throws IOException {
+        try (BinaryBackupReader reader = new BinaryBackupReader(new ByteArrayInputStream(encode("用户", new ArrayList<>())))) {
+            assertEquals("用户", reader.getUserId());
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedBackup_fails() throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            accounts.add(new Account(i, "u", "支出", "餐饮", i, "2024-01-01", null));
+        }
+        byte[] bytes = encode("u", accounts);
+        decode(Arrays.copyOf(bytes, bytes.length - 10));
+    }
+
+    @Test
+    public void wrongColumnLength_fails() throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accounts.add(new Account(i + 1, "u", "支出", "餐饮", 100 + i, "2024-01-01", "备注" + i));
+        }
+        byte[] bytes = encode("u", accounts);
+        // 块头紧跟文件头：记录数，再是各列长度 (这里都是单字节 varint)。文件头长度 = 空备份长度 - 结束标记
+        int header = encode("u", new ArrayList<>()).length - 1;
+        assertEquals(accounts.size(), bytes[header]);
+        int lengths = header + 1;
+
+        // id 列少记一个字节、日期列多记一个字节：块的总长度不变，id 列最后一个字节划给了日期列
+        byte[] shorter = bytes.clone();
+        shorter[lengths]--;
+        shorter[lengths + 1]++;
+        assertDecodeFails(shorter);
+
+        // 反过来：id 列末尾多出一个未读的字节
+        byte[] longer = bytes.clone();
+        longer[lengths]++;
+        longer[lengths + 1]--;
+        assertDecodeFails(longer);
+    }
+
+    // 损坏的列不能读到其他列或旧数据块的字节而返回错误的记录
+    private static void assertDecodeFails(byte[] bytes) {
+        try {
+            decode(bytes);
+            fail("损坏的列长度应被发现");
+        } catch (IOException expected) {
+            assertFalse(expected instanceof EOFException);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void unsupportedVersion_fails() throws IOException {
+        byte[] bytes = encode("u", new ArrayList<>());
+        bytes[BinaryBackupWriter.MAGIC.length] = (byte) (BinaryBackupWriter.VERSION + 1);
+        decode(bytes);
+    }
+
+    @Test
+    public void isBinaryBackup_checksMagic() throws IOException {
+        byte[] binary = encode("u", new ArrayList<>());
+        assertTrue(BinaryBackupReader.isBinaryBackup(binary, binary.length));
+        assertFalse(BinaryBackupReader.isBinaryBackup(binary, 3));
+        byte[] json = "[]".getBytes(StandardCharsets.UTF_8);
+        assertFalse(BinaryBackupReader.isBinaryBackup(json, json.length));
+    }
+
+    @Test
+    public void binary_isSmallerThanJson() throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            accounts.add(new Account(i + 1, "user_name", "支出", "分类" + (i % 20),
+                    1000 + i % 5000, DateUtil.formatEpochDay(19000 + i / 10), i % 3 == 0 ? "午饭" : null));
+        }
+        int json = FileUtil.convertAccountsToJson(accounts).getBytes(StandardCharsets.UTF_8).length;
+        int binary = encode("user_name", accounts).length;
+        assertTrue("binary " + binary + " vs json " + json, binary * 5 < json);
+    }
+
+    @Test
+    public void zigzag_roundTrips() {
+        for (long value : new long[]{0, 1, -1, 63, -64, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertEquals(value, BinaryBackupWriter.unzigzag(BinaryBackupWriter.zigzag(value)));
+        }
+        assertEquals(1, BinaryBackupWriter.zigzag(-1));
+        assertEquals(2, BinaryBackupWriter.zigzag(1));
+    }
+
+    private static byte[] encode(String userId, List<Account> accounts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryBackupWriter writer = new BinaryBackupWriter(out, userId);
+        for (Account account : accounts) {
+            writer.write(account);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static List<Account> decode(byte[] bytes) throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        try (BinaryBackupReader reader = new BinaryBackupReader(new ByteArrayInputStream(bytes))) {
+            Account account;
+            while ((account = reader.next()) != null) {
+                accounts.add(account);
+            }
+            assertEquals(bytes.length, reader.position());
+        }
+        return accounts;
+    }
+
+    private static void assertAccountsEqual(List<Account> expected, List<Account> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Account e = expected.get(i);
+            Account a = actual.get(i);
+            String at = "record " + i;
+            assertEquals(at, e.getId(), a.getId());
+            assertEquals(at, e.getUserId(), a.getUserId());
+            assertEquals(at, e.getType(), a.getType());
+            assertEquals(at, e.getCategory(), a.getCategory());
+            assertEquals(at, e.getAmountCents(), a.getAmountCents());
+            assertEquals(at, e.getDate(), a.getDate());
+            assertEquals(at, e.getNote(), a.getNote());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.smartaccountingapp.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ContentHashIndexTest {
+
+    @Test
+    public void contentHash_dependsOnEveryField() {
+        long base = ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭");
+        assertEquals(base, ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭"));
+        assertNotEquals(base, ContentHash.of("收入", "餐饮", 1250, "2024-06-01", "午饭"));
+        assertNotEquals(base, ContentHash.of("支出", "交通", 1250, "2024-06-01", "午饭"));
+        assertNotEquals(base, ContentHash.of("支出", "餐饮", 1251, "2024-06-01", "午饭"));
+        assertNotEquals(base, ContentHash.of("支出", "餐饮", 1250, "2024-06-02", "午饭"));
+        assertNotEquals(base, ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "晚饭"));
+        // null 与空字符串不同；字段边界不会混淆
+        assertNotEquals(ContentHash.of("支出", "餐饮", 1, "2024-06-01", null),
+                ContentHash.of("支出", "餐饮", 1, "2024-06-01", ""));
+        assertNotEquals(ContentHash.of("ab", "c", 1, null, null), ContentHash.of("a", "bc", 1, null, null));
+    }
+
+    @Test
+    public void match_countsDuplicatesAsMultiset() {
+        long lunch = ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭");
+        long salary = ContentHash.of("收入", "工资", 500000, "2024-06-01", null);
+        ContentHashIndex index = new ContentHashIndex(new long[]{1, 2, 5}, new long[]{lunch, salary, lunch});
+
+        // 其他数据库的备份 (id 不同)：两条午饭被抵消，第三条插入
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(101, lunch));
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(102, lunch));
+        assertEquals(ContentHashIndex.Match.NEW, index.match(103, lunch));
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(104, salary));
+        assertEquals(ContentHashIndex.Match.NEW, index.match(105, salary));
+    }
+
+    @Test
+    public void match_sameIdWithDifferentContent_isConflict() {
+        long lunch = ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭");
+        long edited = ContentHash.of("支出", "餐饮", 1500, "2024-06-01", "午饭");
+        ContentHashIndex index = new ContentHashIndex(new long[]{1}, new long[]{edited});
+        assertEquals(ContentHashIndex.Match.CONFLICT, index.match(1, lunch));
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(1, edited));
+    }
+
+    @Test
+    public void match_deletedTwinBeforeSurvivingRecord_isStillInserted() {
+        // 备份中 id 1、2 内容相同，本机删除了 1：按内容先抵消 1 后，2 仍需插入一条
+        long lunch = ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭");
+        ContentHashIndex index = new ContentHashIndex(new long[]{2}, new long[]{lunch});
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(1, lunch));
+        assertEquals(ContentHashIndex.Match.NEW, index.match(2, lunch));
+    }
+
+    @Test
+    public void match_withoutIds_ignoresIdCollisions() {
+        // 其他来源的备份：id 1 与本机记录相同只是巧合，按内容判断
+        long lunch = ContentHash.of("支出", "餐饮", 1250, "2024-06-01", "午饭");
+        long salary = ContentHash.of("收入", "工资", 500000, "2024-06-01", null);
+        ContentHashIndex index = new ContentHashIndex(null, new long[]{salary});
+        assertEquals(ContentHashIndex.Match.NEW, index.match(1, lunch));
+        assertEquals(ContentHashIndex.Match.DUPLICATE, index.match(2, salary));
+        assertEquals(ContentHashIndex.Match.NEW, index.match(1, salary));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedArrays_areRejected() {
+        new ContentHashIndex(new long[]{1, 2}, new long[]{1});
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.smartaccountingapp.util;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class DateUtilTest {
+
+    @Test
+    public void epochDay_matchesJavaTime() {
+        // 单元测试运行在 JVM 上，可以用 java.time 作为对照
+        for (long day = -200_000; day <= 200_000; day += 7) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            String text = DateUtil.formatEpochDay(day);
+            if (date.getYear() >= 0 && date.getYear() <= 9999) {
+                assertEquals(date.toString(), text);
+                assertEquals(text, day, DateUtil.parseEpochDay(text));
+            }
+            assertEquals(day, DateUtil.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.getYear(), DateUtil.yearOf(day));
+            assertEquals(date.getMonthValue(), DateUtil.monthOf(day));
+            assertEquals(date.getDayOfMonth(), DateUtil.dayOfMonthOf(day));
+            assertEquals(date.withDayOfMonth(1).toEpochDay(), DateUtil.firstDayOfMonth(day));
+            assertEquals(date.withDayOfYear(1).toEpochDay(), DateUtil.firstDayOfYear(day));
+        }
+    }
+
+    @Test
+    public void parseEpochDay_handlesLeapYears() {
+        assertEquals(0, DateUtil.parseEpochDay("1970-01-01"));
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), DateUtil.parseEpochDay("2024-02-29"));
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), DateUtil.parseEpochDay("2000-02-29"));
+    }
+
+    @Test
+    public void parseEpochDay_rejectsInvalidDates() {
+        String[] invalid = {null, "", "2024-1-01", "2024/01/01", "2024-13-01", "2024-00-10",
+                "2023-02-29", "1900-02-29", "2024-04-31", "2024-01-0a"};
+        for (String date : invalid) {
+            try {
+                DateUtil.parseEpochDay(date);
+                fail("应拒绝: " + date);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void format_padsDigits() {
+        assertEquals("0999-03-05", DateUtil.format(999, 3, 5));
+        assertEquals("2024-12-31", DateUtil.format(2024, 12, 31));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.smartaccountingapp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LookupCacheTest {
+
+    @Test
+    public void putAll_addsEveryNameInOnePass() {
+        LookupCache cache = new LookupCache();
+        cache.put(1, "餐饮");
+        Map<String, Integer> added = new HashMap<>();
+        for (int id = 2; id <= 5000; id++) {
+            added.put("分类" + id, id);
+        }
+        cache.putAll(added);
+        assertEquals("餐饮", cache.nameOf(1));
+        assertEquals(1, cache.idOf("餐饮"));
+        assertEquals("分类5000", cache.nameOf(5000));
+        assertEquals(4321, cache.idOf("分类4321"));
+        assertNull(cache.nameOf(5001));
+        assertEquals(0, cache.idOf("不存在"));
+        assertEquals(0, cache.idOf(null));
+    }
+
+    @Test
+    public void replaceAll_dropsOldNames() {
+        LookupCache cache = new LookupCache();
+        cache.put(3, "旧名称");
+        Map<String, Integer> entries = new HashMap<>();
+        entries.put("新名称", 1);
+        cache.replaceAll(entries);
+        assertEquals(0, cache.idOf("旧名称"));
+        assertNull(cache.nameOf(3));
+        assertEquals("新名称", cache.nameOf(1));
+    }
+}
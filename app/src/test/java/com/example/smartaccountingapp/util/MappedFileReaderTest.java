@@ -0,0 +1,102 @@
+package com.example.smartaccountingapp.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MappedFileReaderTest {
+
+    // 1、2、3、4 字节的 UTF-8 字符混合
+    private static final String TEXT = "[{\"note\":\"午饭 café 😀\"},{\"note\":\"\\n\"}] 结束😀";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mapped", ".json");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void read_decodesUtf8AcrossRegions() throws IOException {
+        write(TEXT.getBytes(StandardCharsets.UTF_8));
+        // 区段只有 4~7 字节：多字节字符必然跨区段
+        for (long regionSize = 1; regionSize <= 7; regionSize++) {
+            for (int chunk : new int[]{1, 2, 3, 1024}) {
+                assertEquals("region " + regionSize + ", chunk " + chunk, TEXT, readAll(regionSize, chunk));
+            }
+        }
+    }
+
+    @Test
+    public void position_reportsDecodedBytes() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        write(bytes);
+        try (MappedFileReader reader = new MappedFileReader(file, 8)) {
+            assertEquals(bytes.length, reader.size());
+            assertEquals(0, reader.position());
+            char[] buffer = new char[64];
+            while (reader.read(buffer, 0, buffer.length) != -1) {
+                assertTrue(reader.position() <= bytes.length);
+            }
+            assertEquals(bytes.length, reader.position());
+        }
+    }
+
+    @Test
+    public void emptyFile_isAtEnd() throws IOException {
+        try (MappedFileReader reader = new MappedFileReader(file)) {
+            assertEquals(-1, reader.read(new char[8], 0, 8));
+            assertEquals(-1, reader.read());
+        }
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void malformedInput_isReported() throws IOException {
+        write(new byte[]{'[', (byte) 0xE5, (byte) 0x8D, ']'}); // 截断的 3 字节字符
+        readAll(1024, 1024);
+    }
+
+    @Test
+    public void map_exposesBytes() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        write(bytes);
+        ByteBuffer buffer = MappedFileReader.map(file);
+        assertEquals(bytes.length, buffer.remaining());
+        for (byte b : bytes) {
+            assertEquals(b, buffer.get());
+        }
+    }
+
+    private String readAll(long regionSize, int chunk) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[chunk];
+        try (MappedFileReader reader = new MappedFileReader(file, regionSize)) {
+            int n;
+            while ((n = reader.read(buffer, 0, chunk)) != -1) {
+                assertTrue(n > 0);
+                sb.append(buffer, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+    }
+}
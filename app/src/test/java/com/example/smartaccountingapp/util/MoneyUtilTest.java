@@ -0,0 +1,83 @@
+package com.example.smartaccountingapp.util;
+
+import com.example.smartaccountingapp.model.Account;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class MoneyUtilTest {
+
+    @Test
+    public void parseCents_roundsToTwoDecimals() {
+        assertEquals(1250, MoneyUtil.parseCents("12.5"));
+        assertEquals(29, MoneyUtil.parseCents("0.29"));
+        assertEquals(100, MoneyUtil.parseCents(" 1 "));
+        assertEquals(101, MoneyUtil.parseCents("1.005"));
+        assertEquals(-5, MoneyUtil.parseCents("-0.05"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseCents_rejectsGarbage() {
+        MoneyUtil.parseCents("12,5");
+    }
+
+    @Test
+    public void format_isExactAndLocaleIndependent() {
+        assertEquals("0.00", MoneyUtil.format(0));
+        assertEquals("0.05", MoneyUtil.format(5));
+        assertEquals("12.50", MoneyUtil.format(1250));
+        assertEquals("-0.05", MoneyUtil.format(-5));
+        assertEquals("-92233720368547758.08", MoneyUtil.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void formatTo_matchesFormatWithPrefix() {
+        char[] buffer = new char[MoneyUtil.FORMAT_BUFFER_SIZE];
+        long[] values = {0, 5, 99, 100, 1250, 123456789, -5, -1250, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long cents : values) {
+            int length = MoneyUtil.formatTo(buffer, '-', cents);
+            assertEquals("-" + MoneyUtil.format(cents), new String(buffer, 0, length));
+            length = MoneyUtil.formatTo(buffer, (char) 0, cents);
+            assertEquals(MoneyUtil.format(cents), new String(buffer, 0, length));
+        }
+    }
+
+    @Test
+    public void formatTo_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        char[] buffer = new char[MoneyUtil.FORMAT_BUFFER_SIZE];
+        long checksum = 0;
+        for (int i = 0; i < 10_000; i++) { // 预热
+            checksum += MoneyUtil.formatTo(buffer, '+', i * 37L);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            checksum += MoneyUtil.formatTo(buffer, '+', i * 37L);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(checksum > 0);
+        // 100k 次格式化：除测量本身外没有分配 (String 方式约为每次 100 字节)
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void json_keepsYuanFormatForBackups() {
+        Gson gson = new Gson();
+        Account account = new Account(1, "u", "支出", "餐饮", 1250, "2024-01-01", "午饭");
+        String json = gson.toJson(account);
+        assertTrue(json, json.contains("\"amount\":12.50"));
+
+        // 旧版本备份中金额为浮点元
+        Account legacy = gson.fromJson("{\"amount\":0.29,\"type\":\"支出\"}", Account.class);
+        assertEquals(29, legacy.getAmountCents());
+    }
+}
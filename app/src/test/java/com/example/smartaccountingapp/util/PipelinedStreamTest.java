@@ -0,0 +1,141 @@
+package com.example.smartaccountingapp.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class PipelinedStreamTest {
+
+    @Test
+    public void gzip_roundTripsThroughPipeline() throws IOException {
+        // 不是分块大小整数倍，且部分内容可压缩
+        byte[] data = new byte[PipelinedOutputStream.CHUNK_SIZE * 20 + 123];
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 1000 < 500 ? i % 7 : random.nextInt());
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new PipelinedOutputStream(new GZIPOutputStream(compressed), "test-compress")) {
+            out.write(data[0]);
+            for (int off = 1; off < data.length; off += 10_007) {
+                out.write(data, off, Math.min(10_007, data.length - off));
+            }
+        }
+
+        for (int chunk : new int[]{1, 1000, 200_000}) {
+            ByteArrayOutputStream restored = new ByteArrayOutputStream();
+            try (InputStream in = new PipelinedInputStream(
+                    new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())), "test-decompress")) {
+                byte[] buffer = new byte[chunk];
+                int n;
+                while ((n = chunk == 1 ? single(in, buffer) : in.read(buffer, 0, chunk)) != -1) {
+                    restored.write(buffer, 0, n);
+                }
+                assertEquals(-1, in.read());
+            }
+            assertArrayEquals("chunk " + chunk, data, restored.toByteArray());
+        }
+    }
+
+    @Test
+    public void emptyInput_isAtEnd() throws IOException {
+        try (InputStream in = new PipelinedInputStream(new ByteArrayInputStream(new byte[0]), "test-empty")) {
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[8], 0, 8));
+        }
+    }
+
+    @Test
+    public void downstreamFailure_isReported() throws IOException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("磁盘已满");
+            }
+        };
+        OutputStream out = new PipelinedOutputStream(failing, "test-failing");
+        byte[] data = new byte[PipelinedOutputStream.CHUNK_SIZE];
+        try {
+            // 出错后不会因为工作线程停止而永远阻塞
+            for (int i = 0; i < 100; i++) {
+                out.write(data, 0, data.length);
+            }
+            out.close();
+            fail("应抛出下游的异常");
+        } catch (IOException e) {
+            assertEquals("磁盘已满", e.getMessage());
+        }
+        try {
+            out.close();
+            fail("close 也应抛出下游的异常");
+        } catch (IOException e) {
+            assertEquals("磁盘已满", e.getMessage());
+        }
+    }
+
+    @Test
+    public void upstreamFailure_isReportedAfterData() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        InputStream failing = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == data.length) throw new IOException("读取失败");
+                return data[position++];
+            }
+        };
+        try (InputStream in = new PipelinedInputStream(failing, "test-failing")) {
+            byte[] buffer = new byte[data.length];
+            int read = 0;
+            try {
+                int n;
+                while ((n = in.read(buffer, read, buffer.length - read)) > 0) {
+                    read += n;
+                }
+                fail("应抛出上游的异常");
+            } catch (IOException e) {
+                assertEquals("读取失败", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void close_beforeEnd_stopsWorkerAndClosesUpstream() throws IOException {
+        boolean[] closed = new boolean[1];
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 1;
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        InputStream in = new PipelinedInputStream(endless, "test-endless");
+        assertEquals(1, in.read());
+        in.close();
+        assertTrue(closed[0]);
+    }
+
+    private static int single(InputStream in, byte[] buffer) throws IOException {
+        int b = in.read();
+        if (b == -1) return -1;
+        buffer[0] = (byte) b;
+        return 1;
+    }
+}